@@ -0,0 +1,23 @@
+-- Copyright (C) 2017-2019 Dennis Neufeld
+
+-- This program is free software: you can redistribute it and/or modify
+-- it under the terms of the GNU Affero General Public License as published
+-- by the Free Software Foundation, either version 3 of the License, or
+-- (at your option) any later version.
+
+-- This program is distributed in the hope that it will be useful,
+-- but WITHOUT ANY WARRANTY; without even the implied warranty of
+-- MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+-- GNU Affero General Public License for more details.
+
+-- You should have received a copy of the GNU Affero General Public License
+-- along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+CREATE TABLE IF NOT EXISTS public.game_snapshot
+(
+    channel_id bigint                            NOT NULL,
+    game_type  text COLLATE pg_catalog."default" NOT NULL,
+    taken      bigint                            NOT NULL,
+    snapshot   text COLLATE pg_catalog."default" NOT NULL,
+    CONSTRAINT game_snapshot_pkey PRIMARY KEY (channel_id)
+);
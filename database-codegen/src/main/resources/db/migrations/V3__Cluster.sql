@@ -0,0 +1,31 @@
+-- Copyright (C) 2017-2019 Dennis Neufeld
+
+-- This program is free software: you can redistribute it and/or modify
+-- it under the terms of the GNU Affero General Public License as published
+-- by the Free Software Foundation, either version 3 of the License, or
+-- (at your option) any later version.
+
+-- This program is distributed in the hope that it will be useful,
+-- but WITHOUT ANY WARRANTY; without even the implied warranty of
+-- MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+-- GNU Affero General Public License for more details.
+
+-- You should have received a copy of the GNU Affero General Public License
+-- along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+-- named leases held by one node of a cluster at a time, renewed before they expire
+CREATE TABLE IF NOT EXISTS public.cluster_lease
+(
+    name    text COLLATE pg_catalog."default" NOT NULL,
+    owner   text COLLATE pg_catalog."default" NOT NULL,
+    expires bigint                            NOT NULL,
+    CONSTRAINT cluster_lease_pkey PRIMARY KEY (name)
+);
+
+-- discord logger messages of all nodes, posted by the node holding the discord logger lease
+CREATE TABLE IF NOT EXISTS public.discord_log_outbox
+(
+    id      bigserial                         NOT NULL,
+    message text COLLATE pg_catalog."default" NOT NULL,
+    CONSTRAINT discord_log_outbox_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,38 @@
+-- Copyright (C) 2017-2019 Dennis Neufeld
+
+-- This program is free software: you can redistribute it and/or modify
+-- it under the terms of the GNU Affero General Public License as published
+-- by the Free Software Foundation, either version 3 of the License, or
+-- (at your option) any later version.
+
+-- This program is distributed in the hope that it will be useful,
+-- but WITHOUT ANY WARRANTY; without even the implied warranty of
+-- MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+-- GNU Affero General Public License for more details.
+
+-- You should have received a copy of the GNU Affero General Public License
+-- along with this program.  If not, see <http://www.gnu.org/licenses/>.
+
+-- the nodes of a cluster and their numbers, refreshed by each node with a heartbeat
+CREATE TABLE IF NOT EXISTS public.cluster_node
+(
+    name      text COLLATE pg_catalog."default" NOT NULL,
+    shard_min integer                           NOT NULL,
+    shard_max integer                           NOT NULL,
+    shards_up boolean                           NOT NULL,
+    guilds    bigint                            NOT NULL,
+    users     bigint                            NOT NULL,
+    games     integer                           NOT NULL,
+    heartbeat bigint                            NOT NULL,
+    CONSTRAINT cluster_node_pkey PRIMARY KEY (name)
+);
+
+-- owner commands forwarded to the node that can execute them
+CREATE TABLE IF NOT EXISTS public.cluster_command
+(
+    id       bigserial                         NOT NULL,
+    node     text COLLATE pg_catalog."default" NOT NULL,
+    command  text COLLATE pg_catalog."default" NOT NULL,
+    argument text COLLATE pg_catalog."default" NOT NULL,
+    CONSTRAINT cluster_command_pkey PRIMARY KEY (id)
+);
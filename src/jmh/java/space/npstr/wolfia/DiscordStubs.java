@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia;
+
+import net.dv8tion.jda.bot.sharding.ShardManager;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.entities.ChannelType;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.ISnowflake;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.PrivateChannel;
+import net.dv8tion.jda.core.entities.SelfUser;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
+import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.core.requests.RestAction;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import space.npstr.sqlsauce.DatabaseConnection;
+import space.npstr.sqlsauce.DatabaseWrapper;
+import space.npstr.wolfia.config.properties.ListingsConfig;
+import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.db.Database;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A Discord that answers everything right away, so the games can run on their real code in benchmarks.
+ * <p>
+ * Every JDA entity is a stub that returns more stubs, empty strings and collections. Rest actions succeed as soon as
+ * they are queued, with a stub of the entity they would have returned. The database swallows all writes. Stubs don't
+ * record their invocations, so they can be called millions of times.
+ */
+public class DiscordStubs {
+
+    public static final long SELF_USER_ID = 1L;
+    public static final long GUILD_ID = 2L;
+    public static final long GAME_CHANNEL_ID = 3L;
+    public static final long WOLFCHAT_GUILD_ID = 4L;
+    public static final long WOLFCHAT_CHANNEL_ID = 5L;
+
+    private static final Answer<Object> STUB = DiscordStubs::answer;
+    //one stub per type is enough, none of them keep state
+    private static final Map<Type, Object> stubs = new ConcurrentHashMap<>();
+    private static final Map<Long, Guild> guilds = new ConcurrentHashMap<>();
+    private static final Map<Long, TextChannel> textChannels = new ConcurrentHashMap<>();
+    private static final Map<Long, Member> members = new ConcurrentHashMap<>();
+    private static final Map<Long, User> users = new ConcurrentHashMap<>();
+    private static final Map<MessageChannel, Map<Long, MessageReceivedEvent>> events = new ConcurrentHashMap<>();
+    @Nullable
+    private static PrivateChannel privateChannel;
+
+    private static boolean installed = false;
+
+    private DiscordStubs() {
+    }
+
+    /**
+     * Point {@link Wolfia} and {@link Launcher#getBotContext()} at the stubs. Safe to call more than once.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        final SelfUser selfUser = stub(SelfUser.class);
+        doReturn(SELF_USER_ID).when(selfUser).getIdLong();
+        final JDA jda = stub(JDA.class);
+        doReturn(selfUser).when(jda).getSelfUser();
+
+        final ShardManager shardManager = stub(ShardManager.class);
+        doReturn(List.of(jda)).when(shardManager).getShards();
+        doAnswer(invocation -> textChannel(invocation.getArgument(0))).when(shardManager).getTextChannelById(anyLong());
+        doAnswer(invocation -> user(invocation.getArgument(0))).when(shardManager).getUserById(anyLong());
+        doAnswer(invocation -> guild(invocation.getArgument(0))).when(shardManager).getGuildById(anyLong());
+
+        final EntityManager entityManager = stub(EntityManager.class);
+        doReturn(stub(EntityTransaction.class)).when(entityManager).getTransaction();
+        final DatabaseConnection connection = stub(DatabaseConnection.class);
+        doReturn(entityManager).when(connection).getEntityManager();
+        final Database database = stub(Database.class);
+        doReturn(connection).when(database).getConnection();
+        doReturn(stub(DatabaseWrapper.class)).when(database).getWrapper();
+
+        setStatic(Wolfia.class, "shardManager", shardManager);
+        setStatic(Wolfia.class, "started", true);
+        setStatic(Launcher.class, "botContext", new BotContext(database, new WolfiaConfig(), new ListingsConfig()));
+        installed = true;
+    }
+
+    @Nonnull
+    public static User user(final long userId) {
+        return users.computeIfAbsent(userId, id -> {
+            final User user = stub(User.class);
+            doReturn(id).when(user).getIdLong();
+            doReturn("Player" + id).when(user).getName();
+            doReturn("<@" + id + ">").when(user).getAsMention();
+            return user;
+        });
+    }
+
+    /**
+     * @return an event of a message that the user posted in the channel
+     */
+    @Nonnull
+    public static MessageReceivedEvent messageEvent(final long authorId, @Nonnull final MessageChannel channel) {
+        return events.computeIfAbsent(channel, __ -> new ConcurrentHashMap<>()).computeIfAbsent(authorId, id -> {
+            final MessageReceivedEvent event = stub(MessageReceivedEvent.class);
+            doReturn(user(id)).when(event).getAuthor();
+            doReturn(channel).when(event).getChannel();
+            return event;
+        });
+    }
+
+    @Nonnull
+    public static TextChannel textChannel(final long channelId) {
+        return textChannels.computeIfAbsent(channelId, id -> {
+            final TextChannel channel = stub(TextChannel.class);
+            doReturn(id).when(channel).getIdLong();
+            doReturn(ChannelType.TEXT).when(channel).getType();
+            doReturn(guild(id == WOLFCHAT_CHANNEL_ID ? WOLFCHAT_GUILD_ID : GUILD_ID)).when(channel).getGuild();
+            return channel;
+        });
+    }
+
+    /**
+     * @return the channel that private messages to the bot arrive in
+     */
+    @Nonnull
+    public static synchronized PrivateChannel privateChannel() {
+        if (privateChannel == null) {
+            final PrivateChannel channel = stub(PrivateChannel.class);
+            doReturn(ChannelType.PRIVATE).when(channel).getType();
+            privateChannel = channel;
+        }
+        return privateChannel;
+    }
+
+    @Nonnull
+    private static Guild guild(final long guildId) {
+        return guilds.computeIfAbsent(guildId, id -> {
+            final Guild guild = stub(Guild.class);
+            doReturn(id).when(guild).getIdLong();
+            doAnswer(invocation -> member(invocation.getArgument(0))).when(guild).getMemberById(anyLong());
+            return guild;
+        });
+    }
+
+    @Nonnull
+    private static Member member(final long userId) {
+        return members.computeIfAbsent(userId, id -> {
+            final Member member = stub(Member.class);
+            final User user = user(id);
+            doReturn(user).when(member).getUser();
+            doReturn(user.getName()).when(member).getEffectiveName();
+            doReturn(null).when(member).getNickname();
+            return member;
+        });
+    }
+
+    @Nonnull
+    private static <T> T stub(@Nonnull final Class<T> type) {
+        return Mockito.mock(type, withSettings().stubOnly().defaultAnswer(STUB));
+    }
+
+    @Nullable
+    private static Object answer(@Nonnull final InvocationOnMock invocation) throws Throwable {
+        final Method method = invocation.getMethod();
+        final Class<?> type = method.getReturnType();
+        final Object mock = invocation.getMock();
+        if (type == String.class) {
+            return "getId".equals(method.getName()) && mock instanceof ISnowflake
+                    ? Long.toUnsignedString(((ISnowflake) mock).getIdLong())
+                    : "";
+        }
+        //fluent setters of rest actions and builders
+        if (type != Object.class && type.isInstance(mock)) {
+            return mock;
+        }
+        if (isJdaType(type)) {
+            return stubOf(method.getGenericReturnType(), type);
+        }
+        return Mockito.RETURNS_DEFAULTS.answer(invocation);
+    }
+
+    private static boolean isJdaType(@Nonnull final Class<?> type) {
+        return type.getName().startsWith("net.dv8tion.jda.") && !type.isEnum() && !type.isPrimitive()
+                && !Modifier.isFinal(type.getModifiers());
+    }
+
+    @Nonnull
+    private static Object stubOf(@Nonnull final Type genericType, @Nonnull final Class<?> type) {
+        final Object cached = stubs.get(genericType);
+        if (cached != null) {
+            return cached;
+        }
+        final Object created;
+        if (RestAction.class.isAssignableFrom(type)) {
+            final Object result = resultOf(restActionResultType(genericType));
+            created = Mockito.mock(type, withSettings().stubOnly().defaultAnswer(invocation -> completed(invocation, result)));
+        } else {
+            created = stub(type);
+        }
+        final Object raced = stubs.putIfAbsent(genericType, created);
+        return raced != null ? raced : created;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Object completed(@Nonnull final InvocationOnMock invocation, @Nullable final Object result) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "queue":
+                final Object[] args = invocation.getArguments();
+                if (args.length > 0 && args[0] != null) {
+                    ((Consumer<Object>) args[0]).accept(result);
+                }
+                return null;
+            case "complete":
+                return result;
+            case "submit":
+                //delegate the future returned by JDA to one that is done already
+                final CompletableFuture<Object> done = CompletableFuture.completedFuture(result);
+                return Mockito.mock(invocation.getMethod().getReturnType(), withSettings().stubOnly().defaultAnswer(
+                        call -> call.getMethod().invoke(done, call.getArguments())));
+            default:
+                return answer(invocation);
+        }
+    }
+
+    //the T of the RestAction<T> that the type extends, or null if it can't be told
+    @Nullable
+    private static Type restActionResultType(@Nonnull final Type type) {
+        if (type instanceof ParameterizedType) {
+            //JDA passes the result type through as the first type parameter of its rest actions
+            return ((ParameterizedType) type).getActualTypeArguments()[0];
+        }
+        if (type instanceof Class && type != RestAction.class) {
+            final Type superclass = ((Class<?>) type).getGenericSuperclass();
+            return superclass != null ? restActionResultType(superclass) : null;
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Object resultOf(@Nullable final Type type) {
+        final Class<?> raw;
+        if (type instanceof Class) {
+            raw = (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            raw = (Class<?>) ((ParameterizedType) type).getRawType();
+        } else {
+            return null;
+        }
+        if (raw == String.class) {
+            return "";
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            return Collections.emptyList();
+        }
+        return isJdaType(raw) ? stubOf(type, raw) : null;
+    }
+
+    private static void setStatic(@Nonnull final Class<?> clazz, @Nonnull final String fieldName, @Nonnull final Object value) {
+        try {
+            final Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(null, value);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not set " + clazz.getSimpleName() + "#" + fieldName, e);
+        }
+    }
+}
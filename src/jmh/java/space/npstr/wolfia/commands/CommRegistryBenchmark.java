@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the stream based trigger lookup that CommRegistry used to do with the prebuilt trigger index.
+ * <p>
+ * The commands are stand-ins carrying the same triggers and aliases as the ones registered in
+ * {@link CommRegistry#init}, as the real commands need a running bot context to be constructed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommRegistryBenchmark {
+
+    private final List<BaseCommand> commands = new ArrayList<>();
+    private final List<String> triggers = new ArrayList<>();
+    private Map<String, BaseCommand> triggerIndex;
+
+    @Setup
+    public void setup() {
+        //@formatter:off
+        register(CommRegistry.COMM_TRIGGER_IN, "join");
+        register(CommRegistry.COMM_TRIGGER_OUT, "leave");
+        register(CommRegistry.COMM_TRIGGER_ROLEPM, "rpm");
+        register(CommRegistry.COMM_TRIGGER_SETUP);
+        register(CommRegistry.COMM_TRIGGER_START);
+        register(CommRegistry.COMM_TRIGGER_STATUS, "st");
+
+        register(CommRegistry.COMM_TRIGGER_SHOOT, "s", "blast");
+        register(CommRegistry.COMM_TRIGGER_VOTE, "v", "lynch");
+        register(CommRegistry.COMM_TRIGGER_UNVOTE, "u", "uv");
+        register(CommRegistry.COMM_TRIGGER_CHECK);
+        register(CommRegistry.COMM_TRIGGER_VOTECOUNT, "vc");
+        register(CommRegistry.COMM_TRIGGER_NIGHTKILL, "nk");
+        register(CommRegistry.COMM_TRIGGER_HOHOHO, "ho");
+        register(CommRegistry.COMM_TRIGGER_OPENPRESENT, "open", CommRegistry.COMM_TRIGGER_OPENPRESENT_ALIAS);
+        register(CommRegistry.COMM_TRIGGER_ITEMS);
+
+        register(CommRegistry.COMM_TRIGGER_BOTSTATS);
+        register(CommRegistry.COMM_TRIGGER_GUILDSTATS);
+        register(CommRegistry.COMM_TRIGGER_USERSTATS);
+
+        register(CommRegistry.COMM_TRIGGER_CHANNELSETTINGS, "cs");
+        register(CommRegistry.COMM_TRIGGER_COMMANDS, "comms");
+        register(CommRegistry.COMM_TRIGGER_HELP);
+        register(CommRegistry.COMM_TRIGGER_INFO);
+        register(CommRegistry.COMM_TRIGGER_INVITE, "inv");
+        register(CommRegistry.COMM_TRIGGER_RANK);
+        register(CommRegistry.COMM_TRIGGER_REPLAY);
+        register(CommRegistry.COMM_TRIGGER_TAG);
+
+        register("ban");
+        register("eval");
+        register("killgame");
+        register("maint");
+        register("register");
+        register("restart");
+        register("revive");
+        register("running");
+        register("shutdown");
+        register("sync");
+        //@formatter:on
+
+        this.triggerIndex = CommRegistry.buildTriggerIndex(this.commands);
+    }
+
+    @Benchmark
+    public void streamLookup(final Blackhole blackhole) {
+        for (final String trigger : this.triggers) {
+            blackhole.consume(streamLookup(trigger));
+        }
+    }
+
+    @Benchmark
+    public void indexedLookup(final Blackhole blackhole) {
+        for (final String trigger : this.triggers) {
+            blackhole.consume(this.triggerIndex.get(trigger));
+        }
+    }
+
+    //the lookup as it was done before the trigger index was introduced
+    private BaseCommand streamLookup(final String input) {
+        return this.commands.stream()
+                .filter(command -> input.equalsIgnoreCase(command.name) || command.aliases.contains(input.toLowerCase()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void register(final String name, final String... aliases) {
+        this.commands.add(new NoopCommand(name, aliases));
+        this.triggers.add(name);
+        this.triggers.addAll(List.of(aliases));
+    }
+
+    private static class NoopCommand extends BaseCommand {
+
+        NoopCommand(@Nonnull final String name, @Nonnull final String... aliases) {
+            super(name, aliases);
+        }
+
+        @Override
+        protected boolean execute(@Nonnull final CommandContext context) {
+            return true;
+        }
+
+        @Nonnull
+        @Override
+        protected String help() {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import space.npstr.wolfia.config.properties.WolfiaConfig;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the regex based tokenizing that {@link CommandContext#parse} used to do with {@link CommandInput}.
+ * <p>
+ * The messages are a mix of game chatter, which is the bulk of what the bot receives, and commands as they are typed
+ * during a game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandInputBenchmark {
+
+    private static final String PREFIX = WolfiaConfig.DEFAULT_PREFIX;
+
+    private final List<String> messages = List.of(
+            "i think 7 is scum, they voted way too fast yesterday",
+            "lol",
+            "w.vote 7",
+            "W.Vote   @Goodnight Moon",
+            "w. shoot <@166604053629894657>",
+            "w.unvote",
+            "w.vc",
+            "w.in",
+            "w.status",
+            "w.nightkill 12",
+            "wait who is 12? can someone post the votecount",
+            "w.check Shadow_Walker the Great Lurker",
+            "w.channelsettings accessrole @Mafia Players",
+            "w.replay 4512",
+            "w.setup game mafia mode lite daylength 10 playercount 26",
+            "wolfia is great"
+    );
+
+    @Benchmark
+    public void regexParse(final Blackhole blackhole) {
+        for (final String message : this.messages) {
+            regexParse(message, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void commandInputParse(final Blackhole blackhole) {
+        for (final String message : this.messages) {
+            blackhole.consume(CommandInput.parse(message, PREFIX));
+        }
+    }
+
+    //the tokenizing as it was done before CommandInput was introduced
+    private static void regexParse(final String raw, final Blackhole blackhole) {
+        String input;
+        if (raw.toLowerCase().startsWith(PREFIX.toLowerCase())) {
+            input = raw.substring(PREFIX.length());
+        } else {
+            return;
+        }
+
+        input = input.trim();
+        if (input.isEmpty()) {
+            return;
+        }
+        final String[] args = input.split("\\p{javaSpaceChar}+");
+        if (args.length < 1) {
+            return;
+        }
+
+        final String commandTrigger = args[0];
+        blackhole.consume(commandTrigger);
+        blackhole.consume(Arrays.copyOfRange(args, 1, args.length));
+        blackhole.consume(input.replaceFirst(Pattern.quote(commandTrigger), "").trim());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import net.dv8tion.jda.core.entities.MessageChannel;
+import space.npstr.wolfia.DiscordStubs;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A command as if a user had typed it, on top of {@link DiscordStubs}. Skips the parsing and rate limiting of
+ * {@link CommandContext#parse}.
+ */
+public class StubCommandContext extends CommandContext {
+
+    public StubCommandContext(@Nonnull final BaseCommand command, final long invokerId,
+                              @Nonnull final MessageChannel channel, @Nonnull final String rawArgs) {
+        super(DiscordStubs.messageEvent(invokerId, channel), command.name,
+                rawArgs.isEmpty() ? new String[0] : rawArgs.split("\\s+"), rawArgs, command, System.nanoTime());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.db;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps native query results shaped like the winning teams query of the stats to lists of column name to value maps.
+ * That query returns a row for every game that has been played, in total or for a single player size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnMapperBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private final Map<String, Integer> columnNameToIndex = new LinkedHashMap<>();
+    private final List<Object[]> result = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        this.columnNameToIndex.put("game_id", 0);
+        this.columnNameToIndex.put("alignment", 1);
+        for (int i = 0; i < this.rows; i++) {
+            this.result.add(new Object[]{BigInteger.valueOf(i + 1), i % 3 == 0 ? "WOLF" : "VILLAGE"});
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> asListOfMaps() {
+        return ColumnMapper.asListOfMaps(this.result, this.columnNameToIndex);
+    }
+}
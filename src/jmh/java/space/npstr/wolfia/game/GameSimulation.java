@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import space.npstr.wolfia.DiscordStubs;
+import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.commands.BaseCommand;
+import space.npstr.wolfia.commands.CommRegistry;
+import space.npstr.wolfia.commands.StubCommandContext;
+import space.npstr.wolfia.commands.ingame.CheckCommand;
+import space.npstr.wolfia.commands.ingame.HohohoCommand;
+import space.npstr.wolfia.commands.ingame.NightkillCommand;
+import space.npstr.wolfia.commands.ingame.ShootCommand;
+import space.npstr.wolfia.commands.ingame.VoteCommand;
+import space.npstr.wolfia.db.entities.PrivateGuild;
+import space.npstr.wolfia.db.entities.stats.GameStats;
+import space.npstr.wolfia.db.entities.stats.PlayerStats;
+import space.npstr.wolfia.db.entities.stats.TeamStats;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+import space.npstr.wolfia.game.mafia.Mafia;
+import space.npstr.wolfia.game.popcorn.Popcorn;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the phases of Mafia and Popcorn games on the real {@link Mafia} and {@link Popcorn} code, behind
+ * {@link DiscordStubs}, with bots making random choices.
+ * <p>
+ * A game is set up the way it is resumed after a restart, from a snapshot taken right before the phase to be played,
+ * so each phase can be played and measured on its own. The bots act through the same commands that players issue.
+ * Phases are started and ended through the methods that the timers of the games call, instead of waiting for them.
+ * <p>
+ * Games are seeded, so a given seed always sets up the same game. The choices of the game itself, like breaking ties,
+ * are not seeded.
+ */
+public class GameSimulation {
+
+    private static final long DAY_LENGTH_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long ACCESS_ROLE_ID = 6L;
+    private static final long PLAYER_ID_OFFSET = 100L;
+
+    private static final Method MAFIA_START_DAY = declaredMethod(Mafia.class, "startDay");
+    private static final Method MAFIA_START_NIGHT = declaredMethod(Mafia.class, "startNight");
+    private static final Method MAFIA_RESOLVE_NIGHTKILL = declaredMethod(Mafia.class, "resolveNightkill", int.class, Message.class);
+
+    private final BaseCommand vote = new VoteCommand(CommRegistry.COMM_TRIGGER_VOTE);
+    private final BaseCommand nightkill = new NightkillCommand(CommRegistry.COMM_TRIGGER_NIGHTKILL);
+    private final BaseCommand check = new CheckCommand(CommRegistry.COMM_TRIGGER_CHECK);
+    private final BaseCommand hohoho = new HohohoCommand(CommRegistry.COMM_TRIGGER_HOHOHO);
+    private final BaseCommand shoot = new ShootCommand(CommRegistry.COMM_TRIGGER_SHOOT);
+
+    private final Games gameType;
+    private final GameInfo.GameMode mode;
+    private final int playerCount;
+
+    //state of the game being played
+    private final Random random = new Random();
+    @Nullable
+    private Game game;
+    private long gunBearer = -1;
+
+    public GameSimulation(@Nonnull final Games gameType, @Nonnull final GameInfo.GameMode mode, final int playerCount) {
+        if (!Games.getInfo(gameType).isAcceptablePlayerCount(playerCount, mode)) {
+            throw new IllegalArgumentException("Unsupported player count " + playerCount + " for " + gameType + " " + mode);
+        }
+        this.gameType = gameType;
+        this.mode = mode;
+        this.playerCount = playerCount;
+        DiscordStubs.install();
+    }
+
+    /**
+     * Set up a new game right before the given phase of its first cycle. For Popcorn, that is the first day with the
+     * gun handed out already.
+     * <p>
+     * A resumed Mafia game schedules its next day on a timer, so the phase has to be played and the game torn down
+     * before that timer runs.
+     */
+    public void setUp(@Nonnull final Phase phase, final long seed) throws IllegalGameStateException {
+        if (this.gameType == Games.POPCORN && phase != Phase.DAY) {
+            throw new IllegalArgumentException("Popcorn has no " + phase);
+        }
+        tearDown();
+        this.random.setSeed(seed);
+        final List<Charakter> charakters = new ArrayList<>(Games.getInfo(this.gameType)
+                .getCharacterSetup(this.mode, this.playerCount).getCharakters());
+        Collections.shuffle(charakters, this.random);
+
+        Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.clear();
+        Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.add(new PrivateGuild(1, DiscordStubs.WOLFCHAT_GUILD_ID));
+        final Game created = this.gameType == Games.MAFIA ? new Mafia() : new Popcorn();
+        created.resume(snapshot(charakters, phase));
+        this.game = created;
+    }
+
+    /**
+     * Stop the game that was set up last, and everything it left scheduled.
+     */
+    public void tearDown() {
+        final Game current = this.game;
+        if (current == null) {
+            return;
+        }
+        this.game = null;
+        current.suspend();
+        current.cleanUp();
+        Games.remove(current);
+    }
+
+    /**
+     * The day starts, bots vote until a player is lynched by majority, and the night falls.
+     */
+    public void playMafiaDay() {
+        final Mafia mafia = (Mafia) requireGame();
+        invoke(MAFIA_START_DAY, mafia);
+        final MessageChannel gameChannel = DiscordStubs.textChannel(DiscordStubs.GAME_CHANNEL_ID);
+        final int day = mafia.phaseState.getCycle();
+        //most of the village agrees on whom to lynch, the rest votes all over the place
+        final Player lynchTarget = GameUtils.rand(mafia.roster.living(), this.random);
+        while (mafia.phaseState.isOngoing(Phase.DAY) && mafia.phaseState.getCycle() == day) {
+            final List<Player> voters = new ArrayList<>(mafia.roster.living());
+            Collections.shuffle(voters, this.random);
+            for (final Player voter : voters) {
+                if (!mafia.phaseState.isOngoing(Phase.DAY)) {
+                    break;
+                }
+                final Player candidate = this.random.nextInt(4) > 0 && !voter.equals(lynchTarget)
+                        ? lynchTarget
+                        : pickOther(mafia.roster.living(), voter);
+                issue(mafia, this.vote, voter, gameChannel, candidate);
+            }
+        }
+    }
+
+    /**
+     * The night falls, wolves vote whom to kill, cops check and santas hand out presents, and the nightkill ends the
+     * night.
+     */
+    public void playMafiaNight() {
+        final Mafia mafia = (Mafia) requireGame();
+        invoke(MAFIA_START_NIGHT, mafia);
+        final int night = mafia.phaseState.getCycle();
+        final MessageChannel wolfchat = DiscordStubs.textChannel(DiscordStubs.WOLFCHAT_CHANNEL_ID);
+        final MessageChannel privateChannel = DiscordStubs.privateChannel();
+
+        final List<Player> livingVillage = mafia.roster.living(Alignments.VILLAGE);
+        for (final Player wolf : mafia.roster.living(Alignments.WOLF)) {
+            issue(mafia, this.nightkill, wolf, wolfchat, GameUtils.rand(livingVillage, this.random));
+        }
+        for (final Player player : mafia.roster.living()) {
+            if (player.role == Roles.COP) {
+                issue(mafia, this.check, player, privateChannel, pickOther(mafia.roster.living(), player));
+            } else if (player.role == Roles.SANTA) {
+                issue(mafia, this.hohoho, player, privateChannel, pickOther(mafia.roster.living(), player));
+            }
+        }
+        invoke(MAFIA_RESOLVE_NIGHTKILL, mafia, night, null);
+    }
+
+    /**
+     * The gun bearer shoots someone, which ends the day, and the next day starts.
+     */
+    public void playPopcornDay() {
+        final Popcorn popcorn = (Popcorn) requireGame();
+        final Player shooter = popcorn.roster.byUserId(this.gunBearer);
+        final MessageChannel gameChannel = DiscordStubs.textChannel(DiscordStubs.GAME_CHANNEL_ID);
+        issue(popcorn, this.shoot, shooter, gameChannel, pickOther(popcorn.roster.living(), shooter));
+    }
+
+    //what the game would have saved at the end of the phase before the one to be played
+    @Nonnull
+    private JSONObject snapshot(@Nonnull final List<Charakter> charakters, @Nonnull final Phase phase) {
+        final GameStats gameStats = new GameStats(DiscordStubs.GUILD_ID, "simulation", DiscordStubs.GAME_CHANNEL_ID,
+                "simulation", this.gameType, this.mode.name(), this.playerCount);
+        final Map<Alignments, TeamStats> teams = new EnumMap<>(Alignments.class);
+        final JSONArray players = new JSONArray();
+        for (int i = 0; i < charakters.size(); i++) {
+            final Charakter c = charakters.get(i);
+            final long userId = PLAYER_ID_OFFSET + i;
+            players.put(new JSONObject()
+                    .put("userId", userId)
+                    .put("alignment", c.alignment.name())
+                    .put("role", c.role.name())
+                    .put("number", i + 1)
+                    .put("alive", true)
+                    .put("rolePm", "")
+                    .put("items", new JSONArray()));
+            final TeamStats team = teams.computeIfAbsent(c.alignment,
+                    alignment -> new TeamStats(gameStats, alignment, alignment.name(), -1));
+            team.addPlayer(new PlayerStats(team, userId, null, c.alignment, c.role));
+        }
+        for (final TeamStats team : teams.values()) {
+            team.setTeamSize(team.getPlayers().size());
+            gameStats.addTeam(team);
+        }
+
+        final boolean mafia = this.gameType == Games.MAFIA;
+        final JSONObject snapshot = new JSONObject()
+                .put("channelId", DiscordStubs.GAME_CHANNEL_ID)
+                .put("guildId", DiscordStubs.GUILD_ID)
+                .put("mode", this.mode.name())
+                .put("accessRoleId", ACCESS_ROLE_ID)
+                .put("players", players)
+                .put("phase", (mafia && phase == Phase.DAY ? Phase.NIGHT : Phase.DAY).name())
+                .put("cycle", mafia && phase == Phase.DAY ? 0 : 1)
+                .put("phaseEnded", mafia) //a resumed Mafia game starts the next phase, a Popcorn game keeps its day
+                .put("actionOrder", 0)
+                .put("gameStats", GameSnapshots.toJson(gameStats))
+                .put("wolfChat", new JSONObject()
+                        .put("guildId", DiscordStubs.WOLFCHAT_GUILD_ID)
+                        .put("channelId", DiscordStubs.WOLFCHAT_CHANNEL_ID))
+                .put("dayLengthMillis", DAY_LENGTH_MILLIS);
+        if (mafia) {
+            return snapshot
+                    .put("phaseTimeLeft", 0)
+                    .put("votes", new JSONArray())
+                    .put("nightkillVotes", new JSONArray())
+                    .put("nightActions", new JSONArray());
+        }
+        this.gunBearer = PLAYER_ID_OFFSET + randomIndexOf(charakters, Alignments.VILLAGE);
+        return snapshot
+                .put("dayTimeLeft", DAY_LENGTH_MILLIS)
+                .put("gunBearer", this.gunBearer);
+    }
+
+    private int randomIndexOf(@Nonnull final List<Charakter> charakters, @Nonnull final Alignments alignment) {
+        int index;
+        do {
+            index = this.random.nextInt(charakters.size());
+        } while (charakters.get(index).alignment != alignment);
+        return index;
+    }
+
+    private void issue(@Nonnull final Game game, @Nonnull final BaseCommand command, @Nonnull final Player invoker,
+                       @Nonnull final MessageChannel channel, @Nonnull final Player target) {
+        try {
+            game.issueCommand(new StubCommandContext(command, invoker.userId, channel, Integer.toString(target.number)));
+        } catch (final IllegalGameStateException e) {
+            throw new IllegalStateException("Simulation ran into an illegal game state", e);
+        }
+    }
+
+    @Nonnull
+    private Game requireGame() {
+        final Game current = this.game;
+        if (current == null) {
+            throw new IllegalStateException("No game has been set up");
+        }
+        return current;
+    }
+
+    @Nonnull
+    private Player pickOther(@Nonnull final List<Player> players, @Nonnull final Player except) {
+        Player picked;
+        do {
+            picked = GameUtils.rand(players, this.random);
+        } while (picked.equals(except) && players.size() > 1);
+        return picked;
+    }
+
+    //the phases are driven by timers in the game, call what they would call instead of waiting for them
+    @Nonnull
+    private static Method declaredMethod(@Nonnull final Class<?> clazz, @Nonnull final String name,
+                                         @Nonnull final Class<?>... parameterTypes) {
+        try {
+            final Method method = clazz.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return method;
+        } catch (final NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static void invoke(@Nonnull final Method method, @Nonnull final Game game, @Nonnull final Object... args) {
+        try {
+            method.invoke(game, args);
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException("Simulation failed to run " + method.getName(), e.getCause());
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per phase of the real {@link space.npstr.wolfia.game.mafia.Mafia} and
+ * {@link space.npstr.wolfia.game.popcorn.Popcorn} engines, played by the bots of {@link GameSimulation}. Every
+ * invocation plays a single phase of a freshly set up game, the set up is not measured. Run with {@code -prof gc} to
+ * get the allocation per phase ({@code gc.alloc.rate.norm}).
+ * <p>
+ * Discord is stubbed and answers rest actions right away, so this measures the CPU time of the game code and not the
+ * latency of Discord.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameSimulationBenchmark {
+
+    @Benchmark
+    public void mafiaDay(final MafiaDay game) {
+        game.simulation.playMafiaDay();
+    }
+
+    @Benchmark
+    public void mafiaNight(final MafiaNight game) {
+        game.simulation.playMafiaNight();
+    }
+
+    @Benchmark
+    public void popcornDay(final PopcornDay game) {
+        game.simulation.playPopcornDay();
+    }
+
+    public abstract static class SimulatedGame {
+
+        GameSimulation simulation;
+        private long seed;
+
+        abstract Games gameType();
+
+        abstract String setup();
+
+        abstract Phase phase();
+
+        @Setup(Level.Trial)
+        public void createSimulation() {
+            final String[] parts = setup().split(" ");
+            this.simulation = new GameSimulation(gameType(), GameInfo.GameMode.valueOf(parts[0]),
+                    Integer.parseInt(parts[1]));
+        }
+
+        @Setup(Level.Invocation)
+        public void setUpGame() throws IllegalGameStateException {
+            this.simulation.setUp(phase(), this.seed++);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDownGame() {
+            this.simulation.tearDown();
+        }
+    }
+
+    public abstract static class MafiaGame extends SimulatedGame {
+
+        //mode and player count
+        @Param({"LITE 9", "LITE 26", "XMAS 12"})
+        public String setup;
+
+        @Override
+        Games gameType() {
+            return Games.MAFIA;
+        }
+
+        @Override
+        String setup() {
+            return this.setup;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MafiaDay extends MafiaGame {
+
+        @Override
+        Phase phase() {
+            return Phase.DAY;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MafiaNight extends MafiaGame {
+
+        @Override
+        Phase phase() {
+            return Phase.NIGHT;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PopcornDay extends SimulatedGame {
+
+        //mode and player count
+        @Param({"WILD 9", "CLASSIC 26"})
+        public String setup;
+
+        @Override
+        Games gameType() {
+            return Games.POPCORN;
+        }
+
+        @Override
+        String setup() {
+            return this.setup;
+        }
+
+        @Override
+        Phase phase() {
+            return Phase.DAY;
+        }
+    }
+}
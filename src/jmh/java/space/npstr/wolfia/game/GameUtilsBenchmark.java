@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up players the ways a vote or shoot command can target them: by mention, by number, and by a misspelled name
+ * that only the levenshtein search finds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameUtilsBenchmark {
+
+    @Param({"9", "16", "26"})
+    public int players;
+
+    private PlayerRoster roster;
+    private List<Long> mention;
+    private String number;
+    private String misspelledName;
+
+    @Setup
+    public void setup() {
+        this.roster = new PlayerRoster(StandInPlayer.create(this.players));
+        //target the last player, which a scan over the players would find last
+        final Player target = this.roster.byNumber(this.roster.size());
+        this.mention = List.of(target.userId);
+        this.number = Integer.toString(target.number);
+        final String name = target.getName();
+        this.misspelledName = name.substring(0, name.length() - 1) + "x";
+    }
+
+    @Benchmark
+    public List<Player> findPlayerByMention() {
+        return GameUtils.findPlayer(this.roster, this.mention, "");
+    }
+
+    @Benchmark
+    public List<Player> findPlayerByNumber() {
+        return GameUtils.findPlayer(this.roster, Collections.emptyList(), this.number);
+    }
+
+    @Benchmark
+    public List<Player> findPlayerByName() {
+        return GameUtils.findPlayer(this.roster, Collections.emptyList(), this.misspelledName);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Roles;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A player with fixed names, for benchmarks that render or search players without a running bot context.
+ * <p>
+ * The real {@link Player} looks up its names from the shards or the user cache in the database when the game starts.
+ */
+public class StandInPlayer extends Player {
+
+    private static final String[] NAMES = {
+            "napster", "Dennis", "Wolfpack", "xXSniperXx", "Mafioso", "Santa Claus", "Frosty", "Rudolph",
+            "Blitzen", "The Cop", "Goodnight Moon", "Town Crier", "Sheriff", "Popcorn Lord", "Nightshade",
+            "Lurker", "Shadow_Walker", "Ms. Marple", "Holmes", "Watson", "Moriarty", "Lestrade", "Poirot",
+            "Hastings", "Japp", "Lemon",
+    };
+
+    public StandInPlayer(final long userId, @Nonnull final Alignments alignment, final int number,
+                         @Nonnull final String name, @Nonnull final String nick) {
+        super(userId, 1, 1, alignment, Roles.VANILLA, number);
+        memoizeNames(name, nick);
+    }
+
+    /**
+     * @return players numbered from 1 to size, every third of them a wolf, with distinct names and nicks
+     */
+    public static List<Player> create(final int size) {
+        final List<Player> players = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final String name = NAMES[i % NAMES.length];
+            final Alignments alignment = i % 3 == 2 ? Alignments.WOLF : Alignments.VILLAGE;
+            players.add(new StandInPlayer(100000000000000000L + i, alignment, i + 1, name, name + " | " + (i + 1)));
+        }
+        return players;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills chunking fields with lines the size of the ones in status listings and replays, and adds them to an embed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NiceEmbedBuilderBenchmark {
+
+    //26 is a status listing of the biggest games, 500 a replay of a long game
+    @Param({"26", "500"})
+    public int lines;
+
+    private final List<String> content = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < this.lines; i++) {
+            this.content.add(String.format(":zero::%s: **Goodnight Moon %d** aka **Shadow_Walker** voted for :one::%s: **Lurker**",
+                    i % 10, i, (i + 1) % 10));
+        }
+    }
+
+    @Benchmark
+    public NiceEmbedBuilder.ChunkingField add() {
+        final NiceEmbedBuilder.ChunkingField field = new NiceEmbedBuilder.ChunkingField("Replay", false);
+        for (final String line : this.content) {
+            field.add(line, true);
+        }
+        return field;
+    }
+
+    @Benchmark
+    public NiceEmbedBuilder.ChunkingField addAll() {
+        return new NiceEmbedBuilder.ChunkingField("Replay", false).addAll(this.content, true);
+    }
+
+    @Benchmark
+    public NiceEmbedBuilder addField() {
+        final NiceEmbedBuilder.ChunkingField field = new NiceEmbedBuilder.ChunkingField("Replay", false)
+                .addAll(this.content, true);
+        return NiceEmbedBuilder.defaultBuilder().addField(field);
+    }
+}
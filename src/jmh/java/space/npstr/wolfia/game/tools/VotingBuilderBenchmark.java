@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.game.PlayerRoster;
+import space.npstr.wolfia.game.StandInPlayer;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the vote embeds of a day in which a quarter of the players have already died, and the living players
+ * keep changing their votes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VotingBuilderBenchmark {
+
+    //the votecount is rendered at most this often during a replayed day
+    private static final int RENDER_EVERY_N_VOTES = 10;
+
+    @Param({"9", "16", "26"})
+    public int players;
+
+    //amount of votes and unvotes cast during the day
+    @Param({"26", "500"})
+    public int history;
+
+    private final VotingBuilder votingBuilder = new VotingBuilder()
+            .header("Day ends in **%timeleft** with a lynch.")
+            .notes("**Use `w.vote` to cast a vote on a player.**");
+
+    private final List<Player> voters = new ArrayList<>();
+    private final List<Player> candidates = new ArrayList<>();  //null entries are unvotes
+    private final VoteTally<Player, Player> votes = new VoteTally<>();
+
+    @Setup
+    public void setup() throws IllegalGameStateException {
+        final List<Player> all = StandInPlayer.create(this.players);
+        for (int i = 0; i < all.size() / 4; i++) {
+            all.get(i * 4).kill();
+        }
+        final PlayerRoster roster = new PlayerRoster(all);
+        this.votingBuilder.roster(roster).endTime(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10));
+
+        final List<Player> living = roster.living();
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < this.history; i++) {
+            this.voters.add(living.get(random.nextInt(living.size())));
+            final boolean unvote = random.nextInt(10) == 0;
+            this.candidates.add(unvote ? null : living.get(random.nextInt(living.size())));
+        }
+        replay(this.votes, Integer.MAX_VALUE, null);
+    }
+
+    @Benchmark
+    public NiceEmbedBuilder getEmbed() {
+        return this.votingBuilder.getEmbed(this.votes.snapshot());
+    }
+
+    @Benchmark
+    public NiceEmbedBuilder getFinalEmbed() {
+        return this.votingBuilder.getFinalEmbed(this.votes.snapshot(), Phase.DAY, 3);
+    }
+
+    //casts all votes of the day, checking for majority after each vote and rendering the votecount in between like
+    //the periodic updates do
+    @Benchmark
+    public void replayDay(final Blackhole blackhole) {
+        replay(new VoteTally<>(), RENDER_EVERY_N_VOTES, blackhole);
+    }
+
+    private void replay(final VoteTally<Player, Player> votes, final int renderEvery, final Blackhole blackhole) {
+        for (int i = 0; i < this.voters.size(); i++) {
+            final Player voter = this.voters.get(i);
+            final Player candidate = this.candidates.get(i);
+            if (candidate == null) {
+                votes.unvote(voter);
+            } else {
+                votes.vote(voter, candidate);
+            }
+            if (blackhole != null) {
+                blackhole.consume(votes.getMostVotes());
+                if ((i + 1) % renderEvery == 0) {
+                    blackhole.consume(this.votingBuilder.getEmbed(votes.snapshot()));
+                }
+            }
+        }
+        if (blackhole != null) {
+            blackhole.consume(this.votingBuilder.getFinalEmbed(votes.snapshot(), Phase.DAY, 3));
+        }
+    }
+}
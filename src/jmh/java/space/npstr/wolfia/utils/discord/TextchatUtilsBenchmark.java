@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Levenshtein distances between a user input and a player name, at the lengths of short names, long nicks, and
+ * names close to the 32 characters discord allows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TextchatUtilsBenchmark {
+
+    //player name and user input, separated by a |
+    @Param({"napster|Napstr", "Goodnight Moon|goodnite mooon", "Shadow_Walker the Great Lurker|shadow walker"})
+    public String pair;
+
+    private String input;
+    private String name;
+
+    @Setup
+    public void setup() {
+        final String[] split = this.pair.split("\\|");
+        this.name = split[0];
+        this.input = split[1];
+    }
+
+    @Benchmark
+    public int levenshteinDist() {
+        return TextchatUtils.levenshteinDist(this.input, this.name);
+    }
+
+    @Benchmark
+    public boolean isSimilarLower() {
+        return TextchatUtils.isSimilarLower(this.input, this.name);
+    }
+}
@@ -31,11 +31,16 @@ import space.npstr.sqlsauce.DatabaseException;
 import space.npstr.sqlsauce.DatabaseWrapper;
 import space.npstr.wolfia.commands.debug.SyncCommand;
 import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.db.ClusterNodes;
 import space.npstr.wolfia.db.entities.PrivateGuild;
 import space.npstr.wolfia.discordwrapper.DiscordEntityProvider;
+import space.npstr.wolfia.game.ActionJournal;
+import space.npstr.wolfia.game.GameSnapshots;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+import space.npstr.wolfia.utils.TimingWheel;
 import space.npstr.wolfia.utils.discord.Emojis;
+import space.npstr.wolfia.utils.discord.MessageCoalescer;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 import space.npstr.wolfia.utils.log.DiscordLogger;
@@ -50,8 +55,12 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by npstr on 22.08.2016
@@ -68,6 +77,12 @@ public class Wolfia {
     public static final LinkedBlockingQueue<PrivateGuild> AVAILABLE_PRIVATE_GUILD_QUEUE = new LinkedBlockingQueue<>();
     //todo find a better way to execute tasks; java's built in ScheduledExecutorService is rather crappy for many reasons; until then a big-sized pool size will suffice to make sure tasks get executed when they are due
     public static final ExceptionLoggingExecutor executor = new ExceptionLoggingExecutor(100, "main-scheduled-executor");
+    //runs the tasks of due timers. game tasks may block on rest calls, so the pool grows with the amount of them instead of
+    // letting a few slow ones hold up the timers of every other game
+    private static final ThreadPoolExecutor timerTasks = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            1, TimeUnit.MINUTES, new SynchronousQueue<>(), daemonThreads("timer-task"));
+    //game timers, reaction listener updates and other delayed tasks
+    public static final TimingWheel timers = new TimingWheel("timers", 100, timerTasks);
 
 
     private static ShardManager shardManager;
@@ -83,6 +98,8 @@ public class Wolfia {
 
         poolMetrics.addPool("main", executor);
         poolMetrics.addPool("restActions", (ScheduledThreadPoolExecutor) RestActions.restService);
+        poolMetrics.addPool("timers", timerTasks);
+        poolMetrics.addPool("actionJournal", ActionJournal.getWriter());
 
         final WolfiaConfig wolfiaConfig = Launcher.getBotContext().getWolfiaConfig();
 
@@ -91,6 +108,8 @@ public class Wolfia {
         else
             log.info("Running PRODUCTION configuration");
 
+        MessageCoalescer.setWindowMillis(wolfiaConfig.getMessageCoalesceMillis());
+
         //try connecting in a reasonable timeframe
         boolean dbConnected = false;
         final long dbConnectStarted = System.currentTimeMillis();
@@ -113,7 +132,10 @@ public class Wolfia {
 
         final DatabaseWrapper wrapper = Launcher.getBotContext().getDatabase().getWrapper();
         try {
-            AVAILABLE_PRIVATE_GUILD_QUEUE.addAll(wrapper.selectJpqlQuery("FROM PrivateGuild", null, PrivateGuild.class));
+            //in a cluster, each node takes care of the private guilds on its own shards
+            wrapper.selectJpqlQuery("FROM PrivateGuild", null, PrivateGuild.class).stream()
+                    .filter(privateGuild -> ownsGuild(privateGuild.getId()))
+                    .forEach(AVAILABLE_PRIVATE_GUILD_QUEUE::add);
             log.info("{} private guilds loaded", AVAILABLE_PRIVATE_GUILD_QUEUE.size());
         } catch (final DatabaseException e) {
             log.error("Failed to load private guilds, exiting", e);
@@ -130,6 +152,12 @@ public class Wolfia {
         }
         started = true;
 
+        //publish the numbers of this node to the rest of the cluster
+        ClusterNodes.start();
+
+        //pick up games that were suspended during the last shutdown
+        GameSnapshots.resumeAll();
+
         shardManager.getApplicationInfo().queue(
                 App::setAppInfo,
                 t -> log.error("Could not load application info", t));
@@ -225,7 +253,11 @@ public class Wolfia {
     }
 
     public static boolean allShardsUp() {
-        if (shardManager.getShards().size() < shardManager.getShardsTotal()) {
+        final WolfiaConfig wolfiaConfig = Launcher.getBotContext().getWolfiaConfig();
+        final int ownShards = wolfiaConfig.getShardCount() > 0
+                ? wolfiaConfig.getShardMax() - wolfiaConfig.getShardMin() + 1
+                : shardManager.getShardsTotal();
+        if (shardManager.getShards().size() < ownShards) {
             return false;
         }
         for (final JDA jda : shardManager.getShards()) {
@@ -237,6 +269,36 @@ public class Wolfia {
     }
 
 
+    /**
+     * @return true if this process runs only a part of the shards, and other processes of the cluster run the rest
+     */
+    public static boolean isClustered() {
+        return Launcher.getBotContext().getWolfiaConfig().isClustered();
+    }
+
+    /**
+     * @return true if the guild is on one of the shards run by this process. Always true when not clustered.
+     */
+    public static boolean ownsGuild(final long guildId) {
+        final WolfiaConfig wolfiaConfig = Launcher.getBotContext().getWolfiaConfig();
+        if (!wolfiaConfig.isClustered()) {
+            return true;
+        }
+        final long shardId = (guildId >> 22) % wolfiaConfig.getShardCount();
+        return shardId >= wolfiaConfig.getShardMin() && shardId <= wolfiaConfig.getShardMax();
+    }
+
+
+    @Nonnull
+    private static ThreadFactory daemonThreads(@Nonnull final String name) {
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        return r -> {
+            final Thread thread = new Thread(r, name + "-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     //################# shutdown handling
 
     public static final int EXIT_CODE_SHUTDOWN = 0;
@@ -260,6 +322,8 @@ public class Wolfia {
         return new Thread(() -> {
             log.info("Shutdown hook triggered! {} games still ongoing.", Games.getRunningGamesCount());
             shuttingDown = true;
+            final int suspended = GameSnapshots.suspendAll();
+            log.info("Suspended {} games, they will be resumed after the restart.", suspended);
             Future waitForGamesToEnd = executor.submit(() -> {
                 while (Games.getRunningGamesCount() > 0) {
                     log.info("Waiting on {} games to finish.", Games.getRunningGamesCount());
@@ -272,7 +336,6 @@ public class Wolfia {
             try {
                 //is this value is changed, make sure to adjust the one in docker-update.sh
                 waitForGamesToEnd.get(2, TimeUnit.HOURS); //should be enough until the forseeable future
-                //todo persist games (big changes)
             } catch (ExecutionException | InterruptedException | TimeoutException ignored) {
                 log.error("dafuq", ignored);
             }
@@ -292,6 +355,10 @@ public class Wolfia {
             final List<Runnable> runnables = executor.shutdownNow();
             log.info("{} runnables canceled", runnables.size());
 
+            log.info("Shutting down timers");
+            timers.shutdown();
+            timerTasks.shutdownNow();
+
             log.info("Shutting down jda thread pool");
             final List<Runnable> jdaThreadPoolRunnables = jdaThreadPool.shutdownNow();
             log.info("{} jda thread pool runnables canceled", jdaThreadPoolRunnables.size());
@@ -306,6 +373,19 @@ public class Wolfia {
                 log.warn("Interrupted while awaiting executor termination");
             }
 
+            //write out what is left in the action journals before the db goes away
+            log.info("Shutting down action journal writer");
+            ActionJournal.getWriter().shutdown();
+            try {
+                ActionJournal.getWriter().awaitTermination(30, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while awaiting action journal writer termination");
+            }
+
+            log.info("Leaving the cluster");
+            ClusterNodes.shutdown();
+
             //shutdown DB
             log.info("Shutting down database");
             Launcher.getBotContext().getDatabase().shutdown();
@@ -68,6 +68,11 @@ public abstract class BaseCommand {
                 invoker.getAsMention(), TextchatUtils.asMarkdown(getHelp()));
     }
 
+    //how many tokens an execution of this command takes from the rate limit buckets, see CommandRateLimiter
+    public int getRateLimitCost() {
+        return 1;
+    }
+
     //how to invoke this command with its main trigger
     @Nonnull
     protected String invocation() {
@@ -60,7 +60,11 @@ import space.npstr.wolfia.discordwrapper.DiscordEntityProvider;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by napster on 07.12.17.
@@ -71,6 +75,8 @@ public class CommRegistry {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CommRegistry.class);
 
     private final List<BaseCommand> commands = new ArrayList<>();
+    //lowercased triggers and aliases -> command, built once after all commands have been registered
+    private volatile Map<String, BaseCommand> triggerIndex = Collections.emptyMap();
 
     public int size() {
         return this.commands.size();
@@ -78,10 +84,43 @@ public class CommRegistry {
 
     @Nullable
     public BaseCommand getCommand(@Nonnull final String input) {
-        return this.commands.stream()
-                .filter(command -> input.equalsIgnoreCase(command.name) || command.aliases.contains(input.toLowerCase()))
-                .findFirst()
-                .orElse(null);
+        final BaseCommand command = this.triggerIndex.get(input);
+        if (command != null) {
+            return command;
+        }
+        //most triggers are typed in lowercase, so only pay for lowercasing when the exact lookup misses
+        final String lowerCaseInput = input.toLowerCase();
+        //noinspection StringEquality toLowerCase returns the same instance if there was nothing to lowercase
+        if (lowerCaseInput == input) {
+            return null;
+        }
+        return this.triggerIndex.get(lowerCaseInput);
+    }
+
+    /**
+     * @return an immutable index of the lowercased names and aliases of the provided commands
+     *
+     * @throws IllegalStateException
+     *         if two commands share a trigger
+     */
+    @Nonnull
+    static Map<String, BaseCommand> buildTriggerIndex(@Nonnull final Collection<BaseCommand> commands) {
+        final Map<String, BaseCommand> index = new HashMap<>();
+        for (final BaseCommand command : commands) {
+            indexTrigger(index, command.name, command);
+            for (final String alias : command.aliases) {
+                indexTrigger(index, alias, command);
+            }
+        }
+        return Map.copyOf(index);
+    }
+
+    private static void indexTrigger(final Map<String, BaseCommand> index, final String trigger, final BaseCommand command) {
+        final BaseCommand previous = index.putIfAbsent(trigger.toLowerCase(), command);
+        if (previous != null && previous != command) {
+            throw new IllegalStateException(String.format("Duplicate command trigger %s for commands %s and %s",
+                    trigger, previous.getClass().getSimpleName(), command.getClass().getSimpleName()));
+        }
     }
 
     public static final String COMM_TRIGGER_IN = "in";
@@ -165,14 +204,12 @@ public class CommRegistry {
         registerCommand(new SyncCommand                      (discordEntityProvider, poolMetrics, "sync"));
 
         //@formatter:on
+
+        this.triggerIndex = buildTriggerIndex(this.commands);
+        log.info("Registered {} commands with {} triggers", this.commands.size(), this.triggerIndex.size());
     }
 
     private void registerCommand(final BaseCommand command) {
-        for (final String trigger : command.aliases) {
-            if (getCommand(trigger) != null) {
-                log.error("Duplicate command trigger: {}", trigger);
-            }
-        }
         this.commands.add(command);
     }
 }
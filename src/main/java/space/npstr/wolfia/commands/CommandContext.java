@@ -30,8 +30,6 @@ import space.npstr.wolfia.utils.discord.RestActions;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Arrays;
-import java.util.regex.Pattern;
 
 /**
  * Created by napster on 08.09.17.
@@ -49,63 +47,44 @@ public class CommandContext extends MessageContext {
     @Nonnull public final String[] args ;                        // the arguments split by whitespace, excluding prefix and trigger
     @Nonnull public final String rawArgs;                        // raw arguments excluding prefix and trigger, trimmed
     @Nonnull public final BaseCommand command;
-//    @Nonnull private final Histogram.Timer received;             // time when we received this command
+    public final long received;                                  // System.nanoTime() when we started parsing this command
     //@formatter:on
 
     /**
      * @param event
      *         the event to be parsed
+     * @param received
+     *         System.nanoTime() of when we started handling the event
      *
-     * @return The full context for the triggered command, or null if it's not a command that we know.
+     * @return The full context for the triggered command, or null if it's not a command that we know or the invoker
+     * has been rate limited.
      */
-    public static CommandContext parse(final CommRegistry commRegistry, final MessageReceivedEvent event)//, final Histogram.Timer received)
+    public static CommandContext parse(final CommRegistry commRegistry, final CommandRateLimiter rateLimiter,
+                                       final MessageReceivedEvent event, final long received)
             throws DatabaseException {
 
-        final String raw = event.getMessage().getContentRaw();
-        String input;
-
-        final String prefix = WolfiaConfig.DEFAULT_PREFIX;
-        if (raw.toLowerCase().startsWith(prefix.toLowerCase())) {
-            input = raw.substring(prefix.length());
-        } else {
-            return null;
-        }
-
-        input = input.trim();// eliminate possible whitespace between the prefix and the rest of the input
-        if (input.isEmpty()) {
+        final CommandInput input = CommandInput.parse(event.getMessage().getContentRaw(), WolfiaConfig.DEFAULT_PREFIX);
+        if (input == null) {
             return null;
         }
 
-        //split by any length of white space characters
-        // the \p{javaSpaceChar} instead of the better known \s is used because it actually includes unicode whitespaces
-        final String[] args = input.split("\\p{javaSpaceChar}+");
-        if (args.length < 1) {
-            return null; //while this shouldn't technically be possible due to the preprocessing of the input, better be safe than throw exceptions
-        }
-
-        final String commandTrigger = args[0];
-        final BaseCommand command = commRegistry.getCommand(commandTrigger.toLowerCase());
-
-        if (command == null) {
+        final BaseCommand command = commRegistry.getCommand(input.trigger);
+        if (command == null || !rateLimiter.tryAcquire(event, command)) {
             return null;
         } else {
-            return new CommandContext(event, commandTrigger,
-                    Arrays.copyOfRange(args, 1, args.length),//exclude args[0] that contains the command trigger
-                    input.replaceFirst(Pattern.quote(commandTrigger), "").trim(),
-                    command
-            );
+            return new CommandContext(event, input.trigger, input.args, input.rawArgs, command, received);
         }
     }
 
     protected CommandContext(@Nonnull final MessageReceivedEvent event, @Nonnull final String trigger,
-                             @Nonnull final String[] args, @Nonnull final String rawArgs, @Nonnull final BaseCommand command) {
-//                           @Nonnull final Histogram.Timer received) {
+                             @Nonnull final String[] args, @Nonnull final String rawArgs, @Nonnull final BaseCommand command,
+                             final long received) {
         super(event);
         this.trigger = trigger;
         this.args = args;
         this.rawArgs = rawArgs;
         this.command = command;
-//        this.received = received;
+        this.received = received;
     }
 
 
@@ -129,9 +108,7 @@ public class CommandContext extends MessageContext {
     }
 
     public boolean invoke() throws IllegalGameStateException, DatabaseException {
-        final boolean success = this.command.execute(this);
-//        this.received.observeDuration();
-        return success;
+        return this.command.execute(this);
     }
 
     /**
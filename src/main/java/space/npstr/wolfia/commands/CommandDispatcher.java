@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import net.dv8tion.jda.core.entities.Guild;
+import org.springframework.stereotype.Component;
+import space.npstr.prometheus_extensions.ThreadPoolCollector;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs commands off the JDA event threads.
+ * <p>
+ * Each game gets a mailbox whose commands are executed in the order they were received, one after another, so a game
+ * never sees two commands at once, no matter whether they were issued in its channel, in its wolf chat, or in a private
+ * message by one of its players. Commands outside of games get a mailbox per channel. Mailboxes are drained in parallel
+ * by a bounded pool of workers. A channel that floods us with more commands than we can handle gets told to slow down.
+ */
+@Component
+public class CommandDispatcher {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CommandDispatcher.class);
+
+    //how many commands of a single mailbox may wait for execution before we start rejecting them
+    private static final int MAX_QUEUED_PER_MAILBOX = 10;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Mailboxes mailboxes;
+
+    public CommandDispatcher(final ThreadPoolCollector poolMetrics) {
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        final AtomicInteger threadNumber = new AtomicInteger(0);
+        final ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "command-worker-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        poolMetrics.addPool("commandWorkers", workers);
+        this.mailboxes = new Mailboxes(workers, MAX_QUEUED_PER_MAILBOX);
+    }
+
+    /**
+     * Queue up the command for execution in the mailbox of its game or channel, or reject it if the mailbox is full.
+     */
+    public void dispatch(@Nonnull final CommandContext context) {
+        final long mailboxId = mailboxId(context);
+        final long queuedAt = System.nanoTime();
+
+        Metrics.commandQueueDepth.inc();
+        final boolean accepted = this.mailboxes.submit(mailboxId, () -> {
+            Metrics.commandQueueDepth.dec();
+            Metrics.commandQueueWait.labels(context.command.name)
+                    .observe((System.nanoTime() - queuedAt) / NANOS_PER_SECOND);
+            CommandHandler.handleCommand(context);
+        });
+
+        if (!accepted) {
+            Metrics.commandQueueDepth.dec();
+            Metrics.commandQueueRejections.labels(context.command.name).inc();
+            log.info("Rejecting command {} in channel {}, too many commands queued", context.command.name,
+                    context.channel.getIdLong());
+            context.replyWithMention("you are sending commands faster than I can handle them. Please slow down a bit.");
+        }
+    }
+
+    //the channel of the game that the command may be meant for, or else the channel it was issued in
+    private static long mailboxId(@Nonnull final CommandContext context) {
+        final long channelId = context.channel.getIdLong();
+        final Guild guild = context.getGuild();
+        final Game game;
+        if (guild == null) {
+            game = Games.getByPlayer(context.invoker.getIdLong());
+        } else if (Games.get(channelId) != null) {
+            return channelId;
+        } else {
+            game = Games.getByPrivateGuild(guild.getIdLong());
+        }
+        return game != null ? game.getChannelId() : channelId;
+    }
+}
@@ -27,6 +27,7 @@ import space.npstr.wolfia.events.WolfiaGuildListener;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+import space.npstr.wolfia.metrics.Metrics;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
@@ -45,7 +46,20 @@ public class CommandHandler {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CommandHandler.class);
 
-    public static void handleMessage(final CommRegistry commRegistry, @Nonnull final MessageReceivedEvent event) {
+    private static final String HELP_INVOCATION = WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_HELP;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    //outcome labels of the command metrics
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILED = "failed"; //the command returned false, usually a usage error
+    private static final String OUTCOME_USER_ERROR = "user_error";
+    private static final String OUTCOME_ILLEGAL_GAME_STATE = "illegal_game_state";
+    private static final String OUTCOME_DB_FAILURE = "db_failure";
+    private static final String OUTCOME_INTERNAL_EXCEPTION = "internal_exception";
+
+    public static void handleMessage(final CommRegistry commRegistry, final CommandRateLimiter rateLimiter,
+                                     final CommandDispatcher commandDispatcher, @Nonnull final MessageReceivedEvent event) {
         //ignore bot accounts generally
         if (event.getAuthor().isBot()) {
             return;
@@ -53,7 +67,7 @@ public class CommandHandler {
 
         //ignore channels where we don't have sending permissions, with a special exception for the help command
         if (event.getTextChannel() != null && !event.getTextChannel().canTalk()
-                && !event.getMessage().getContentRaw().toLowerCase().startsWith((WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_HELP).toLowerCase())) {
+                && !CommandInput.hasPrefix(event.getMessage().getContentRaw(), HELP_INVOCATION)) {
             return;
         }
 
@@ -62,9 +76,10 @@ public class CommandHandler {
         if (g != null) g.userPosted(event.getMessage());
 
 
+        final long received = System.nanoTime();
         final CommandContext context;
         try {
-            context = CommandContext.parse(commRegistry, event);
+            context = CommandContext.parse(commRegistry, rateLimiter, event, received);
         } catch (final DatabaseException e) {
             log.error("Db blew up parsing a command", e);
             return;
@@ -83,7 +98,10 @@ public class CommandHandler {
                     || context.invoker.getIdLong() == App.OWNER_ID) { //owner is k
                 //allowed
             } else {
-                context.replyWithMention("read the **rules** in <#" + WolfiaGuildListener.RULES_CHANNEL_ID + ">.",
+                //sent separately, so the deletion can't take other messages with it
+                RestActions.sendMessageSeparately(guildContext.getTextChannel(),
+                        TextchatUtils.prefaceWithMention(context.invoker,
+                                "read the **rules** in <#" + WolfiaGuildListener.RULES_CHANNEL_ID + ">."),
                         message -> RestActions.restService.schedule(
                                 () -> RestActions.deleteMessage(message), 5, TimeUnit.SECONDS)
                 );
@@ -92,7 +110,7 @@ public class CommandHandler {
             }
         }
 
-        handleCommand(context);
+        commandDispatcher.dispatch(context);
     }
 
     /**
@@ -100,23 +118,30 @@ public class CommandHandler {
      *         the parsed input of a user
      */
     public static void handleCommand(@Nonnull final CommandContext context) {
-        try {
-            if (context.command instanceof IOwnerRestricted && !context.isOwner()) {
-                //not the bot owner
-                log.info("user {}, channel {}, attempted issuing owner restricted command: {}",
-                        context.invoker, context.channel, context.msg.getContentRaw());
-                return;
-            }
-            log.info("user {}, channel {}, command {} about to be executed",
+        if (context.command instanceof IOwnerRestricted && !context.isOwner()) {
+            //not the bot owner
+            log.info("user {}, channel {}, attempted issuing owner restricted command: {}",
                     context.invoker, context.channel, context.msg.getContentRaw());
+            return;
+        }
+        log.info("user {}, channel {}, command {} about to be executed",
+                context.invoker, context.channel, context.msg.getContentRaw());
+
+        final String commandName = context.command.name;
+        final long invoked = System.nanoTime();
+        Metrics.commandParseToInvoke.labels(commandName).observe((invoked - context.received) / NANOS_PER_SECOND);
+        String outcome = OUTCOME_INTERNAL_EXCEPTION;
+        try {
             final boolean success = context.invoke();
-            final long executed = System.currentTimeMillis();
-            //todo instrument success and execution time
+            outcome = success ? OUTCOME_SUCCESS : OUTCOME_FAILED;
         } catch (final UserFriendlyException e) {
+            outcome = OUTCOME_USER_ERROR;
             context.reply("There was a problem executing your command:\n" + e.getMessage());
         } catch (final IllegalGameStateException e) {
+            outcome = OUTCOME_ILLEGAL_GAME_STATE;
             context.reply(e.getMessage());
         } catch (final DatabaseException e) {
+            outcome = OUTCOME_DB_FAILURE;
             log.error("Db blew up while handling command", e);
             context.reply("The database is not available currently. Please try again later. Sorry for the inconvenience!");
         } catch (final Exception e) {
@@ -150,6 +175,9 @@ public class CommandHandler {
             } catch (final Exception ex) {
                 log.error("Exception during exception handling of command", ex);
             }
+        } finally {
+            Metrics.commandExecutionTime.labels(commandName).observe((System.nanoTime() - invoked) / NANOS_PER_SECOND);
+            Metrics.commandOutcomes.labels(commandName, outcome).inc();
         }
     }
 }
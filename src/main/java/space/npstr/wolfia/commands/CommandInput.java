@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * The tokenized content of a message that starts with the command prefix.
+ * <p>
+ * Tokenizing happens in a single pass over the characters of the message, without regex or intermediate strings.
+ * Whitespace is anything {@link Character#isSpaceChar} considers a space (this includes the unicode whitespaces
+ * that the previously used \p{javaSpaceChar} matched) plus the control characters stripped by {@link String#trim}.
+ */
+public final class CommandInput {
+
+    private static final String[] NO_ARGS = new String[0];
+
+    //@formatter:off
+    @Nonnull public final String trigger;                        // the command trigger as typed by the user
+    @Nonnull public final String[] args;                         // the arguments split by whitespace, excluding prefix and trigger
+    @Nonnull public final String rawArgs;                        // raw arguments excluding prefix and trigger, trimmed
+    //@formatter:on
+
+    private CommandInput(@Nonnull final String trigger, @Nonnull final String[] args, @Nonnull final String rawArgs) {
+        this.trigger = trigger;
+        this.args = args;
+        this.rawArgs = rawArgs;
+    }
+
+    /**
+     * Case insensitive check whether the raw content starts with the prefix. Does not allocate anything.
+     */
+    @CheckReturnValue
+    public static boolean hasPrefix(@Nonnull final String raw, @Nonnull final String prefix) {
+        return raw.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * @return the tokenized input, or null if the raw content does not start with the prefix or contains nothing but
+     * whitespace after the prefix
+     */
+    @Nullable
+    @CheckReturnValue
+    public static CommandInput parse(@Nonnull final String raw, @Nonnull final String prefix) {
+        if (!hasPrefix(raw, prefix)) {
+            return null;
+        }
+
+        final int length = raw.length();
+        int i = prefix.length();
+        // eliminate possible whitespace between the prefix and the rest of the input
+        while (i < length && isWhitespace(raw.charAt(i))) {
+            i++;
+        }
+        if (i >= length) {
+            return null;
+        }
+
+        final int triggerStart = i;
+        while (i < length && !isWhitespace(raw.charAt(i))) {
+            i++;
+        }
+        final String trigger = raw.substring(triggerStart, i);
+
+        String[] args = NO_ARGS;
+        int argCount = 0;
+        int rawArgsStart = -1;
+        int rawArgsEnd = -1;
+        while (i < length) {
+            if (isWhitespace(raw.charAt(i))) {
+                i++;
+                continue;
+            }
+            final int argStart = i;
+            while (i < length && !isWhitespace(raw.charAt(i))) {
+                i++;
+            }
+            if (rawArgsStart < 0) {
+                rawArgsStart = argStart;
+            }
+            rawArgsEnd = i;
+
+            if (argCount == args.length) {
+                args = Arrays.copyOf(args, Math.max(4, argCount * 2));
+            }
+            args[argCount++] = raw.substring(argStart, i);
+        }
+
+        if (argCount != args.length) {
+            args = Arrays.copyOf(args, argCount);
+        }
+        final String rawArgs = rawArgsStart < 0 ? "" : raw.substring(rawArgsStart, rawArgsEnd);
+        return new CommandInput(trigger, args, rawArgs);
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c <= ' ' || Character.isSpaceChar(c);
+    }
+}
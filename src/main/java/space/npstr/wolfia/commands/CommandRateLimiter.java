@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.App;
+import space.npstr.wolfia.metrics.Metrics;
+import space.npstr.wolfia.utils.TokenBucket;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles commands per user, channel and guild, so that spamming commands does not burn through our Discord rate
+ * limits or database capacity. Each command takes {@link BaseCommand#getRateLimitCost()} tokens from each of the
+ * buckets it is subject to. Commands that find an exhausted bucket are dropped silently.
+ */
+@Component
+public class CommandRateLimiter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CommandRateLimiter.class);
+
+    //@formatter:off
+    private final Cache<Long, TokenBucket> userBuckets    = buckets();
+    private final Cache<Long, TokenBucket> channelBuckets = buckets();
+    private final Cache<Long, TokenBucket> guildBuckets   = buckets();
+    //@formatter:on
+
+    private static Cache<Long, TokenBucket> buckets() {
+        //idle buckets have long been refilled, so they can be dropped
+        return Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * @return true if the command may be executed, false if it should be dropped
+     */
+    public boolean tryAcquire(@Nonnull final MessageReceivedEvent event, @Nonnull final BaseCommand command) {
+        final long userId = event.getAuthor().getIdLong();
+        if (App.isOwner(userId)) {
+            return true;
+        }
+        final int cost = command.getRateLimitCost();
+
+        //a burst of 5 commands per user, 15 per channel and 30 per guild, refilling 1, 3 and 6 of them per second
+        final TokenBucket user = bucket(this.userBuckets, userId, 5, 1000);
+        if (!user.tryTake(cost)) {
+            return throttled(command, "user", userId);
+        }
+        final long channelId = event.getChannel().getIdLong();
+        final TokenBucket channel = bucket(this.channelBuckets, channelId, 15, 333);
+        if (!channel.tryTake(cost)) {
+            //the command won't run, don't charge the user for it
+            user.giveBack(cost);
+            return throttled(command, "channel", channelId);
+        }
+        final Guild guild = event.getGuild();
+        if (guild != null && !bucket(this.guildBuckets, guild.getIdLong(), 30, 166).tryTake(cost)) {
+            user.giveBack(cost);
+            channel.giveBack(cost);
+            return throttled(command, "guild", guild.getIdLong());
+        }
+        return true;
+    }
+
+    @Nonnull
+    private static TokenBucket bucket(final Cache<Long, TokenBucket> buckets, final long id, final int capacity,
+                                      final long refillMillis) {
+        //noinspection ConstantConditions the mapping function never returns null
+        return buckets.get(id, __ -> new TokenBucket(capacity, refillMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private static boolean throttled(final BaseCommand command, final String scope, final long id) {
+        Metrics.commandsThrottled.labels(command.name, scope).inc();
+        log.debug("Throttled command {} for {} {}", command.name, scope, id);
+        return false;
+    }
+}
@@ -45,12 +45,7 @@ public abstract class GameCommand extends BaseCommand {
         Game game = Games.get(context.textChannel);
         if (game == null) {
             //private guild?
-            for (final Game g : Games.getAll().values()) {
-                if (context.guild.getIdLong() == g.getPrivateGuildId()) {
-                    game = g;
-                    break;
-                }
-            }
+            game = Games.getByPrivateGuild(context.guild.getIdLong());
 
             if (game == null) {
                 context.replyWithMention(String.format("there is no game currently going on in here. Say `%s` to get started!",
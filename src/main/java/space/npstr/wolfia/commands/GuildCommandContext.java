@@ -59,7 +59,7 @@ public class GuildCommandContext extends CommandContext {
 
     public GuildCommandContext(@Nonnull final CommandContext context, @Nonnull final Guild guild,
                                @Nonnull final Member member, @Nonnull final TextChannel textChannel) {
-        super(context.event, context.trigger, context.args, context.rawArgs, context.command);
+        super(context.event, context.trigger, context.args, context.rawArgs, context.command, context.received);
         this.guild = guild;
         this.member = member;
         this.textChannel = textChannel;
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serial lanes on top of a pool of workers.
+ * <p>
+ * Tasks submitted with the same key are executed in the order they were submitted, one after another. Tasks of
+ * different keys run in parallel. Each key gets a mailbox that is created with its first task and removed again once
+ * it has been drained, and that only takes a limited amount of waiting tasks.
+ */
+class Mailboxes {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Mailboxes.class);
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Executor workers;
+    private final int maxQueued;
+
+    Mailboxes(@Nonnull final Executor workers, final int maxQueued) {
+        this.workers = workers;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * @return false if the mailbox of the key is full, and the task has been rejected
+     */
+    boolean submit(final long key, @Nonnull final Runnable task) {
+        final boolean[] accepted = {false};
+        final boolean[] startDraining = {false};
+
+        //offering happens atomically with the removal of drained mailboxes, so a key never ends up with two mailboxes
+        final Mailbox mailbox = this.mailboxes.compute(key, (id, existing) -> {
+            final Mailbox box = existing != null ? existing : new Mailbox(id);
+            if (box.pending.get() >= this.maxQueued) {
+                return box;
+            }
+            box.queue.add(task);
+            accepted[0] = true;
+            startDraining[0] = box.pending.getAndIncrement() == 0;
+            return box;
+        });
+
+        if (startDraining[0]) {
+            this.workers.execute(mailbox::drain);
+        }
+        return accepted[0];
+    }
+
+    /**
+     * @return amount of keys that have tasks waiting or running
+     */
+    int size() {
+        return this.mailboxes.size();
+    }
+
+    private void remove(final Mailbox drained) {
+        this.mailboxes.computeIfPresent(drained.key, (id, mailbox) ->
+                mailbox == drained && mailbox.pending.get() == 0 ? null : mailbox);
+    }
+
+    private class Mailbox {
+        private final long key;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        //incremented after a task is added to the queue, decremented after a task has been executed
+        private final AtomicInteger pending = new AtomicInteger(0);
+
+        private Mailbox(final long key) {
+            this.key = key;
+        }
+
+        private void drain() {
+            do {
+                final Runnable task = this.queue.poll();
+                if (task == null) { //should not happen, since pending is only increased after adding to the queue
+                    log.warn("Mailbox {} is empty despite pending tasks", this.key);
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (final Exception e) {
+                    log.error("Uncaught exception running a task of mailbox {}", this.key, e);
+                }
+            } while (this.pending.decrementAndGet() > 0);
+            remove(this);
+        }
+    }
+}
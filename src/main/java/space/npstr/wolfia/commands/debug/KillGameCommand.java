@@ -17,9 +17,12 @@
 
 package space.npstr.wolfia.commands.debug;
 
+import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.Wolfia;
 import space.npstr.wolfia.commands.BaseCommand;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.IOwnerRestricted;
+import space.npstr.wolfia.db.ClusterNodes;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
@@ -59,17 +62,40 @@ public class KillGameCommand extends BaseCommand implements IOwnerRestricted {
             return false;
         }
 
+        String reason = String.join(" ", Arrays.copyOfRange(context.args, 1, context.args.length)).trim();
+        if (reason.isEmpty()) reason = "Game killed by bot owner.";
+
         final Game game = Games.get(channelId);
         if (game == null) {
+            if (Wolfia.isClustered()) {
+                //the game may be running in a guild of another node
+                return forward(context, channelId, reason);
+            }
             context.reply("There is no game registered for channel " + channelId);
             return false;
         }
 
-        String reason = String.join(" ", Arrays.copyOfRange(context.args, 1, context.args.length)).trim();
-        if (reason.isEmpty()) reason = "Game killed by bot owner.";
         game.destroy(new UserFriendlyException(reason));
 
         context.reply("Game in channel " + channelId + " destroyed.");
         return true;
     }
+
+    private boolean forward(@Nonnull final CommandContext context, final long channelId, @Nonnull final String reason) {
+        final String self = Launcher.getBotContext().getWolfiaConfig().getNodeName();
+        int forwarded = 0;
+        for (final ClusterNodes.Node node : ClusterNodes.getLiveNodes()) {
+            if (!node.name.equals(self)
+                    && ClusterNodes.send(node, ClusterNodes.Command.KILL_GAME, channelId + " " + reason)) {
+                forwarded++;
+            }
+        }
+        if (forwarded == 0) {
+            context.reply("There is no game registered for channel " + channelId);
+            return false;
+        }
+        context.reply("There is no game registered for channel " + channelId + " on this node, asked "
+                + forwarded + " other nodes to kill it. Check the log channel for the outcome.");
+        return true;
+    }
 }
@@ -24,6 +24,7 @@ import space.npstr.wolfia.commands.BaseCommand;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.IOwnerRestricted;
 import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.db.ClusterNodes;
 
 import javax.annotation.Nonnull;
 
@@ -62,6 +63,9 @@ public class ReviveCommand extends BaseCommand implements IOwnerRestricted {
 
         final JDA jda = Wolfia.getShardManager().getShardById(shardId);
         if (jda == null) {
+            if (Wolfia.isClustered()) {
+                return forward(context, shardId);
+            }
             context.reply("No shard with id " + shardId + " found.");
             return false;
         }
@@ -70,4 +74,20 @@ public class ReviveCommand extends BaseCommand implements IOwnerRestricted {
         context.reply("Reviving shard  " + shardId);
         return true;
     }
+
+    //the shard may be run by another node of the cluster
+    private boolean forward(@Nonnull final CommandContext context, final int shardId) {
+        final ClusterNodes.Node node = ClusterNodes.getNodeOfShard(shardId);
+        if (node == null) {
+            context.reply("No node running shard " + shardId + " found.");
+            return false;
+        }
+        if (!ClusterNodes.send(node, ClusterNodes.Command.REVIVE_SHARD, Integer.toString(shardId))) {
+            context.reply("Failed to ask node **" + node.name + "** to revive shard " + shardId + ".");
+            return false;
+        }
+        log.info("Asked node {} to revive shard {}", node.name, shardId);
+        context.reply("Asked node **" + node.name + "** to revive shard " + shardId + ".");
+        return true;
+    }
 }
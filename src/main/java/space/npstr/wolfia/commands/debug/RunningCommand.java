@@ -24,6 +24,7 @@ import space.npstr.wolfia.Wolfia;
 import space.npstr.wolfia.commands.BaseCommand;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.IOwnerRestricted;
+import space.npstr.wolfia.db.ClusterNodes;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
@@ -75,6 +76,14 @@ public class RunningCommand extends BaseCommand implements IOwnerRestricted {
         }
 
         context.reply(String.format("%s games registered.", games.size()));
+        if (Wolfia.isClustered()) {
+            //games of other nodes live in guilds we can't see, so just count them
+            final StringBuilder out = new StringBuilder("Games per node:");
+            for (final ClusterNodes.Node node : ClusterNodes.getLiveNodes()) {
+                out.append(String.format("\n**%s** (shards %s-%s): %s", node.name, node.shardMin, node.shardMax, node.games));
+            }
+            context.reply(out.toString());
+        }
         return true;
     }
 }
@@ -60,12 +60,7 @@ public class StatusCommand extends BaseCommand {
             Game game = Games.get(context.textChannel);
             if (game == null) {
                 //private guild?
-                for (final Game g : Games.getAll().values()) {
-                    if (context.guild.getIdLong() == g.getPrivateGuildId()) {
-                        game = g;
-                        break;
-                    }
-                }
+                game = Games.getByPrivateGuild(context.guild.getIdLong());
 
                 if (game == null) {
                     context.reply(Launcher.getBotContext().getDatabase().getWrapper().getOrCreate(Setup.key(context.textChannel.getIdLong()))
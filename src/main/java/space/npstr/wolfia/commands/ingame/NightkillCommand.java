@@ -51,13 +51,7 @@ public class NightkillCommand extends GameCommand {
 
         //the nightkill command is expected to be called from a private guild, and only one game is allowed to run in
         //a private guild at the time
-        Game game = null;
-        for (final Game g : Games.getAll().values()) {
-            if (context.guild.getIdLong() == g.getPrivateGuildId()) {
-                game = g;
-                break;
-            }
-        }
+        final Game game = Games.getByPrivateGuild(context.guild.getIdLong());
 
         if (game == null) {
             context.replyWithMention("this command needs to be called from wolfchat/mafiachat!");
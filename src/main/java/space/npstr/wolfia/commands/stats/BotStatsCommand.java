@@ -36,6 +36,12 @@ public class BotStatsCommand extends BaseCommand {
         super(trigger, aliases);
     }
 
+    //runs several aggregating database queries
+    @Override
+    public int getRateLimitCost() {
+        return 2;
+    }
+
     @Nonnull
     @Override
     public String help() {
@@ -37,6 +37,12 @@ public class UserStatsCommand extends BaseCommand {
         super(trigger, aliases);
     }
 
+    //runs several aggregating database queries
+    @Override
+    public int getRateLimitCost() {
+        return 2;
+    }
+
     @Nonnull
     @Override
     public String help() {
@@ -25,9 +25,10 @@ import space.npstr.wolfia.Wolfia;
 import space.npstr.wolfia.commands.BaseCommand;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.Context;
-import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.db.ClusterNodes;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 
 
 /**
@@ -59,10 +60,15 @@ public class InfoCommand extends BaseCommand {
         maStats += "```";
 
 
+        //users that share servers on different nodes are counted once per node
+        final List<ClusterNodes.Node> nodes = ClusterNodes.getLiveNodes();
         String botInfo = "```\n";
-        botInfo += "Games being played:     " + Games.getRunningGamesCount() + "\n";
-        botInfo += "Known servers:          " + Wolfia.getGuildsAmount() + "\n";
-        botInfo += "Known users in servers: " + Wolfia.getUsersAmount() + "\n";
+        botInfo += "Games being played:     " + nodes.stream().mapToInt(node -> node.games).sum() + "\n";
+        botInfo += "Known servers:          " + nodes.stream().mapToLong(node -> node.guilds).sum() + "\n";
+        botInfo += "Known users in servers: " + nodes.stream().mapToLong(node -> node.users).sum() + "\n";
+        if (Wolfia.isClustered()) {
+            botInfo += "Nodes:                  " + nodes.size() + "\n";
+        }
         botInfo += "Version:                " + App.VERSION + "\n";
         botInfo += "JDA responses total:    " + Wolfia.getResponseTotal() + "\n";
         botInfo += "JDA version:            " + JDAInfo.VERSION + "\n";
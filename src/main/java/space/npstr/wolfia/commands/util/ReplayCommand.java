@@ -24,6 +24,7 @@ import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.db.entities.stats.ActionStats;
 import space.npstr.wolfia.db.entities.stats.GameStats;
 import space.npstr.wolfia.db.entities.stats.TeamStats;
+import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
@@ -42,7 +43,7 @@ import java.util.stream.Collectors;
 /**
  * Created by napster on 03.06.17.
  * <p>
- * Shows replays of games that are over
+ * Shows replays of games that are over, or were stopped midway
  */
 public class ReplayCommand extends BaseCommand {
 
@@ -52,6 +53,12 @@ public class ReplayCommand extends BaseCommand {
         super(trigger, aliases);
     }
 
+    //loads a whole game from the database
+    @Override
+    public int getRateLimitCost() {
+        return 3;
+    }
+
     @Nonnull
     @Override
     public String help() {
@@ -78,6 +85,14 @@ public class ReplayCommand extends BaseCommand {
             return false;
         }
 
+        //games are recorded as they are played, don't spoil the running ones
+        for (final Game game : Games.getAll().values()) {
+            if (game.getGameId() == gameId) {
+                context.replyWithMention("that game is still running. Its replay will be available once it is over.");
+                return false;
+            }
+        }
+
         final String sql = "SELECT g FROM GameStats g JOIN FETCH g.startingTeams t JOIN FETCH g.actions a JOIN FETCH t.players p WHERE g.gameId = :gameId";
         final Map<String, Object> params = new HashMap<>();
         params.put("gameId", gameId);
@@ -116,6 +131,11 @@ public class ReplayCommand extends BaseCommand {
         eb.addField(actionsField);
 
         //3. post the winners
+        if (gameStats.getEndTime() <= 0) {
+            eb.addField("Game ended", "The game was stopped before it was over.", true);
+            context.reply(eb.build());
+            return true;
+        }
         eb.addField("Game ended", TextchatUtils.toUtcTime(gameStats.getEndTime()), true);
         eb.addField("Game length", TextchatUtils.formatMillis(gameStats.getEndTime() - gameStats.getStartTime()), true);
 
@@ -35,6 +35,8 @@ import space.npstr.wolfia.config.properties.WolfiaConfig;
 import space.npstr.wolfia.db.entities.ChannelSettings;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+import space.npstr.wolfia.utils.discord.RestActions;
+import space.npstr.wolfia.utils.discord.RestScheduler;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 
 import javax.annotation.Nonnull;
@@ -56,6 +58,12 @@ public class TagCommand extends BaseCommand {
         super(trigger, aliases);
     }
 
+    //tagging sends out several messages full of mentions
+    @Override
+    public int getRateLimitCost() {
+        return 3;
+    }
+
     @Nonnull
     @Override
     public String help() {
@@ -147,7 +155,7 @@ public class TagCommand extends BaseCommand {
             Launcher.getBotContext().getDatabase().getWrapper().findApplyAndMerge(key, cs -> {
                 settings.removeTags(cleanUp);
                 for (final StringBuilder sb : outs) {
-                    context.reply(sb.toString());
+                    RestActions.sendMessage(RestScheduler.Lane.BACKGROUND, context.textChannel, sb.toString());
                 }
                 return settings.tagUsed();
             });
@@ -22,6 +22,7 @@ import space.npstr.wolfia.discordwrapper.DiscordEntityProvider;
 import space.npstr.wolfia.discordwrapper.JdaDiscordEntityProvider;
 import space.npstr.wolfia.events.CommandListener;
 import space.npstr.wolfia.events.InternalListener;
+import space.npstr.wolfia.events.PlayerNameListener;
 import space.npstr.wolfia.events.WolfiaGuildListener;
 import space.npstr.wolfia.listings.Listings;
 
@@ -58,7 +59,7 @@ public class DiscordApiConfiguration {
             throws LoginException {
 
         final DatabaseWrapper wrapper = database.getWrapper();
-        return new DefaultShardManagerBuilder()
+        final DefaultShardManagerBuilder builder = new DefaultShardManagerBuilder()
                 .setToken(wolfiaConfig.getDiscordToken())
                 .setGame(Game.playing(App.GAME_STATUS))
                 .addEventListeners(commandListener)
@@ -67,6 +68,7 @@ public class DiscordApiConfiguration {
                 .addEventListeners(new InternalListener())
                 .addEventListeners(new Listings(httpClientBuilder))
                 .addEventListeners(new WolfiaGuildListener())
+                .addEventListeners(new PlayerNameListener())
                 .setHttpClientBuilder(httpClientBuilder
                         .eventListener(new OkHttpEventCounter("jda")))
                 .setDisabledCacheFlags(EnumSet.of(CacheFlag.GAME, CacheFlag.VOICE_STATE))
@@ -74,7 +76,11 @@ public class DiscordApiConfiguration {
                 .setRateLimitPool(jdaThreadPool, false)
                 .setCallbackPool(jdaThreadPool, false)
                 .setGatewayPool(jdaThreadPool, false)
-                .setAudioEnabled(false)
-                .build();
+                .setAudioEnabled(false);
+        if (wolfiaConfig.getShardCount() > 0) {
+            builder.setShardsTotal(wolfiaConfig.getShardCount())
+                    .setShards(wolfiaConfig.getShardMin(), wolfiaConfig.getShardMax());
+        }
+        return builder.build();
     }
 }
@@ -20,6 +20,8 @@ package space.npstr.wolfia.config.properties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+
 /**
  * Created by napster on 10.05.18.
  */
@@ -32,6 +34,12 @@ public class WolfiaConfig {
     private boolean debug = true;
     private String discordToken = "";
     private long logChannelId = 0;
+    //cluster mode: run only the shards from shardMin to shardMax (inclusive) of shardCount shards in this process
+    private int shardCount = 0; //0 to run all shards, with the amount recommended by discord
+    private int shardMin = 0;
+    private int shardMax = -1; //-1 for the last shard
+    private String nodeName = ""; //empty to use pid@hostname
+    private long messageCoalesceMillis = 0; //0 to send every message on its own
 
     public boolean isDebug() {
         return debug;
@@ -57,6 +65,53 @@ public class WolfiaConfig {
         this.logChannelId = logChannelId;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public int getShardMin() {
+        return shardMin;
+    }
+
+    public void setShardMin(int shardMin) {
+        this.shardMin = shardMin;
+    }
+
+    public int getShardMax() {
+        return shardMax < 0 ? shardCount - 1 : shardMax;
+    }
+
+    public void setShardMax(int shardMax) {
+        this.shardMax = shardMax;
+    }
+
+    public String getNodeName() {
+        return nodeName.isEmpty() ? ManagementFactory.getRuntimeMXBean().getName() : nodeName;
+    }
+
+    public void setNodeName(String nodeName) {
+        this.nodeName = nodeName;
+    }
+
+    public long getMessageCoalesceMillis() {
+        return messageCoalesceMillis;
+    }
+
+    public void setMessageCoalesceMillis(long messageCoalesceMillis) {
+        this.messageCoalesceMillis = messageCoalesceMillis;
+    }
+
+    /**
+     * @return true if this process runs only a part of the shards, and other processes run the rest
+     */
+    public boolean isClustered() {
+        return shardCount > 0 && (shardMin > 0 || getShardMax() < shardCount - 1);
+    }
+
     public String getDefaultPrefix() {
         return isDebug() ? "d." : DEFAULT_PREFIX;
     }
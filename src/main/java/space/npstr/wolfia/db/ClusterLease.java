@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.db;
+
+import space.npstr.wolfia.Launcher;
+
+import javax.annotation.Nonnull;
+import javax.persistence.EntityManager;
+
+/**
+ * A named lease that is held by at most one node of a cluster at a time, backed by the cluster_lease table.
+ * <p>
+ * The holder has to renew it by calling {@link ClusterLease#tryAcquire()} again before it expires, otherwise any other
+ * node may take it over. Nodes that crash without releasing their leases are taken over after the duration ran out.
+ */
+public class ClusterLease {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ClusterLease.class);
+
+    //the update only happens if we hold the lease already, or the current holder failed to renew it in time
+    private static final String ACQUIRE = "INSERT INTO public.cluster_lease (name, owner, expires) VALUES (:name, :owner, :expires) "
+            + "ON CONFLICT (name) DO UPDATE SET owner = excluded.owner, expires = excluded.expires "
+            + "WHERE cluster_lease.owner = excluded.owner OR cluster_lease.expires < :now";
+    private static final String RELEASE = "DELETE FROM public.cluster_lease WHERE name = :name AND owner = :owner";
+
+    private final String name;
+    private final String owner;
+    private final long durationMillis;
+
+    /**
+     * @param name
+     *         name of the lease, shared by all nodes
+     * @param owner
+     *         name of this node, has to be unique in the cluster
+     * @param durationMillis
+     *         how long the lease stays valid without being renewed
+     */
+    public ClusterLease(@Nonnull final String name, @Nonnull final String owner, final long durationMillis) {
+        this.name = name;
+        this.owner = owner;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Acquire the lease, or renew it if we are holding it already.
+     *
+     * @return true if this node holds the lease now, false if another node does, or the database could not be reached
+     */
+    public boolean tryAcquire() {
+        final long now = System.currentTimeMillis();
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            final int updated = em.createNativeQuery(ACQUIRE)
+                    .setParameter("name", this.name)
+                    .setParameter("owner", this.owner)
+                    .setParameter("expires", now + this.durationMillis)
+                    .setParameter("now", now)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return updated > 0;
+        } catch (final Exception e) {
+            log.error("Failed to acquire lease {} for {}", this.name, this.owner, e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Give up the lease if we are holding it, so that another node can take it over right away.
+     */
+    public void release() {
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery(RELEASE)
+                    .setParameter("name", this.name)
+                    .setParameter("owner", this.owner)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } catch (final Exception e) {
+            log.error("Failed to release lease {} of {}", this.name, this.owner, e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
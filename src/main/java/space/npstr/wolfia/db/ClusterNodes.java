@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.db;
+
+import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.utils.UserFriendlyException;
+import space.npstr.wolfia.utils.discord.TextchatUtils;
+import space.npstr.wolfia.utils.log.DiscordLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nodes of a cluster, backed by the cluster_node and cluster_command tables.
+ * <p>
+ * Each node publishes its guild, user and game counts with a heartbeat, so that stats can be summed up over the
+ * whole cluster on any node. Owner commands that target something on the shards of another node are put into the
+ * command table for that node, which executes them and reports the outcome through the {@link DiscordLogger}.
+ * <p>
+ * Without a cluster configured, the local node is the only one and nothing touches the database.
+ */
+public class ClusterNodes {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ClusterNodes.class);
+
+    private static final long HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    //a node that missed this many heartbeats is considered gone
+    private static final long STALE_MILLIS = HEARTBEAT_MILLIS * 3;
+    private static final long COMMAND_POLL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private static final String HEARTBEAT = "INSERT INTO public.cluster_node "
+            + "(name, shard_min, shard_max, shards_up, guilds, users, games, heartbeat) "
+            + "VALUES (:name, :shardMin, :shardMax, :shardsUp, :guilds, :users, :games, :heartbeat) "
+            + "ON CONFLICT (name) DO UPDATE SET shard_min = excluded.shard_min, shard_max = excluded.shard_max, "
+            + "shards_up = excluded.shards_up, guilds = excluded.guilds, users = excluded.users, games = excluded.games, "
+            + "heartbeat = excluded.heartbeat";
+    private static final String LEAVE = "DELETE FROM public.cluster_node WHERE name = :name";
+    private static final String LIVE_NODES = "SELECT name, shard_min, shard_max, shards_up, guilds, users, games "
+            + "FROM public.cluster_node WHERE heartbeat > :since";
+    private static final String COMMAND_INSERT = "INSERT INTO public.cluster_command (node, command, argument) "
+            + "VALUES (:node, :command, :argument)";
+    private static final String COMMAND_POLL = "SELECT id, command, argument FROM public.cluster_command WHERE node = :node ORDER BY id";
+    private static final String COMMAND_DONE = "DELETE FROM public.cluster_command WHERE id = :id";
+
+    public enum Command {
+        KILL_GAME,
+        REVIVE_SHARD
+    }
+
+    /**
+     * Start publishing the heartbeat of this node and executing the commands forwarded to it. Does nothing when not
+     * clustered.
+     */
+    public static void start() {
+        if (!Wolfia.isClustered()) {
+            return;
+        }
+        Wolfia.executor.scheduleAtFixedRate(ClusterNodes::heartbeat, 0, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        Wolfia.executor.scheduleAtFixedRate(ClusterNodes::pollCommands, COMMAND_POLL_MILLIS, COMMAND_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Remove this node from the cluster table, so that its numbers stop counting right away.
+     */
+    public static void shutdown() {
+        if (!Wolfia.isClustered()) {
+            return;
+        }
+        execute("leave the cluster", em -> em.createNativeQuery(LEAVE)
+                .setParameter("name", nodeName())
+                .executeUpdate());
+    }
+
+    /**
+     * @return the nodes that have sent a heartbeat recently, ordered by their shards. When not clustered, or if the
+     * database can't be reached, just the local node.
+     */
+    @Nonnull
+    public static List<Node> getLiveNodes() {
+        if (!Wolfia.isClustered()) {
+            return Collections.singletonList(local());
+        }
+        final List<Node> nodes = new ArrayList<>();
+        final boolean loaded = execute("load the live nodes", em -> {
+            //noinspection unchecked
+            final List<Object[]> rows = em.createNativeQuery(LIVE_NODES)
+                    .setParameter("since", System.currentTimeMillis() - STALE_MILLIS)
+                    .getResultList();
+            for (final Object[] row : rows) {
+                nodes.add(new Node((String) row[0], ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                        (Boolean) row[3], ((Number) row[4]).longValue(), ((Number) row[5]).longValue(),
+                        ((Number) row[6]).intValue()));
+            }
+            return rows.size();
+        });
+        if (!loaded) {
+            return Collections.singletonList(local());
+        }
+        nodes.sort(Comparator.comparingInt(node -> node.shardMin));
+        return nodes;
+    }
+
+    /**
+     * @return true if every shard of the cluster is run by a live node that has all of its shards up
+     */
+    public static boolean allShardsUp() {
+        if (!Wolfia.isClustered()) {
+            return Wolfia.allShardsUp();
+        }
+        final long up = getLiveNodes().stream()
+                .filter(node -> node.shardsUp)
+                .mapToLong(node -> node.shardMax - node.shardMin + 1)
+                .sum();
+        return up >= Launcher.getBotContext().getWolfiaConfig().getShardCount();
+    }
+
+    /**
+     * @return the live node running the shard, null if there is none
+     */
+    @Nullable
+    public static Node getNodeOfShard(final int shardId) {
+        return getLiveNodes().stream()
+                .filter(node -> node.shardMin <= shardId && shardId <= node.shardMax)
+                .findAny()
+                .orElse(null);
+    }
+
+    /**
+     * Have another node execute a command.
+     *
+     * @return false if the command could not be handed over
+     */
+    public static boolean send(@Nonnull final Node node, @Nonnull final Command command, @Nonnull final String argument) {
+        return execute("send " + command + " to " + node.name, em -> em.createNativeQuery(COMMAND_INSERT)
+                .setParameter("node", node.name)
+                .setParameter("command", command.name())
+                .setParameter("argument", argument)
+                .executeUpdate());
+    }
+
+    @Nonnull
+    private static String nodeName() {
+        return Launcher.getBotContext().getWolfiaConfig().getNodeName();
+    }
+
+    @Nonnull
+    private static Node local() {
+        final WolfiaConfig wolfiaConfig = Launcher.getBotContext().getWolfiaConfig();
+        final int shardMin = wolfiaConfig.getShardCount() > 0 ? wolfiaConfig.getShardMin() : 0;
+        final int shardMax = wolfiaConfig.getShardCount() > 0 ? wolfiaConfig.getShardMax() : Wolfia.getShardManager().getShardsTotal() - 1;
+        return new Node(nodeName(), shardMin, shardMax, Wolfia.allShardsUp(), Wolfia.getGuildsAmount(),
+                Wolfia.getUsersAmount(), Games.getRunningGamesCount());
+    }
+
+    private static void heartbeat() {
+        final Node local = local();
+        execute("send the heartbeat", em -> em.createNativeQuery(HEARTBEAT)
+                .setParameter("name", local.name)
+                .setParameter("shardMin", local.shardMin)
+                .setParameter("shardMax", local.shardMax)
+                .setParameter("shardsUp", local.shardsUp)
+                .setParameter("guilds", local.guilds)
+                .setParameter("users", local.users)
+                .setParameter("games", local.games)
+                .setParameter("heartbeat", System.currentTimeMillis())
+                .executeUpdate());
+    }
+
+    private static void pollCommands() {
+        if (!Wolfia.isStarted()) {
+            return;
+        }
+        final List<Object[]> commands = new ArrayList<>();
+        execute("poll the commands", em -> {
+            //noinspection unchecked
+            commands.addAll(em.createNativeQuery(COMMAND_POLL)
+                    .setParameter("node", nodeName())
+                    .getResultList());
+            return commands.size();
+        });
+        for (final Object[] row : commands) {
+            final long id = ((Number) row[0]).longValue();
+            final String command = (String) row[1];
+            final String argument = (String) row[2];
+            try {
+                executeCommand(Command.valueOf(command), argument);
+            } catch (final Exception e) {
+                log.error("Failed to execute forwarded {} {}", command, argument, e);
+                DiscordLogger.getLogger().log("`%s` Node **%s**: Failed to execute forwarded %s %s: %s",
+                        TextchatUtils.berlinTime(), nodeName(), command, argument, e.getMessage());
+            }
+            //a failed command is reported and dropped as well, it would fail again on every poll.
+            //if this node goes down before the row is gone, the command runs again after the restart
+            execute("mark command " + id + " as done", em -> em.createNativeQuery(COMMAND_DONE)
+                    .setParameter("id", id)
+                    .executeUpdate());
+        }
+    }
+
+    private static void executeCommand(@Nonnull final Command command, @Nonnull final String argument) {
+        final String outcome;
+        switch (command) {
+            case KILL_GAME:
+                //the channel id, followed by the reason
+                final String[] args = argument.split(" ", 2);
+                final long channelId = Long.parseLong(args[0]);
+                final Game game = Games.get(channelId);
+                if (game == null) {
+                    //kills are sent to all nodes, only the one running the game reports back
+                    log.info("No game registered for forwarded kill of channel {}", channelId);
+                    return;
+                }
+                game.destroy(new UserFriendlyException(args[1]));
+                outcome = "Game in channel " + channelId + " destroyed.";
+                break;
+            case REVIVE_SHARD:
+                final int shardId = Integer.parseInt(argument);
+                Wolfia.getShardManager().restart(shardId);
+                outcome = "Reviving shard " + shardId;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cluster command " + command);
+        }
+        log.info("Executed forwarded {} {}: {}", command, argument, outcome);
+        DiscordLogger.getLogger().log("`%s` Node **%s**: %s", TextchatUtils.berlinTime(), nodeName(), outcome);
+    }
+
+    //runs the statement in a transaction, returns false if it failed
+    private static boolean execute(@Nonnull final String what, @Nonnull final Statement statement) {
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            statement.execute(em);
+            em.getTransaction().commit();
+            return true;
+        } catch (final Exception e) {
+            log.error("Failed to {} for node {}", what, nodeName(), e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Statement {
+        int execute(EntityManager em);
+    }
+
+    public static class Node {
+        public final String name;
+        public final int shardMin;
+        public final int shardMax;
+        public final boolean shardsUp;
+        public final long guilds;
+        public final long users;
+        public final int games;
+
+        private Node(final String name, final int shardMin, final int shardMax, final boolean shardsUp,
+                     final long guilds, final long users, final int games) {
+            this.name = name;
+            this.shardMin = shardMin;
+            this.shardMax = shardMax;
+            this.shardsUp = shardsUp;
+            this.guilds = guilds;
+            this.users = users;
+            this.games = games;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.db.entities;
+
+import space.npstr.sqlsauce.entities.SaucedEntity;
+import space.npstr.sqlsauce.fp.types.EntityKey;
+import space.npstr.wolfia.game.definitions.Games;
+
+import javax.annotation.Nonnull;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The state of a running game, saved on shutdown so it can be resumed after the restart.
+ */
+@Entity
+@Table(name = "game_snapshot")
+public class GameSnapshot extends SaucedEntity<Long, GameSnapshot> {
+
+    //the main channel of the game
+    @Id
+    @Column(name = "channel_id", nullable = false)
+    private long channelId;
+
+    @Column(name = "game_type", nullable = false, columnDefinition = "text")
+    private String gameType;
+
+    //when the snapshot was taken
+    @Column(name = "taken", nullable = false)
+    private long taken;
+
+    //json, see Game#snapshot()
+    @Column(name = "snapshot", nullable = false, columnDefinition = "text")
+    private String snapshot;
+
+    //for JPA and IEntity
+    public GameSnapshot() {
+    }
+
+    public GameSnapshot(final long channelId, @Nonnull final Games gameType, @Nonnull final String snapshot) {
+        this.channelId = channelId;
+        this.gameType = gameType.name();
+        this.taken = System.currentTimeMillis();
+        this.snapshot = snapshot;
+    }
+
+    @Nonnull
+    public static EntityKey<Long, GameSnapshot> key(final long channelId) {
+        return EntityKey.of(channelId, GameSnapshot.class);
+    }
+
+    @Nonnull
+    @Override
+    public GameSnapshot setId(final Long id) {
+        this.channelId = id;
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public Long getId() {
+        return this.channelId;
+    }
+
+    @Nonnull
+    public Games getGameType() {
+        return Games.valueOf(this.gameType);
+    }
+
+    public long getTaken() {
+        return this.taken;
+    }
+
+    @Nonnull
+    public String getSnapshot() {
+        return this.snapshot;
+    }
+}
@@ -19,9 +19,7 @@ package space.npstr.wolfia.db.entities;
 
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Guild;
-import net.dv8tion.jda.core.entities.Invite;
 import net.dv8tion.jda.core.entities.Member;
-import net.dv8tion.jda.core.entities.Role;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.events.guild.member.GuildMemberJoinEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
@@ -45,6 +43,9 @@ import javax.persistence.Transient;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 
 /**
@@ -79,6 +80,10 @@ public class PrivateGuild extends ListenerAdapter implements IEntity<Long, Priva
     @Transient
     private long currentChannelId = -1;
 
+    //set while the clean up after a game is in flight, so it is not started twice
+    @Transient
+    private boolean ending = false;
+
     //for Hibernate/JPA and creating entities
     public PrivateGuild() {
     }
@@ -156,14 +161,25 @@ public class PrivateGuild extends ListenerAdapter implements IEntity<Long, Priva
             return;
         }
 
-        final Role wolf = RoleAndPermissionUtils.getOrCreateRole(event.getGuild(), WOLF_ROLE_NAME).complete();
-        event.getGuild().getController().addRolesToMember(event.getMember(), wolf).queue(
-                aVoid -> RestActions.sendMessage(Wolfia.fetchTextChannel(this.currentChannelId),
-                        event.getMember().getAsMention() + ", welcome to wolf chat!")
-        );
+        final Guild g = event.getGuild();
+        RestActions.toStage(RoleAndPermissionUtils.getOrCreateRole(g, WOLF_ROLE_NAME))
+                .thenCompose(wolf -> RestActions.toStage(g.getController().addRolesToMember(joined, wolf)))
+                .whenComplete((__, t) -> {
+                    if (t != null) {
+                        log.error("Could not give the wolf role to user {} in private guild #{}",
+                                joined.getUser().getIdLong(), this.number, t);
+                        return;
+                    }
+                    RestActions.sendMessage(Wolfia.fetchTextChannel(this.currentChannelId),
+                            joined.getAsMention() + ", welcome to wolf chat!");
+                });
     }
 
-    public void beginUsage(final Collection<Long> wolfUserIds) {
+    /**
+     * @return a stage that completes once the wolf channel has been set up. If that fails, the usage of this private
+     * guild is ended again, and the stage completes exceptionally.
+     */
+    public CompletionStage<Void> beginUsage(final Collection<Long> wolfUserIds) {
         synchronized (usageLock) {
             if (this.inUse) {
                 throw new IllegalStateException("Can't begin the usage of a private guild #" + this.number + " that is being used already");
@@ -171,6 +187,7 @@ public class PrivateGuild extends ListenerAdapter implements IEntity<Long, Priva
             this.inUse = true;
         }
 
+        CompletionStage<Void> ready;
         try {
             final Guild g = fetchThisGuild();
 
@@ -178,19 +195,46 @@ public class PrivateGuild extends ListenerAdapter implements IEntity<Long, Priva
             this.allowedUsers.addAll(wolfUserIds);
 
             //set up a fresh channel
-            final TextChannel wolfChannel = (TextChannel) g.getController().createTextChannel("wolfchat")
-                    .reason("Preparing private guild for a game").complete();
-            this.currentChannelId = wolfChannel.getIdLong();
+            ready = RestActions.toStage(g.getController().createTextChannel("wolfchat")
+                    .reason("Preparing private guild for a game"))
+                    .thenCompose(channel -> {
+                        final TextChannel wolfChannel = (TextChannel) channel;
+                        this.currentChannelId = wolfChannel.getIdLong();
+
+                        //send new user joining messages to the fresh channel
+                        g.getManager().setSystemChannel(wolfChannel).queue(null, RestActions.defaultOnFail());
+
+                        //give the wolfrole access to it
+                        return RestActions.toStage(RoleAndPermissionUtils.getOrCreateRole(g, WOLF_ROLE_NAME))
+                                .thenCompose(wolf -> RestActions.toStage(RoleAndPermissionUtils.grant(wolfChannel, wolf,
+                                        Permission.MESSAGE_WRITE, Permission.MESSAGE_READ)));
+                    })
+                    .thenApply(__ -> null);
+        } catch (final Exception e) {
+            ready = CompletableFuture.failedFuture(e);
+        }
 
-            //send new user joining messages to the fresh channel
-            g.getManager().setSystemChannel(wolfChannel).queue(null, RestActions.defaultOnFail());
+        return ready.handle((__, t) -> {
+            if (t != null) {
+                endUsage();
+                throw new CompletionException(new RuntimeException("Could not begin the usage of private guild #" + this.number, t));
+            }
+            return null;
+        });
+    }
 
-            //give the wolfrole access to it
-            RoleAndPermissionUtils.grant(wolfChannel, RoleAndPermissionUtils.getOrCreateRole(g, WOLF_ROLE_NAME).complete(),
-                    Permission.MESSAGE_WRITE, Permission.MESSAGE_READ).queue(null, RestActions.defaultOnFail());
-        } catch (final Exception e) {
-            endUsage();
-            throw new RuntimeException("Could not begin the usage of private guild #" + this.number, e);
+    /**
+     * Take this private guild back into usage for a resumed game, keeping the members and the wolf channel around.
+     */
+    public void resumeUsage(final long channelId, final Collection<Long> wolfUserIds) {
+        synchronized (usageLock) {
+            if (this.inUse) {
+                throw new IllegalStateException("Can't resume the usage of a private guild #" + this.number + " that is being used already");
+            }
+            this.inUse = true;
+            this.allowedUsers.clear();
+            this.allowedUsers.addAll(wolfUserIds);
+            this.currentChannelId = channelId;
         }
     }
 
@@ -201,33 +245,67 @@ public class PrivateGuild extends ListenerAdapter implements IEntity<Long, Priva
         g.getMembers().stream().filter(m -> !m.isOwner() && !m.getUser().isBot()).forEach(m -> g.getController().kick(m).queue(null, RestActions.defaultOnFail()));
     }
 
+    /**
+     * Starts cleaning up this private guild. It is put back into the pool of available private guilds once that is done.
+     */
     public void endUsage() {
         synchronized (usageLock) {
-            if (!this.inUse) {
+            if (!this.inUse || this.ending) {
                 throw new IllegalStateException("Can't end the usage of a private guild #" + this.number + " that is not in use ");
             }
-            cleanUpMembers();
-            try {//complete() in here to catch errors
-                //revoke all invites
-                for (final TextChannel channel : fetchThisGuild().getTextChannels()) {
-                    final List<Invite> invites = channel.getInvites().complete();
-                    invites.forEach(i -> i.delete().complete());
-                }
-                final TextChannel tc = Wolfia.getTextChannelById(this.currentChannelId);
-                if (tc != null) {
-                    tc.delete().reason("Cleaning up private guild after game ended").complete();
-                } else {
-                    log.error("Did not find channel {} in private guild #{} to delete it.",
-                            this.currentChannelId, this.number);
-                }
-            } catch (final Exception e) {
+            this.ending = true;
+        }
+        cleanUpMembers();
+
+        CompletionStage<?> cleanedUp;
+        try {
+            //revoke all invites
+            final List<CompletableFuture<?>> revoked = new ArrayList<>();
+            for (final TextChannel channel : fetchThisGuild().getTextChannels()) {
+                revoked.add(RestActions.toStage(channel.getInvites())
+                        .thenCompose(invites -> CompletableFuture.allOf(invites.stream()
+                                .map(invite -> RestActions.toStage(invite.delete()))
+                                .toArray(CompletableFuture[]::new))));
+            }
+            cleanedUp = CompletableFuture.allOf(revoked.toArray(new CompletableFuture[0]))
+                    .thenCompose(__ -> {
+                        final TextChannel tc = Wolfia.getTextChannelById(this.currentChannelId);
+                        if (tc == null) {
+                            log.error("Did not find channel {} in private guild #{} to delete it.",
+                                    this.currentChannelId, this.number);
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        return RestActions.toStage(tc.delete().reason("Cleaning up private guild after game ended"));
+                    });
+        } catch (final Exception e) {
+            cleanedUp = CompletableFuture.failedFuture(e);
+        }
+
+        cleanedUp.whenComplete((__, t) -> {
+            if (t != null) {
                 log.error("Exception while deleting channel {} in private guild #{} {}", this.currentChannelId,
-                        this.number, this.guildId, e);
+                        this.number, this.guildId, t);
                 return;//leave the private guild in a "broken state", this can be later fixed manually through eval
             }
-            this.inUse = false;
+            synchronized (usageLock) {
+                this.inUse = false;
+                this.ending = false;
+            }
             Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.add(this);
+        });
+    }
+
+    //non-blocking variant of getInvite(), for the channel of the current game
+    public CompletionStage<String> getInviteAsync() {
+        final TextChannel channel = fetchThisGuild().getTextChannelById(this.currentChannelId);
+        if (channel == null) {
+            return CompletableFuture.supplyAsync(this::getInvite, Wolfia.executor);
         }
+        //the channel was just created by us, if this fails there is little hope for the other channels, but try anyways
+        return TextchatUtils.getOrCreateInviteLinkForChannelAsync(channel)
+                .thenCompose(invite -> invite.isEmpty()
+                        ? CompletableFuture.supplyAsync(this::getInvite, Wolfia.executor)
+                        : CompletableFuture.completedFuture(invite));
     }
 
     public String getInvite() {
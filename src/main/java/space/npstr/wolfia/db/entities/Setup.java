@@ -37,6 +37,7 @@ import space.npstr.wolfia.game.GameInfo;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.metrics.Metrics;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
@@ -51,6 +52,9 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -65,6 +69,9 @@ public class Setup extends SaucedEntity<Long, Setup> {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Setup.class);
 
+    //channels where a game has been told to start, but isn't running yet
+    private static final Set<Long> STARTING = ConcurrentHashMap.newKeySet();
+
     @Id
     @Column(name = "channel_id", nullable = false)
     private long channelId;
@@ -226,6 +233,7 @@ public class Setup extends SaucedEntity<Long, Setup> {
     //needs to be synchronized so only one incoming command at a time can be in here
     public synchronized boolean startGame(final long commandCallerId)
             throws IllegalGameStateException, DatabaseException {
+        final long started = System.nanoTime();
         final TextChannel channel = Wolfia.fetchTextChannel(this.channelId);
         //need to synchronize on a class level due to this being an entity object that may be loaded twice from the database
         synchronized (Setup.class) {
@@ -240,8 +248,8 @@ public class Setup extends SaucedEntity<Long, Setup> {
                 return false;
             }
 
-            //is there a game running already in this channel?
-            if (Games.get(this.channelId) != null) {
+            //is there a game running or starting already in this channel?
+            if (Games.get(this.channelId) != null || STARTING.contains(this.channelId)) {
                 RestActions.sendMessage(channel, TextchatUtils.userAsMention(commandCallerId)
                         + ", there is already a game going on in this channel!");
                 return false;
@@ -265,25 +273,79 @@ public class Setup extends SaucedEntity<Long, Setup> {
 
             game.setDayLength(this.dayLengthMillis, TimeUnit.MILLISECONDS);
 
+            final CompletionStage<Void> gameStarted;
+            STARTING.add(this.channelId);
             try {
-                game.start(this.channelId, getMode(), inned);
+                gameStarted = game.start(this.channelId, getMode(), inned);
             } catch (final UserFriendlyException e) {
+                STARTING.remove(this.channelId);
                 log.info("Game start aborted due to user friendly exception", e);
                 Games.remove(game);
                 game.cleanUp();
                 throw new UserFriendlyException(e.getMessage(), e);
             } catch (final Exception e) {
+                STARTING.remove(this.channelId);
                 //start failed with a fucked up exception
                 Games.remove(game);
                 game.cleanUp();
                 throw new RuntimeException(String.format("%s, game start aborted due to:%n%s",
                         TextchatUtils.userAsMention(commandCallerId), e.getMessage()), e);
             }
+
+            final String gameName = getGame().name();
+            //cleaning up after a failed start may block, so keep it off the threads of JDA
+            gameStarted.whenCompleteAsync((__, t) -> {
+                try {
+                    if (t == null) {
+                        Metrics.gameStart.labels(gameName).observe((System.nanoTime() - started) / 1_000_000_000.0);
+                    } else {
+                        abortStart(game, channel, commandCallerId, inned, t);
+                    }
+                } catch (final Exception e) {
+                    //the stage returned by whenCompleteAsync is dropped, so nobody would hear about this otherwise
+                    log.error("Exception when finishing the start of a game in channel {}", this.channelId, e);
+                } finally {
+                    STARTING.remove(this.channelId);
+                }
+            }, Wolfia.executor);
             this.innedUsers.clear();
             return true;
         }
     }
 
+    //the part of the start that talks to discord failed after the start command returned, so clean up and tell the
+    // players about it here
+    private void abortStart(final Game game, final TextChannel channel, final long commandCallerId,
+                            final Set<Long> inned, final Throwable failure) {
+        final Throwable cause = (failure instanceof CompletionException && failure.getCause() != null)
+                ? failure.getCause() : failure;
+        Games.remove(game);
+        try {
+            game.cleanUp();
+        } catch (final Exception e) {
+            //still tell the players and let them in again below
+            log.error("Exception when cleaning up the aborted game in channel {}", this.channelId, e);
+        }
+        if (cause instanceof UserFriendlyException) {
+            log.info("Game start aborted due to user friendly exception", cause);
+            RestActions.sendMessage(channel, "There was a problem executing your command:\n" + cause.getMessage());
+        } else {
+            log.error("Game start in channel {} aborted", this.channelId, cause);
+            RestActions.sendMessage(channel, String.format("%s, game start aborted due to:%n%s",
+                    TextchatUtils.userAsMention(commandCallerId), cause.getMessage()));
+        }
+
+        //let the players try again without having to in again
+        try {
+            Launcher.getBotContext().getDatabase().getWrapper().findApplyAndMerge(key(this.channelId), setup -> {
+                setup.innedUsers.addAll(inned);
+                return setup;
+            });
+        } catch (final DatabaseException e) {
+            log.error("Failed to restore inned players of channel {}", this.channelId, e);
+        }
+    }
+
     private TextChannel getThisChannel() {
         final TextChannel tc = Wolfia.getTextChannelById(this.channelId);
         if (tc == null) {
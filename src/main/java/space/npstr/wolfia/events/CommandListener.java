@@ -21,7 +21,9 @@ import net.dv8tion.jda.core.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
 import org.springframework.stereotype.Component;
 import space.npstr.wolfia.commands.CommRegistry;
+import space.npstr.wolfia.commands.CommandDispatcher;
 import space.npstr.wolfia.commands.CommandHandler;
+import space.npstr.wolfia.commands.CommandRateLimiter;
 
 /**
  * Created by npstr on 25.08.2016
@@ -30,13 +32,18 @@ import space.npstr.wolfia.commands.CommandHandler;
 public class CommandListener extends ListenerAdapter {
 
     private final CommRegistry commRegistry;
+    private final CommandRateLimiter rateLimiter;
+    private final CommandDispatcher commandDispatcher;
 
-    public CommandListener(final CommRegistry commRegistry) {
+    public CommandListener(final CommRegistry commRegistry, final CommandRateLimiter rateLimiter,
+                           final CommandDispatcher commandDispatcher) {
         this.commRegistry = commRegistry;
+        this.rateLimiter = rateLimiter;
+        this.commandDispatcher = commandDispatcher;
     }
 
     @Override
     public void onMessageReceived(final MessageReceivedEvent event) {
-        CommandHandler.handleMessage(this.commRegistry, event);
+        CommandHandler.handleMessage(this.commRegistry, this.rateLimiter, this.commandDispatcher, event);
     }
 }
@@ -60,15 +60,13 @@ public class InternalListener extends ListenerAdapter {
 
         int gamesDestroyed = 0;
         //destroy games running in the server that was left
-        for (final Game game : Games.getAll().values()) {
-            if (game.getGuildId() == guild.getIdLong()) {
-                try {
-                    game.destroy(new UserFriendlyException("Bot was kicked from the server " + guild.getName() + " " + guild.getIdLong()));
-                    gamesDestroyed++;
-                } catch (final Exception e) {
-                    log.error("Exception when destroying a game in channel `{}` after leaving guild `{}`",
-                            game.getChannelId(), guild.getIdLong(), e);
-                }
+        for (final Game game : Games.getByGuild(guild.getIdLong())) {
+            try {
+                game.destroy(new UserFriendlyException("Bot was kicked from the server " + guild.getName() + " " + guild.getIdLong()));
+                gamesDestroyed++;
+            } catch (final Exception e) {
+                log.error("Exception when destroying a game in channel `{}` after leaving guild `{}`",
+                        game.getChannelId(), guild.getIdLong(), e);
             }
         }
 
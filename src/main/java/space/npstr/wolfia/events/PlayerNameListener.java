@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.events;
+
+import net.dv8tion.jda.core.events.guild.member.GuildMemberNickChangeEvent;
+import net.dv8tion.jda.core.events.user.update.UserUpdateNameEvent;
+import net.dv8tion.jda.core.hooks.ListenerAdapter;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.game.definitions.Games;
+
+/**
+ * Keeps the memoized names of the players of running games up to date.
+ */
+public class PlayerNameListener extends ListenerAdapter {
+
+    @Override
+    public void onUserUpdateName(final UserUpdateNameEvent event) {
+        final long userId = event.getUser().getIdLong();
+        for (final Game game : Games.getAll().values()) {
+            final Player player = game.findPlayer(userId);
+            if (player != null) {
+                player.updateName(event.getNewName());
+            }
+        }
+    }
+
+    @Override
+    public void onGuildMemberNickChange(final GuildMemberNickChangeEvent event) {
+        final long guildId = event.getGuild().getIdLong();
+        final long userId = event.getUser().getIdLong();
+        for (final Game game : Games.getByGuild(guildId)) {
+            final Player player = game.findPlayer(userId);
+            if (player != null) {
+                player.updateNick(event.getNewNick());
+            }
+        }
+    }
+}
@@ -53,7 +53,7 @@ public class ReactionListener extends ListenerAdapter {
         this.callback = callback;
         this.selfDestructCallback = selfDestructCallback;
 
-        Wolfia.executor.schedule(this::destruct, selfDestructMillis, TimeUnit.MILLISECONDS);
+        Wolfia.timers.schedule(this::destruct, selfDestructMillis, TimeUnit.MILLISECONDS);
     }
 
     protected void destruct() {
@@ -19,49 +19,87 @@ package space.npstr.wolfia.events;
 
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageEmbed;
 import net.dv8tion.jda.core.events.message.react.GenericMessageReactionEvent;
 import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.metrics.Metrics;
+import space.npstr.wolfia.utils.TimingWheel;
+import space.npstr.wolfia.utils.discord.RestActions;
 
-import java.util.concurrent.ScheduledFuture;
+import javax.annotation.Nullable;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Created by napster on 09.07.17.
  * <p>
- * This reaction listener will call for updates
+ * This reaction listener keeps the embed of its message up to date.
+ * <p>
+ * Changes are not pushed to the listener, instead it checks a version number of whatever the embed shows once per
+ * update interval. Any amount of changes within an interval result in at most one edit, and no edit at all happens
+ * if the version did not change, or the freshly rendered embed is the same as the one that was sent last.
  */
 public class UpdatingReactionListener extends ReactionListener {
 
-    private final Consumer<Void> updateCallback;
-    private final ScheduledFuture updates;
+    private final Message message;
+    private final LongSupplier version;
+    private final Supplier<MessageEmbed> render;
+    private final TimingWheel.Timeout updates;
+    private long renderedVersion;
+    @Nullable
+    private MessageEmbed rendered;
 
     /**
-     * @param message              The message on which to listen for reactions
+     * @param message              The message on which to listen for reactions, showing the embed to be kept up to date
      * @param filter               filter by Members
      * @param reactionCallback     wat do when a reaction happens that went through the filter
      * @param selfDestructMillis   milliseconds after which this listener is removed and the message deleted
      * @param selfDestructCallback called on self destruct
      * @param updateMillis         interval for updates happening
-     * @param updateCallback       called on update
+     * @param sentVersion          the version read before rendering the embed that the message was sent with
+     * @param version              changes whenever the content of the embed may have changed
+     * @param render               renders the embed
      */
     public UpdatingReactionListener(final Message message, final Predicate<Member> filter, final Consumer<GenericMessageReactionEvent> reactionCallback,
                                     final long selfDestructMillis, final Consumer<Void> selfDestructCallback,
-                                    final long updateMillis, final Consumer<Void> updateCallback) {
+                                    final long updateMillis, final long sentVersion, final LongSupplier version,
+                                    final Supplier<MessageEmbed> render) {
         super(message, filter, reactionCallback, selfDestructMillis, selfDestructCallback);
 
-        this.updateCallback = updateCallback;
-        this.updates = Wolfia.executor.scheduleAtFixedRate(this::update, updateMillis - 1000, updateMillis, TimeUnit.MILLISECONDS);
+        this.message = message;
+        this.version = version;
+        this.render = render;
+        //not the current version, changes made after the message was rendered have to show up with the next update
+        this.renderedVersion = sentVersion;
+        this.rendered = message.getEmbeds().isEmpty() ? null : message.getEmbeds().get(0);
+        this.updates = Wolfia.timers.scheduleAtFixedRate(this::update, updateMillis, updateMillis, TimeUnit.MILLISECONDS);
     }
 
-    private void update() {
-        this.updateCallback.accept(null);
+    //synchronized so that a slow render can't overlap with the next one
+    private synchronized void update() {
+        //read the version before rendering, so that changes happening during rendering are picked up by the next update
+        final long currentVersion = this.version.getAsLong();
+        if (currentVersion == this.renderedVersion) {
+            Metrics.messageEditsSkipped.labels("version").inc();
+            return;
+        }
+        this.renderedVersion = currentVersion;
+
+        final MessageEmbed embed = this.render.get();
+        if (embed.equals(this.rendered)) {
+            Metrics.messageEditsSkipped.labels("content").inc();
+            return;
+        }
+        this.rendered = embed;
+        RestActions.editMessage(this.message, embed);
     }
 
     @Override
     protected void destruct() {
-        this.updates.cancel(true);
+        this.updates.cancel();
         super.destruct();
     }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.db.entities.stats.ActionStats;
+import space.npstr.wolfia.db.entities.stats.GameStats;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+import javax.annotation.Nonnull;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only journal of the actions of a running game.
+ * <p>
+ * Actions are written to the database in small batches while the game is running, instead of all at once when the
+ * game ends. This keeps them out of the heap, spreads out the writes, and keeps the replay of a game that is
+ * destroyed midway.
+ * <p>
+ * The record of the game itself needs to be persisted before the journal is opened.
+ */
+public class ActionJournal {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ActionJournal.class);
+
+    //one writer for all games keeps the load on the db predictable and the batches of a game in order
+    private static final ExceptionLoggingExecutor writer = new ExceptionLoggingExecutor(1, "action-journal");
+
+    private static final int BATCH_SIZE = 32;
+    private static final long FLUSH_DELAY_MILLIS = 5000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000;
+
+    private final GameStats gameStats;
+    private final ConcurrentLinkedQueue<ActionStats> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    //only touched by the writer thread
+    private long retryDelayMillis = 0;
+    private boolean retryScheduled = false;
+
+    public ActionJournal(@Nonnull final GameStats gameStats) {
+        this.gameStats = gameStats;
+    }
+
+    public long getGameId() {
+        return this.gameStats.getId();
+    }
+
+    public void append(@Nonnull final ActionStats action) {
+        this.pending.add(action);
+        scheduleFlush();
+    }
+
+    public void appendAll(@Nonnull final Collection<ActionStats> actions) {
+        this.pending.addAll(actions);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (this.pending.size() >= BATCH_SIZE) {
+            flush();
+        } else if (this.flushScheduled.compareAndSet(false, true)) {
+            writer.schedule(() -> {
+                this.flushScheduled.set(false);
+                write();
+            }, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write all pending actions in the background
+     */
+    @Nonnull
+    public Future<?> flush() {
+        return writer.submit(this::write);
+    }
+
+    /**
+     * Write all pending actions, then run the task on the writer, so it sees every action appended before this call
+     * written. Nothing waits on the database on the calling thread.
+     *
+     * @return a future that completes once the task has run, exceptionally if it failed
+     */
+    @Nonnull
+    public CompletableFuture<Void> flushThen(@Nonnull final ExceptionLoggingExecutor.ExceptionalRunnable task) {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            writer.execute(() -> {
+                write();
+                if (!this.pending.isEmpty()) {
+                    log.warn("Not all actions of game #{} could be written", getGameId());
+                }
+                try {
+                    task.run();
+                    done.complete(null);
+                } catch (final Exception e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    //only ever called from the writer thread
+    private void write() {
+        final List<ActionStats> batch = new ArrayList<>();
+        ActionStats action;
+        while ((action = this.pending.poll()) != null) {
+            batch.add(action);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (final ActionStats a : batch) {
+                em.persist(a);
+            }
+            em.getTransaction().commit();
+            this.retryDelayMillis = 0;
+        } catch (final Exception e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            //ids may have been handed out before the rollback, reset them so the actions can be persisted again
+            //the sequence column keeps them in order regardless of when they are written
+            batch.forEach(a -> a.setId(0L));
+            this.pending.addAll(batch);
+            this.retryDelayMillis = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(1000, this.retryDelayMillis * 2));
+            log.error("Failed to write {} actions of game #{}, retrying in {}ms", batch.size(), getGameId(),
+                    this.retryDelayMillis, e);
+            scheduleRetry();
+        } finally {
+            em.close();
+        }
+    }
+
+    //only ever called from the writer thread
+    private void scheduleRetry() {
+        if (this.retryScheduled) {
+            return;
+        }
+        try {
+            writer.schedule(() -> {
+                this.retryScheduled = false;
+                write();
+            }, this.retryDelayMillis, TimeUnit.MILLISECONDS);
+            this.retryScheduled = true;
+        } catch (final RejectedExecutionException e) {
+            log.error("Writer is shut down, {} actions of game #{} are lost", this.pending.size(), getGameId());
+        }
+    }
+
+    public static ExceptionLoggingExecutor getWriter() {
+        return writer;
+    }
+}
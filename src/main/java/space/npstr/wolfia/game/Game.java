@@ -26,7 +26,10 @@ import net.dv8tion.jda.core.entities.Role;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.exceptions.PermissionException;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import space.npstr.sqlsauce.DatabaseException;
+import space.npstr.sqlsauce.fp.types.EntityKey;
 import space.npstr.wolfia.App;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.Wolfia;
@@ -38,21 +41,27 @@ import space.npstr.wolfia.db.entities.PrivateGuild;
 import space.npstr.wolfia.db.entities.stats.ActionStats;
 import space.npstr.wolfia.db.entities.stats.GameStats;
 import space.npstr.wolfia.db.entities.stats.PlayerStats;
+import space.npstr.wolfia.db.entities.stats.TeamStats;
 import space.npstr.wolfia.game.definitions.Actions;
 import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Item;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
 import space.npstr.wolfia.game.definitions.Scope;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
-import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.utils.TimingWheel;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.Emojis;
+import space.npstr.wolfia.utils.discord.PermissionOverrides;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.RoleAndPermissionUtils;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 import space.npstr.wolfia.utils.log.DiscordLogger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -61,11 +70,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 /**
  * Created by npstr on 14.09.2016
@@ -86,22 +95,26 @@ public abstract class Game {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Game.class);
 
-    //to be used to execute tasks for each game
-    protected final ExceptionLoggingExecutor executor = new ExceptionLoggingExecutor(10,
-            r -> new Thread(r, "game-in-channel-" + Game.this.getChannelId() + "-executor-thread"));
+    //to be used to schedule tasks for each game, all of them are cancelled when the game is cleaned up
+    protected final TimingWheel.TimerGroup timers = Wolfia.timers.newGroup();
 
     //commonly used fields
     protected long channelId = -1;
     protected long guildId = -1;
     protected GameInfo.GameMode mode;
-    protected final List<Player> players = new ArrayList<>();
+    protected volatile PlayerRoster roster = PlayerRoster.EMPTY;
     protected volatile boolean running = false;
+    //set once the game is suspended for a restart, no commands are accepted from then on
+    private volatile boolean suspended = false;
+    private final Object commandLock = new Object();
     protected long accessRoleId;
     protected PrivateGuild wolfChat = null;
-    protected final Set<Integer> hasDayEnded = new HashSet<>();
+    //games set this up with their first phase in start()
+    protected final PhaseState phaseState = new PhaseState(Phase.DAY, 0, true);
 
     //stats keeping fields
     protected GameStats gameStats = null;
+    protected ActionJournal journal = null;
     protected final Map<Long, PlayerStats> playersStats = new HashMap<>();
     protected final AtomicInteger actionOrder = new AtomicInteger();
 
@@ -117,6 +130,14 @@ public abstract class Game {
         return this.guildId;
     }
 
+    /**
+     * @return the id of the record of this game, or -1 if the game has not started yet
+     */
+    public long getGameId() {
+        final ActionJournal j = this.journal;
+        return j != null ? j.getGameId() : -1;
+    }
+
     public long getPrivateGuildId() {
         if (this.wolfChat == null)
             return -1;
@@ -147,13 +168,21 @@ public abstract class Game {
      * @return true if the user is playing in this game (dead or alive), false if not
      */
     public boolean isUserPlaying(final long userId) {
-        return this.players.stream().anyMatch(p -> p.userId == userId);
+        return this.roster.contains(userId);
     }
 
     public boolean isUserPlaying(@Nonnull final User user) {
         return isUserPlaying(user.getIdLong());
     }
 
+    /**
+     * @return the player of the user in this game (dead or alive), or null if they are not playing
+     */
+    @Nullable
+    public Player findPlayer(final long userId) {
+        return this.roster.byUserId(userId);
+    }
+
     public boolean isUserPlaying(@Nonnull final Member member) {
         return isUserPlaying(member.getUser());
     }
@@ -216,22 +245,16 @@ public abstract class Game {
     }
 
     public boolean isLiving(final long userId) {
-        for (final Player p : this.players) {
-            if (p.userId == userId && p.isAlive()) {
-                return true;
-            }
-        }
-        return false;
+        return this.roster.isLiving(userId);
     }
 
     @Nonnull
     protected Player getPlayer(final long userId) throws IllegalGameStateException {
-        for (final Player p : this.players) {
-            if (p.userId == userId) {
-                return p;
-            }
+        final Player player = this.roster.byUserId(userId);
+        if (player == null) {
+            throw new IllegalGameStateException("Requested player " + userId + " is not in the player list");
         }
-        throw new IllegalGameStateException("Requested player " + userId + " is not in the player list");
+        return player;
     }
 
     @Nonnull
@@ -245,85 +268,59 @@ public abstract class Game {
     }
 
     protected Player getPlayerByNumber(final int number) throws IllegalGameStateException {
-        for (final Player p : this.players) {
-            if (p.number == number) {
-                return p;
-            }
+        final Player player = this.roster.byNumber(number);
+        if (player == null) {
+            throw new IllegalGameStateException("Requested player number " + number + " is not in the player list");
         }
-        throw new IllegalGameStateException("Requested player number " + number + " is not in the player list");
+        return player;
     }
 
-    protected Set<Player> getVillagers() {
-        return this.players.stream()
-                .filter(Player::isGoodie)
-                .collect(Collectors.toSet());
+    protected List<Player> getVillagers() {
+        return this.roster.ofAlignment(Alignments.VILLAGE);
     }
 
     protected List<Player> getLivingVillage() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .filter(Player::isGoodie)
-                .collect(Collectors.toList());
+        return this.roster.living(Alignments.VILLAGE);
     }
 
     protected Set<Long> getLivingVillageIds() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .filter(Player::isGoodie)
-                .map(Player::getUserId)
-                .collect(Collectors.toSet());
+        return this.roster.livingIds(Alignments.VILLAGE);
     }
 
-    protected Set<Player> getWolves() {
-        return this.players.stream()
-                .filter(Player::isBaddie)
-                .collect(Collectors.toSet());
+    protected List<Player> getWolves() {
+        return this.roster.ofAlignment(Alignments.WOLF);
     }
 
     protected Set<Long> getWolvesIds() {
-        return this.players.stream()
-                .filter(Player::isBaddie)
-                .map(Player::getUserId)
-                .collect(Collectors.toSet());
+        return this.roster.ids(Alignments.WOLF);
     }
 
     protected List<Player> getLivingWolves() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .filter(Player::isBaddie)
-                .collect(Collectors.toList());
+        return this.roster.living(Alignments.WOLF);
     }
 
     protected Set<String> getLivingWolvesMentions() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .filter(Player::isBaddie)
-                .map(p -> TextchatUtils.userAsMention(p.userId))
-                .collect(Collectors.toSet());
+        final Set<String> mentions = new HashSet<>();
+        this.roster.forEachLiving(Alignments.WOLF, p -> mentions.add(TextchatUtils.userAsMention(p.userId)));
+        return mentions;
     }
 
     protected List<Player> getLivingPlayers() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .collect(Collectors.toList());
+        return this.roster.living();
     }
 
     protected Set<Long> getLivingPlayerIds() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .map(Player::getUserId)
-                .collect(Collectors.toSet());
+        return this.roster.livingIds();
     }
 
     protected List<String> getLivingPlayerMentions() {
-        return this.players.stream()
-                .filter(Player::isAlive)
-                .map(p -> TextchatUtils.userAsMention(p.userId))
-                .collect(Collectors.toList());
+        final List<String> mentions = new ArrayList<>(this.roster.countLiving());
+        this.roster.forEachLiving(p -> mentions.add(TextchatUtils.userAsMention(p.userId)));
+        return mentions;
     }
 
     public boolean isLivingWolf(final Member m) {
-        return getLivingWolves().stream().anyMatch(player -> player.userId == m.getUser().getIdLong());
+        return this.roster.isLiving(m.getUser().getIdLong(), Alignments.WOLF);
     }
 
     //do not post this before the game is over
@@ -334,20 +331,19 @@ public abstract class Game {
         }
         final StringBuilder sb = new StringBuilder();
         sb.append("Village: ");
-        getVillagers().forEach(p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
+        this.roster.forEach(Alignments.VILLAGE, p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
         if (wwFlair.length > 0 && wwFlair[0]) {
             sb.append("\nWolves: ");
         } else {
             sb.append("\nMafia: ");
         }
-        getWolves().forEach(p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
+        this.roster.forEach(Alignments.WOLF, p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
         return sb.toString();
     }
 
     protected String listLivingPlayers() {
-        final List<Player> living = getLivingPlayers();
-        final StringBuilder sb = new StringBuilder("Living players (**").append(living.size()).append("**) :");
-        living.forEach(p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
+        final StringBuilder sb = new StringBuilder("Living players (**").append(this.roster.countLiving()).append("**) :");
+        this.roster.forEachLiving(p -> sb.append(TextchatUtils.userAsMention(p.userId)).append(" "));
         return sb.toString();
     }
 
@@ -402,10 +398,12 @@ public abstract class Game {
      * @param moderated
      *         moderated games require additional permissions
      *
+     * @return a stage that completes once the channel has been prepared
+     *
      * @throws UserFriendlyException
      *         if the bot is missing permissions to run the game in the channel
      */
-    protected void doPermissionCheckAndPrepareChannel(final boolean moderated)
+    protected CompletionStage<Void> doPermissionCheckAndPrepareChannel(final boolean moderated)
             throws UserFriendlyException, DatabaseException {
         final TextChannel gameChannel = fetchGameChannel();
         final Guild g = gameChannel.getGuild();
@@ -464,7 +462,7 @@ public abstract class Game {
 
 
             try {
-                prepareChannel();
+                return prepareChannel();
             } catch (final PermissionException e) {
                 log.error("Could not prepare channel {}, id: {}, due to missing permission: {}", gameChannel.getName(),
                         gameChannel.getId(), e.getPermission().getName(), e);
@@ -474,6 +472,7 @@ public abstract class Game {
                 ), e);
             }
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     /**
@@ -495,51 +494,95 @@ public abstract class Game {
             );
         }
 
-        this.players.clear();
+        final List<Player> players = new ArrayList<>(charakterSetup.size());
         int i = 0;
         for (final Charakter c : charakterSetup.getRandedCharakters()) {
             final long randedUserId = rand.get(i);
-            this.players.add(new Player(randedUserId, this.channelId, this.guildId, c.alignment, c.role, i + 1));
+            players.add(new Player(randedUserId, this.channelId, this.guildId, c.alignment, c.role, i + 1));
             i++;
         }
+        players.forEach(Player::memoizeNames);
+        this.roster = new PlayerRoster(players);
+    }
+
+    /**
+     * Persists the record of this game, so that its actions can be written to the journal as they happen.
+     * Call this from your start() implementation once the game stats including teams have been set up.
+     */
+    protected void openGameRecord() throws DatabaseException {
+        this.gameStats = Launcher.getBotContext().getDatabase().getWrapper().persist(this.gameStats);
+        this.journal = new ActionJournal(this.gameStats);
+    }
+
+    /**
+     * The actions are in the journal already, so closing the record of a game only writes its outcome. That happens on
+     * the journal writer, after the remaining actions, so the calling thread does not wait on the database.
+     */
+    @Nonnull
+    private CompletableFuture<Void> closeGameRecord(@Nonnull final Alignments winner) {
+        final long endTime = System.currentTimeMillis();
+        return this.journal.flushThen(() -> Launcher.getBotContext().getDatabase().getWrapper().findApplyAndMerge(
+                EntityKey.of(this.journal.getGameId(), GameStats.class),
+                record -> {
+                    record.setEndTime(endTime);
+                    for (final TeamStats team : record.getStartingTeams()) {
+                        team.setWinner(team.getAlignment() == winner);
+                        for (final PlayerStats player : team.getPlayers()) {
+                            final PlayerStats tracked = this.playersStats.get(player.getUserId());
+                            if (tracked != null) {
+                                player.setTotalPosts(tracked.getTotalPosts());
+                                player.setTotalPostLength(tracked.getTotalPostLength());
+                            }
+                        }
+                    }
+                    return record;
+                }));
     }
 
     //todo there seems to be an API for bots creating their own guilds? totally should use that instead
-    protected PrivateGuild allocatePrivateGuild() throws UserFriendlyException {
-        PrivateGuild pg = Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.poll();
-        if (pg == null) {
-            RestActions.sendMessage(fetchGameChannel(),
-                    "Acquiring a private server for the wolves...this may take a while.");
-            log.error("Ran out of free private guilds. Please add moar.");
-            try { //oh yeah...we are waiting till infinity if necessary
-                pg = Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.take();
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Interrupted while waiting for a private server.");
-                throw new UserFriendlyException("Could not allocate a private server.");
-            }
+    protected CompletionStage<PrivateGuild> allocatePrivateGuild() {
+        final PrivateGuild pg = Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.poll();
+        if (pg != null) {
+            return CompletableFuture.completedFuture(pg);
+        }
+        RestActions.sendMessage(fetchGameChannel(),
+                "Acquiring a private server for the wolves...this may take a while.");
+        log.error("Ran out of free private guilds. Please add moar.");
+        final CompletableFuture<PrivateGuild> allocated = new CompletableFuture<>();
+        awaitPrivateGuild(allocated);
+        return allocated;
+    }
+
+    //oh yeah...we are waiting till infinity if necessary
+    private void awaitPrivateGuild(final CompletableFuture<PrivateGuild> allocated) {
+        final PrivateGuild pg = Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.poll();
+        if (pg != null) {
+            allocated.complete(pg);
+        } else {
+            this.timers.schedule(() -> awaitPrivateGuild(allocated), 5, TimeUnit.SECONDS);
         }
-        return pg;
     }
 
     /**
      * Prepares the channel for a moderated game
      *
+     * @return a stage that completes once the bot is sure to be able to write in the game channel
+     *
      * @throws PermissionException
      *         if the bot is missing permissions to edit permission overrides for members and roles
      */
-    protected void prepareChannel() throws PermissionException {
+    protected CompletionStage<Void> prepareChannel() throws PermissionException {
         final TextChannel gameChannel = fetchGameChannel();
         final Guild g = gameChannel.getGuild();
 
-        // - ensure write access for the bot in the game channel
-        // this can be done with complete() as most of the time (after the first game) it will already be in place
-        // and will prevent messages getting lost due to queue() sometimes taking a while
-        RoleAndPermissionUtils.grant(gameChannel, g.getSelfMember(), Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).complete();
-
-        // - no writing access and reaction adding for @everyone/access role in the game channel during the game
-        RoleAndPermissionUtils.deny(gameChannel, g.getRoleById(this.accessRoleId),
-                Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).queue(null, RestActions.defaultOnFail());
+        // the game waits for this, as most of the time (after the first game) it will already be in place, and it
+        // will prevent messages getting lost due to the overrides arriving after them
+        return PermissionOverrides.of(gameChannel)
+                // - ensure write access for the bot in the game channel
+                .grant(g.getSelfMember(), Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION)
+                // - no writing access and reaction adding for @everyone/access role in the game channel during the game
+                .deny(g.getRoleById(this.accessRoleId), Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION)
+                .submit();
     }
 
     /**
@@ -550,8 +593,7 @@ public abstract class Game {
      * @param complete
      *         optionally set to true to complete these operations before returning
      */
-    @SuppressWarnings("unchecked")
-    //revert whatever prepareChannel() did in reverse order
+    //revert whatever prepareChannel() did, in a single batch of overrides
     public void resetRolesAndPermissions(final boolean... complete) {
 
         final TextChannel channel = Wolfia.getTextChannelById(this.channelId);
@@ -561,44 +603,34 @@ public abstract class Game {
             return;
         }
         final Guild g = channel.getGuild();
-        final List<Permission> missingPermissions = new ArrayList<>();
-        final List<Future> toComplete = new ArrayList<>();
+        final PermissionOverrides overrides = PermissionOverrides.of(channel);
 
         //reset permission override for the players
-        try {
-            for (final Player player : this.players) {
-                toComplete.add(RoleAndPermissionUtils.clear(channel, g.getMemberById(player.userId),
-                        Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).submit());
-            }
-        } catch (final PermissionException e) {
-            missingPermissions.add(e.getPermission());
+        for (final Player player : this.roster.all()) {
+            overrides.clear(g.getMemberById(player.userId), Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION);
         }
 
         //reset permission override for the access role in the game channel
+        //todo don't grant MESSAGE_ADD_REACTION if it wasn't granted
+        overrides.grant(g.getRoleById(this.accessRoleId), Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION);
+
+        final CompletionStage<Void> reset;
         try {
-            final Role accessRole = g.getRoleById(this.accessRoleId);
-            if (accessRole != null) {
-                //todo don't grant MESSAGE_ADD_REACTION if it wasn't granted. we need both things happening in a single RestAction to work properly
-                toComplete.add(RoleAndPermissionUtils.grant(channel, accessRole, Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).submit());
-            }
+            reset = overrides.submit();
         } catch (final PermissionException e) {
-            missingPermissions.add(e.getPermission());
-        }
-
-        if (missingPermissions.size() > 0) {
             RestActions.sendMessage(channel,
                     String.format("Tried to clean up channel, but was missing the following permissions: `%s`",
-                            String.join("`, `",
-                                    missingPermissions.stream().map(Permission::getName).distinct().collect(Collectors.toList())
-                            )));
+                            e.getPermission().getName()));
+            return;
         }
 
         if (complete.length > 0 && complete[0]) {
-            for (final Future f : toComplete) {
-                try {
-                    f.get();
-                } catch (final InterruptedException | ExecutionException ignored) {
-                }
+            try {
+                reset.toCompletableFuture().get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (final ExecutionException e) {
+                log.warn("Failed to reset permission overrides in channel {}", this.channelId, e.getCause());
             }
         }
     }
@@ -615,7 +647,7 @@ public abstract class Game {
                 //dont really care about this one, its fine if usage has been stopped already
             }
         }
-        this.executor.shutdownNow();
+        this.timers.cancelAll();
         resetRolesAndPermissions(true);
     }
 
@@ -631,6 +663,9 @@ public abstract class Game {
         }
         cleanUp();
         Games.remove(this);
+        if (this.journal != null) {
+            this.journal.flush(); //keep what happened so far for the replay
+        }
         final TextChannel channel = Wolfia.getTextChannelById(this.channelId);
         if (channel != null) {
             RestActions.sendMessage(channel,
@@ -643,81 +678,180 @@ public abstract class Game {
         }
     }
 
-    protected boolean isOnlyVillageLeft() {
-        return getLivingPlayers().stream().allMatch(Player::isGoodie);
+    /**
+     * Capture the state of this running game, so that it can be resumed after a restart.
+     * Implementations add the state of their phases and timers to the snapshot of the common fields.
+     */
+    @Nonnull
+    public JSONObject snapshot() {
+        //the actions are not part of the snapshot, the journal writer is drained on shutdown after all games are suspended
+        this.journal.flush();
+        final JSONArray players = new JSONArray();
+        for (final Player player : this.roster.all()) {
+            final JSONArray items = new JSONArray();
+            for (final Item item : player.items) {
+                items.put(new JSONObject()
+                        .put("item", item.item.name())
+                        .put("sourceId", item.sourceId));
+            }
+            players.put(new JSONObject()
+                    .put("userId", player.userId)
+                    .put("alignment", player.alignment.name())
+                    .put("role", player.role.name())
+                    .put("number", player.number)
+                    .put("alive", player.isAlive())
+                    .put("rolePm", player.getRolePm())
+                    .put("items", items));
+        }
+        final JSONObject snapshot = new JSONObject()
+                .put("channelId", this.channelId)
+                .put("guildId", this.guildId)
+                .put("mode", this.mode.name())
+                .put("accessRoleId", this.accessRoleId)
+                .put("players", players)
+                .put("phase", this.phaseState.getPhase().name())
+                .put("cycle", this.phaseState.getCycle())
+                .put("phaseEnded", this.phaseState.hasEnded())
+                .put("actionOrder", this.actionOrder.get())
+                .put("gameStats", GameSnapshots.toJson(this.gameStats));
+        if (this.wolfChat != null) {
+            snapshot.put("wolfChat", new JSONObject()
+                    .put("guildId", this.wolfChat.getId())
+                    .put("channelId", this.wolfChat.getChannelId()));
+        }
+        return snapshot;
     }
 
-    //this check will probably get much more sophisticated with more complicated roles
-    protected boolean isParityReached() {
-        return getLivingWolves().size() >= getLivingVillage().size();
+    /**
+     * Stop this game without cleaning it up, so that it can be resumed from its snapshot after a restart. Returns once
+     * no command and no timer of this game is running anymore, so a snapshot taken afterwards is final.
+     */
+    public void suspend() {
+        synchronized (this.commandLock) {
+            this.suspended = true;
+            this.running = false;
+        }
+        this.timers.cancelAll();
+        try {
+            if (!this.timers.awaitRunning(30, TimeUnit.SECONDS)) {
+                log.warn("Timers of the game in channel {} are still running after suspending it", this.channelId);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
+    /**
+     * Restore a game from a snapshot that was taken before a restart. Implementations restore their own state after
+     * calling this, start running again and reschedule their timers with the time that was left.
+     */
+    public void resume(@Nonnull final JSONObject snapshot) throws IllegalGameStateException {
+        this.channelId = snapshot.getLong("channelId");
+        this.guildId = snapshot.getLong("guildId");
+        this.mode = GameInfo.GameMode.valueOf(snapshot.getString("mode"));
+        this.accessRoleId = snapshot.getLong("accessRoleId");
+
+        final JSONArray playersJson = snapshot.getJSONArray("players");
+        final List<Player> players = new ArrayList<>(playersJson.length());
+        for (int i = 0; i < playersJson.length(); i++) {
+            final JSONObject playerJson = playersJson.getJSONObject(i);
+            final Player player = new Player(playerJson.getLong("userId"), this.channelId, this.guildId,
+                    Alignments.valueOf(playerJson.getString("alignment")), Roles.valueOf(playerJson.getString("role")),
+                    playerJson.getInt("number"));
+            player.setRolePm(playerJson.getString("rolePm"));
+            final JSONArray items = playerJson.getJSONArray("items");
+            for (int j = 0; j < items.length(); j++) {
+                final JSONObject item = items.getJSONObject(j);
+                player.items.add(new Item(item.getLong("sourceId"), Item.Items.valueOf(item.getString("item"))));
+            }
+            if (!playerJson.getBoolean("alive")) {
+                player.kill();
+            }
+            player.memoizeNames();
+            players.add(player);
+        }
+        this.roster = new PlayerRoster(players);
+
+        this.phaseState.reset(Phase.valueOf(snapshot.getString("phase")), snapshot.getInt("cycle"),
+                snapshot.getBoolean("phaseEnded"));
+        this.actionOrder.set(snapshot.getInt("actionOrder"));
+        this.gameStats = GameSnapshots.statsFromJson(snapshot.getJSONObject("gameStats"), this.playersStats);
+        this.journal = new ActionJournal(this.gameStats);
+
+        final JSONObject wolfChatJson = snapshot.optJSONObject("wolfChat");
+        if (wolfChatJson != null) {
+            final long privateGuildId = wolfChatJson.getLong("guildId");
+            final PrivateGuild privateGuild = Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.stream()
+                    .filter(pg -> pg.getId() == privateGuildId)
+                    .findAny()
+                    .orElseThrow(() -> new IllegalGameStateException("Private guild " + privateGuildId + " of the game is not available"));
+            Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.remove(privateGuild);
+            try {
+                privateGuild.resumeUsage(wolfChatJson.getLong("channelId"), getWolvesIds());
+            } catch (final RuntimeException e) {
+                Wolfia.AVAILABLE_PRIVATE_GUILD_QUEUE.add(privateGuild);
+                throw e;
+            }
+            this.wolfChat = privateGuild;
+        }
+        this.running = true;
+    }
+
+    /**
+     * @return the win conditions of this game, in the order they are checked
+     */
+    protected List<WinCondition> getWinConditions() {
+        return GameRules.DEFAULT_WIN_CONDITIONS;
+    }
 
     /**
      * Checks whether any win conditions have been met, and reveals the game if yes
      */
     protected boolean isGameOver(final boolean... wwFlair) {
-        boolean gameEnding = false;
-        boolean villageWins = true;
+        final boolean ww = wwFlair.length > 0 && wwFlair[0];
+        Alignments winner = null;
         String out = "";
-        if (isOnlyVillageLeft()) {
-            gameEnding = true;
-            this.running = false;
-            if (wwFlair.length > 0 && wwFlair[0]) {
-                out = "All wolves dead! **Village wins.** Thanks for playing!\nTeams:\n" + listTeams(true);
-            } else { //Mafia flair
-                out = "All mafia dead! **Town wins.** Thanks for playing!\nTeams:\n" + listTeams();
-            }
-        }
-        if (isParityReached()) {
-            gameEnding = true;
+        final WinCondition winCondition = GameRules.metWinCondition(getWinConditions(), this.roster);
+        if (winCondition != null) {
+            winner = winCondition.winner(this.roster);
             this.running = false;
-            villageWins = false;
-            if (wwFlair.length > 0 && wwFlair[0]) {
-                out = "Parity reached! **Wolves win.** Thanks for playing.\nTeams:\n" + listTeams(true);
-            } else { //Mafia Flair
-                out = "Parity reached! **Mafia wins.** Thanks for playing.\nTeams:\n" + listTeams();
-            }
+            out = winCondition.announcement(ww) + "\nTeams:\n" + listTeams(ww);
         }
 
-        if (gameEnding) {
-            this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMEEND, -1));
-            this.gameStats.setEndTime(System.currentTimeMillis());
-
-            if (villageWins) {
-                this.gameStats.getStartingTeams().stream()
-                        .filter(t -> t.getAlignment() == Alignments.VILLAGE)
-                        .findFirst()
-                        .ifPresent(t -> t.setWinner(true));
-            } else {
-                //woofs win
-                this.gameStats.getStartingTeams().stream()
-                        .filter(t -> t.getAlignment() == Alignments.WOLF)
-                        .findFirst()
-                        .ifPresent(t -> t.setWinner(true));
-            }
-            try {
-                this.gameStats = Launcher.getBotContext().getDatabase().getWrapper().persist(this.gameStats);
-                out += String.format("%nThis game's id is **%s**, you can watch its replay with `%s %s`",
-                        this.gameStats.getId(), WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_REPLAY, this.gameStats.getId());
-            } catch (final DatabaseException e) {
-                log.error("Db blew up saving game stats", e);
-                out += "The database it not available currently, a replay of this game will not be available.";
-            }
+        if (winner != null) {
+            final Alignments winningAlignment = winner;
+            final String announcement = out;
+            this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMEEND, -1));
+            final CompletableFuture<Void> recordClosed = closeGameRecord(winningAlignment);
             cleanUp();
             final TextChannel gameChannel = fetchGameChannel();
             DiscordLogger.getLogger().log("%s `%s` Game **#%s** ended in guild **%s** `%s`, channel **#%s** `%s`, **%s %s %s** players",
-                    Emojis.END, TextchatUtils.berlinTime(), this.gameStats.getId(),
+                    Emojis.END, TextchatUtils.berlinTime(), this.journal.getGameId(),
                     gameChannel.getGuild().getName(), gameChannel.getGuild().getIdLong(),
-                    gameChannel.getName(), gameChannel.getIdLong(), Games.getInfo(this).textRep(), this.mode.textRep, this.players.size());
-            // removing the game from the registry has to be the very last statement, since if a restart is queued, it
-            // waits for an empty games registry
-            RestActions.sendMessage(fetchGameChannel(), out,
-                    ignoredMessage -> Games.remove(this),
-                    throwable -> {
-                        log.error("Failed to send last message of game #{}", this.gameStats.getId(), throwable);
-                        Games.remove(this);
-                    });
+                    gameChannel.getName(), gameChannel.getIdLong(), Games.getInfo(this).textRep(), this.mode.textRep, this.roster.size());
+            recordClosed.whenCompleteAsync((__, t) -> {
+                String lastMessage = announcement;
+                if (t == null) {
+                    lastMessage += String.format("%nThis game's id is **%s**, you can watch its replay with `%s %s`",
+                            this.journal.getGameId(), WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_REPLAY, this.journal.getGameId());
+                } else {
+                    log.error("Db blew up closing the record of game #{}", this.journal.getGameId(), t);
+                    lastMessage += "The database it not available currently, a replay of this game will not be available.";
+                }
+                // removing the game from the registry has to be the very last statement, since if a restart is queued, it
+                // waits for an empty games registry
+                try {
+                    RestActions.sendMessage(fetchGameChannel(), lastMessage,
+                            ignoredMessage -> Games.remove(this),
+                            throwable -> {
+                                log.error("Failed to send last message of game #{}", this.journal.getGameId(), throwable);
+                                Games.remove(this);
+                            });
+                } catch (final Exception e) {
+                    log.error("Failed to send last message of game #{}", this.journal.getGameId(), e);
+                    Games.remove(this);
+                }
+            }, Wolfia.executor);
             return true;
         }
 
@@ -769,6 +903,9 @@ public abstract class Game {
      * Things this needs to take care of include:
      * - setting the channelId, game mode and players
      * - creating, sending and saving the role pms
+     * <p>
+     * Checks that can be done right away throw, while everything that needs to talk to Discord is composed into the
+     * returned stage, so that no thread is blocked while waiting for a slow Discord endpoint.
      *
      * @param channelId
      *         main channel where the game shall run
@@ -776,8 +913,10 @@ public abstract class Game {
      *         the chosen game mode
      * @param innedPlayers
      *         the players who signed up
+     *
+     * @return a stage that completes once the game is running and that has been announced in the game channel
      */
-    public abstract void start(long channelId, GameInfo.GameMode mode, Set<Long> innedPlayers) throws DatabaseException;
+    public abstract CompletionStage<Void> start(long channelId, GameInfo.GameMode mode, Set<Long> innedPlayers) throws DatabaseException;
 
     /**
      * Let the game handle a command a user issued
@@ -790,6 +929,21 @@ public abstract class Game {
      * @throws IllegalGameStateException
      *         if the command entered led to an illegal game state
      */
-    public abstract boolean issueCommand(@Nonnull CommandContext context)
+    public final boolean issueCommand(@Nonnull final CommandContext context)
+            throws IllegalGameStateException {
+        synchronized (this.commandLock) {
+            if (this.suspended) {
+                context.replyWithMention("the game is paused while the bot restarts, try again once it is back.");
+                return false;
+            }
+            return handleCommand(context);
+        }
+    }
+
+    /**
+     * Handle a command a user issued, see {@link #issueCommand(CommandContext)}. Never called once the game has been
+     * suspended.
+     */
+    protected abstract boolean handleCommand(@Nonnull CommandContext context)
             throws IllegalGameStateException;
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.game.definitions.Item;
+import space.npstr.wolfia.game.definitions.WinConditions;
+import space.npstr.wolfia.game.tools.VoteTally;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The decisions of the game rules that don't need Discord, shared by the games and the game simulation benchmark.
+ */
+public class GameRules {
+
+    public static final List<WinCondition> DEFAULT_WIN_CONDITIONS
+            = List.of(WinConditions.PARITY_REACHED, WinConditions.ONLY_VILLAGE_LEFT);
+
+    private static final List<Item.Items> PRESENT_CONTENTS
+            = List.of(Item.Items.GUN, Item.Items.MAGNIFIER, Item.Items.BOMB, Item.Items.ANGEL);
+
+    /**
+     * @return the first of the win conditions that is met, null if the game goes on
+     */
+    @Nullable
+    public static WinCondition metWinCondition(@Nonnull final List<WinCondition> winConditions,
+                                               @Nonnull final PlayerRoster roster) {
+        for (final WinCondition winCondition : winConditions) {
+            if (winCondition.winner(roster) != null) {
+                return winCondition;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if a candidate has been voted by more than half of the living players
+     */
+    public static boolean isMajority(@Nonnull final VoteTally<?, ?> votes, final int livingCount) {
+        return votes.getMostVotes() > livingCount / 2;
+    }
+
+    /**
+     * @return the item found in an opened present
+     */
+    @Nonnull
+    public static Item.Items openPresent(@Nonnull final Random random) {
+        return GameUtils.rand(PRESENT_CONTENTS, random);
+    }
+
+    /**
+     * Popcorn: shooting a wolf kills the wolf, shooting a villager kills the shooter.
+     *
+     * @return the player that dies from the shot
+     */
+    @Nonnull
+    public static Player shotVictim(@Nonnull final Player shooter, @Nonnull final Player target) {
+        return target.isBaddie() ? target : shooter;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import net.dv8tion.jda.core.entities.TextChannel;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import space.npstr.sqlsauce.DatabaseException;
+import space.npstr.sqlsauce.DatabaseWrapper;
+import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.db.entities.GameSnapshot;
+import space.npstr.wolfia.db.entities.stats.ActionStats;
+import space.npstr.wolfia.db.entities.stats.GameStats;
+import space.npstr.wolfia.db.entities.stats.PlayerStats;
+import space.npstr.wolfia.db.entities.stats.TeamStats;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+import space.npstr.wolfia.utils.discord.RestActions;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Suspends running games into {@link GameSnapshot}s on shutdown and resumes them on startup, so restarting the bot
+ * does not have to wait for all games to end.
+ */
+public class GameSnapshots {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GameSnapshots.class);
+
+    private GameSnapshots() {
+    }
+
+    /**
+     * Stop and snapshot all running games. Games that fail to be snapshotted are stopped nonetheless and cleaned up.
+     *
+     * @return amount of games that were suspended
+     */
+    public static int suspendAll() {
+        int suspended = 0;
+        for (final Game game : Games.getAll().values()) {
+            try {
+                suspend(game);
+                suspended++;
+            } catch (final Exception e) {
+                log.error("Failed to suspend game in channel {}, it is lost", game.getChannelId(), e);
+                Games.remove(game);
+                try {
+                    game.cleanUp();
+                } catch (final Exception ex) {
+                    log.error("Failed to clean up game in channel {}", game.getChannelId(), ex);
+                }
+            }
+        }
+        return suspended;
+    }
+
+    private static void suspend(@Nonnull final Game game) throws DatabaseException {
+        final Games gameType = typeOf(game);
+        //no commands or timers change the game from here on, so the snapshot is final
+        game.suspend();
+        final JSONObject snapshot = game.snapshot();
+        getWrapper().merge(new GameSnapshot(game.getChannelId(), gameType, snapshot.toString()));
+        Games.remove(game);
+        log.info("Suspended {} game in channel {}", gameType, game.getChannelId());
+        RestActions.sendMessage(Wolfia.getTextChannelById(game.getChannelId()),
+                "The bot is restarting. This game has been paused and will continue once the bot is back.");
+    }
+
+    /**
+     * Resume all games that were suspended during the last shutdown.
+     */
+    public static void resumeAll() {
+        final List<GameSnapshot> snapshots;
+        try {
+            snapshots = getWrapper().loadAll(GameSnapshot.class);
+        } catch (final DatabaseException e) {
+            log.error("Failed to load game snapshots, no games will be resumed", e);
+            return;
+        }
+
+        for (final GameSnapshot snapshot : snapshots) {
+            final long channelId = snapshot.getId();
+            Game game = null;
+            try {
+                final JSONObject json = new JSONObject(snapshot.getSnapshot());
+                //in a cluster, the node running the shard of the guild owns the game, whether or not its channel is still around
+                if (!Wolfia.ownsGuild(json.getLong("guildId"))) {
+                    continue;
+                }
+                if (Wolfia.getTextChannelById(channelId) == null) {
+                    log.info("Dropping the {} game in channel {} since the channel is gone", snapshot.getGameType(), channelId);
+                    deleteSnapshot(channelId);
+                    continue;
+                }
+                game = snapshot.getGameType().clazz.getDeclaredConstructor().newInstance();
+                game.resume(json);
+                log.info("Resumed {} game in channel {} that was suspended {}ms ago", snapshot.getGameType(), channelId,
+                        System.currentTimeMillis() - snapshot.getTaken());
+            } catch (final Exception e) {
+                log.error("Failed to resume game in channel {}", channelId, e);
+                if (game != null) {
+                    //hands back the private guild the game may have taken already
+                    Games.remove(game);
+                    try {
+                        game.cleanUp();
+                    } catch (final Exception ex) {
+                        log.error("Failed to clean up game in channel {} after it could not be resumed", channelId, ex);
+                    }
+                }
+                final TextChannel channel = Wolfia.getTextChannelById(channelId);
+                if (channel != null) {
+                    RestActions.sendMessage(channel, "Sorry, the game in this channel could not be resumed after the restart.");
+                }
+            }
+
+            deleteSnapshot(channelId);
+        }
+    }
+
+    private static void deleteSnapshot(final long channelId) {
+        try {
+            getWrapper().deleteEntity(GameSnapshot.key(channelId));
+        } catch (final DatabaseException e) {
+            log.error("Failed to delete snapshot of game in channel {}", channelId, e);
+        }
+    }
+
+    @Nonnull
+    private static Games typeOf(@Nonnull final Game game) {
+        for (final Games gameType : Games.values()) {
+            if (gameType.clazz == game.getClass()) {
+                return gameType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown game class " + game.getClass().getName());
+    }
+
+    @Nonnull
+    private static DatabaseWrapper getWrapper() {
+        return Launcher.getBotContext().getDatabase().getWrapper();
+    }
+
+
+    //################################################################################
+    // json conversion of the stats entities that are not written to the database yet
+    //################################################################################
+
+    @Nonnull
+    public static JSONObject toJson(@Nonnull final ActionStats action) {
+        return new JSONObject()
+                .put("order", action.getOrder())
+                .put("submitted", action.getTimeStampSubmitted())
+                .put("happened", action.getTimeStampHappened())
+                .put("cycle", action.getCycle())
+                .put("phase", action.getPhase().name())
+                .put("actor", action.getActor())
+                .put("type", action.getActionType().name())
+                .put("target", action.getTarget())
+                .put("info", action.getAdditionalInfo()); //omitted if null
+    }
+
+    @Nonnull
+    public static ActionStats actionFromJson(@Nonnull final GameStats gameStats, @Nonnull final JSONObject json) {
+        return new ActionStats(gameStats, json.getInt("order"), json.getLong("submitted"), json.getLong("happened"),
+                json.getInt("cycle"), Phase.valueOf(json.getString("phase")), json.getLong("actor"),
+                Actions.valueOf(json.getString("type")), json.getLong("target"), json.optString("info", null));
+    }
+
+    @Nonnull
+    public static JSONObject toJson(@Nonnull final GameStats gameStats) {
+        final JSONArray teams = new JSONArray();
+        for (final TeamStats team : gameStats.getStartingTeams()) {
+            final JSONArray players = new JSONArray();
+            for (final PlayerStats player : team.getPlayers()) {
+                players.put(new JSONObject()
+                        .put("userId", player.getUserId())
+                        .put("nick", player.getNickname()) //omitted if null
+                        .put("alignment", player.getAlignment().name())
+                        .put("role", player.getRole().name())
+                        .put("posts", player.getTotalPosts())
+                        .put("postLength", player.getTotalPostLength()));
+            }
+            teams.put(new JSONObject()
+                    .put("alignment", team.getAlignment().name())
+                    .put("name", team.getName())
+                    .put("size", team.getTeamSize())
+                    .put("winner", team.isWinner())
+                    .put("players", players));
+        }
+        return new JSONObject()
+                .put("gameId", gameStats.getId())
+                .put("guildId", gameStats.getGuildId())
+                .put("guildName", gameStats.getGuildName())
+                .put("channelId", gameStats.getChannelId())
+                .put("channelName", gameStats.getChannelName())
+                .put("gameType", gameStats.getGameType().name())
+                .put("gameMode", gameStats.getGameMode())
+                .put("playerSize", gameStats.getPlayerSize())
+                .put("startTime", gameStats.getStartTime())
+                .put("teams", teams);
+    }
+
+    /**
+     * The actions of the game are in its journal, they are not part of the snapshot.
+     *
+     * @param playersStats
+     *         filled with the restored stats of the players
+     */
+    @Nonnull
+    public static GameStats statsFromJson(@Nonnull final JSONObject json, @Nonnull final Map<Long, PlayerStats> playersStats) {
+        final GameStats gameStats = new GameStats(json.getLong("guildId"), json.getString("guildName"),
+                json.getLong("channelId"), json.getString("channelName"), Games.valueOf(json.getString("gameType")),
+                json.getString("gameMode"), json.getInt("playerSize"));
+        gameStats.setId(json.getLong("gameId"));
+        gameStats.setStartTime(json.getLong("startTime"));
+
+        final JSONArray teams = json.getJSONArray("teams");
+        for (int i = 0; i < teams.length(); i++) {
+            final JSONObject teamJson = teams.getJSONObject(i);
+            final TeamStats team = new TeamStats(gameStats, Alignments.valueOf(teamJson.getString("alignment")),
+                    teamJson.getString("name"), teamJson.getInt("size"));
+            team.setWinner(teamJson.getBoolean("winner"));
+            final JSONArray players = teamJson.getJSONArray("players");
+            for (int j = 0; j < players.length(); j++) {
+                final JSONObject playerJson = players.getJSONObject(j);
+                final PlayerStats player = new PlayerStats(team, playerJson.getLong("userId"),
+                        playerJson.optString("nick", null), Alignments.valueOf(playerJson.getString("alignment")),
+                        Roles.valueOf(playerJson.getString("role")));
+                player.setTotalPosts(playerJson.getInt("posts"));
+                player.setTotalPostLength(playerJson.getInt("postLength"));
+                team.addPlayer(player);
+                playersStats.put(player.getUserId(), player);
+            }
+            gameStats.addTeam(team);
+        }
+        return gameStats;
+    }
+}
@@ -27,11 +27,10 @@ import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
@@ -48,10 +47,17 @@ public class GameUtils {
      * @return a random item of the provided ones
      */
     public static <E> E rand(final Collection<E> items) {
+        return rand(items, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as {@link GameUtils#rand(Collection)}, with a random of the caller's choice, to be able to repeat the rands
+     */
+    public static <E> E rand(final Collection<E> items, final Random random) {
         if (items.isEmpty()) {
             throw new IllegalArgumentException("Can't pick an item from zero items.");
         }
-        final int rand = ThreadLocalRandom.current().nextInt(items.size());
+        final int rand = random.nextInt(items.size());
         int i = 0;
         E result = null;
         for (final E item : items) {
@@ -64,53 +70,6 @@ public class GameUtils {
         return result;
     }
 
-    /**
-     * Objects vote for candidates
-     * <p>
-     * Find the candidate C with the most votes
-     * If there are no votes, pick a random C from all candidates
-     * If there is a tie, the one who was voted first will get selected
-     * Make sure to provide votes in an ordered Map (LinkedHashMap for example) for this to work properly
-     *
-     * @return the candidates C with the most votes
-     */
-    public static <C> List<C> mostVoted(final Map<?, C> votes, final Collection<C> allCandidates) {
-        long mostVotes = 0;
-        final Map<C, Long> votesAmountToCandidate = new HashMap<>(allCandidates.size());
-        for (final C candidate : allCandidates.stream().distinct().collect(Collectors.toSet())) {
-            final long votesAmount = votes.values().stream().filter(candidate::equals).count();
-            votesAmountToCandidate.put(candidate, votesAmount);
-            if (votesAmount > mostVotes) {
-                mostVotes = votesAmount;
-            }
-        }
-
-        final long most = mostVotes;
-        final List<C> result = new ArrayList<>();
-        for (final Map.Entry<C, Long> entry : votesAmountToCandidate.entrySet()) {
-            final C candidate = entry.getKey();
-            final long votesAmount = entry.getValue();
-            if (votesAmount == most) result.add(candidate);
-        }
-
-        return result;
-    }
-
-    /**
-     * @return highest amount of votes in any single candidate
-     */
-    public static <C> long mostVotes(final Map<?, C> votes) {
-        long mostVotes = 0;
-        for (final C candidate : votes.values().stream().distinct().collect(Collectors.toSet())) {
-            final long votesAmount = votes.values().stream().filter(candidate::equals).count();
-            if (votesAmount > mostVotes) {
-                mostVotes = votesAmount;
-            }
-        }
-        return mostVotes;
-    }
-
-
     public static <O> Map<String, O> mapToStrings(final Collection<O> objects, final List<String> strings) {
         if (objects.size() >= strings.size()) {
             throw new IllegalArgumentException("Too many objects to map them to emojis.");
@@ -134,8 +93,8 @@ public class GameUtils {
     /**
      * @return the exact player found, or null and post a message
      */
-    public static Player identifyPlayer(final Collection<Player> players, @Nonnull final CommandContext context) {
-        final List<Player> found = findPlayer(players, context);
+    public static Player identifyPlayer(@Nonnull final PlayerRoster roster, @Nonnull final CommandContext context) {
+        final List<Player> found = findPlayer(roster, context);
 
         final String explanation = String.format("Please use a mention or the player number which you can find with " +
                 "`%s` so that I can clearly know who you are targeting.", WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_STATUS);
@@ -157,63 +116,66 @@ public class GameUtils {
      * Will return an empty list if no match was found, a list with a single play if there was one match, or a list with
      * more than one of player in case of more than one hit. It is up to the caller to handle the cases.
      */
-    public static List<Player> findPlayer(final Collection<Player> players, @Nonnull final CommandContext context, final int... levenshteinThreshold) {
+    public static List<Player> findPlayer(@Nonnull final PlayerRoster roster, @Nonnull final CommandContext context, final int... levenshteinThreshold) {
+        final List<Long> mentionedUserIds = context.msg.getMentionedUsers().stream()
+                .map(User::getIdLong)
+                .collect(Collectors.toList());
+        return findPlayer(roster, mentionedUserIds, context.rawArgs, levenshteinThreshold);
+    }
+
+    /**
+     * Same as {@link GameUtils#findPlayer(PlayerRoster, CommandContext, int...)}, with the mentions and the raw input
+     * of the command already extracted from the message
+     */
+    public static List<Player> findPlayer(@Nonnull final PlayerRoster roster, @Nonnull final Collection<Long> mentionedUserIds,
+                                          @Nonnull final String input, final int... levenshteinThreshold) {
 
         //by mention
-        for (final User u : context.msg.getMentionedUsers()) {
-            final Optional<Player> maybe = players.stream().filter(player -> player.userId == u.getIdLong()).findAny();
-            if (maybe.isPresent()) {
-                return Collections.singletonList(maybe.get());
+        for (final long mentionedUserId : mentionedUserIds) {
+            final Player player = roster.byUserId(mentionedUserId);
+            if (player != null) {
+                return Collections.singletonList(player);
             }
         }
 
-        final String input = context.rawArgs;
         //by number
         try {
-            final int number = Integer.parseInt(input);
-            final Optional<Player> maybe = players.stream().filter(player -> player.number == number).findAny();
-            if (maybe.isPresent()) {
-                return Collections.singletonList(maybe.get());
+            final Player player = roster.byNumber(Integer.parseInt(input));
+            if (player != null) {
+                return Collections.singletonList(player);
             }
         } catch (final NumberFormatException ignored) {
         }
 
         //by userid
         try {
-            final long userId = Long.parseLong(input);
-            final Optional<Player> maybe = players.stream().filter(player -> player.userId == userId).findAny();
-            if (maybe.isPresent()) {
-                return Collections.singletonList(maybe.get());
+            final Player player = roster.byUserId(Long.parseLong(input));
+            if (player != null) {
+                return Collections.singletonList(player);
             }
         } catch (final NumberFormatException ignored) {
         }
 
 
-        //levenshtein test of name and nicks of the players
-        final Map<Player, Integer> distances = new HashMap<>();
-        for (final Player p : players) {
-            final int distanceName = TextchatUtils.levenshteinDist(p.getName(), input);
-            final int distanceNick = TextchatUtils.levenshteinDist(p.getNick(), input);
-            distances.put(p, distanceName < distanceNick ? distanceName : distanceNick);
-        }
-        int smallestDistance = Integer.MAX_VALUE;
-        for (final Map.Entry<Player, Integer> entry : distances.entrySet()) {
-            final int distance = entry.getValue();
+        //levenshtein test of name and nicks of the players, the bound shrinks to the closest match found so far
+        final String lowerCaseInput = input.toLowerCase();
+        int smallestDistance = levenshteinThreshold.length > 0 ? levenshteinThreshold[0] : 2;
+        final List<Player> result = new ArrayList<>();
+        for (final Player p : roster.all()) {
+            final String name = p.getNameLowerCase();
+            final String nick = p.getNickLowerCase();
+            int distance = TextchatUtils.levenshteinDist(name, lowerCaseInput, smallestDistance);
+            if (nick != name && distance > 0) {
+                distance = Math.min(distance, TextchatUtils.levenshteinDist(nick, lowerCaseInput, smallestDistance));
+            }
             if (distance < smallestDistance) {
                 smallestDistance = distance;
+                result.clear();
             }
-        }
-        final int threshold = levenshteinThreshold.length > 0 ? levenshteinThreshold[0] : 2;
-        if (smallestDistance > threshold) {
-            return Collections.emptyList(); //no player found
-        } else {
-            final List<Player> result = new ArrayList<>();
-            for (final Map.Entry<Player, Integer> entry : distances.entrySet()) {
-                final Player p = entry.getKey();
-                final int distance = entry.getValue();
-                if (distance == smallestDistance) result.add(p);
+            if (distance == smallestDistance) {
+                result.add(p);
             }
-            return result;
         }
+        return result;
     }
 }
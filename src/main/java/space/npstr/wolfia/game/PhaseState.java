@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.game.definitions.Phase;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The phase a game is in, the cycle of that phase, and whether the phase has ended already.
+ * <p>
+ * All three are packed into a single word and change together with a compare and set. A phase can be ended from
+ * several paths at the same time, for example in Mafia by the timer and by a majority vote, and in Popcorn by the timer
+ * and by a shot. Exactly one of them gets true from {@link PhaseState#end}, all others get false and are expected to
+ * back off, without any locks being held while the winner goes on to talk to discord.
+ * <p>
+ * A new phase can only be started after the current one has ended.
+ */
+public class PhaseState {
+
+    private static final long ENDED = 1;
+    private static final int PHASE_SHIFT = 1;
+    private static final long PHASE_MASK = 0x7F;
+    private static final int CYCLE_SHIFT = 32;
+
+    private static final Phase[] PHASES = Phase.values();
+
+    //cycle in the upper 32 bits, phase ordinal in bits 1-7, ended in bit 0
+    private final AtomicLong state;
+
+    public PhaseState(@Nonnull final Phase phase, final int cycle, final boolean ended) {
+        this.state = new AtomicLong(pack(phase, cycle, ended));
+    }
+
+    /**
+     * Overwrite the state, for setting up a game that is starting or being resumed. Pass ended = true to have the
+     * game in between phases, ready to start the next one.
+     */
+    public void reset(@Nonnull final Phase phase, final int cycle, final boolean ended) {
+        this.state.set(pack(phase, cycle, ended));
+    }
+
+    /**
+     * @return true if the phase was started, false if the current phase has not ended yet, or another call started a
+     * phase meanwhile
+     */
+    @CheckReturnValue
+    public boolean start(@Nonnull final Phase phase, final int cycle) {
+        final long current = this.state.get();
+        if ((current & ENDED) == 0) {
+            return false;
+        }
+        return this.state.compareAndSet(current, pack(phase, cycle, false));
+    }
+
+    /**
+     * @return true if this call ended the phase, false if it was not the current phase or has ended already
+     */
+    public boolean end(@Nonnull final Phase phase, final int cycle) {
+        return this.state.compareAndSet(pack(phase, cycle, false), pack(phase, cycle, true));
+    }
+
+    /**
+     * @return true if the provided phase is the current one and has not ended yet
+     */
+    public boolean isOngoing(@Nonnull final Phase phase) {
+        final long current = this.state.get();
+        return (current & ENDED) == 0 && phaseOf(current) == phase;
+    }
+
+    /**
+     * @return the current phase, which may have ended already
+     */
+    @Nonnull
+    public Phase getPhase() {
+        return phaseOf(this.state.get());
+    }
+
+    public int getCycle() {
+        return cycleOf(this.state.get());
+    }
+
+    public boolean hasEnded() {
+        return (this.state.get() & ENDED) != 0;
+    }
+
+    @Override
+    public String toString() {
+        final long current = this.state.get();
+        return phaseOf(current).textRep + " " + cycleOf(current) + ((current & ENDED) != 0 ? " (ended)" : "");
+    }
+
+    private static long pack(final Phase phase, final int cycle, final boolean ended) {
+        return ((long) cycle << CYCLE_SHIFT) | ((long) phase.ordinal() << PHASE_SHIFT) | (ended ? ENDED : 0);
+    }
+
+    private static Phase phaseOf(final long state) {
+        return PHASES[(int) ((state >>> PHASE_SHIFT) & PHASE_MASK)];
+    }
+
+    private static int cycleOf(final long state) {
+        return (int) (state >>> CYCLE_SHIFT);
+    }
+}
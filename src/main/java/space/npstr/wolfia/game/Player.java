@@ -38,7 +38,9 @@ import space.npstr.wolfia.utils.discord.TextchatUtils;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
@@ -63,7 +65,11 @@ public class Player {
 
     @Nonnull
     private String rolePm = "This player has no role pm.";
-    private boolean isAlive = true;
+    private final AtomicBoolean isAlive = new AtomicBoolean(true);
+    @Nullable
+    private volatile PlayerRoster roster; //the roster this player is part of, kept up to date when they die
+    @Nullable
+    private volatile Names names; //memoized by the game on start, null until then
 
     public Player(final long userId, final long channelId, final long guildId, @Nonnull final Alignments alignment,
                   @Nonnull final Roles role, final int number) {
@@ -80,11 +86,16 @@ public class Player {
     }
 
     public boolean isAlive() {
-        return this.isAlive;
+        return this.isAlive.get();
     }
 
     public boolean isDead() {
-        return !this.isAlive;
+        return !this.isAlive.get();
+    }
+
+    //called by the roster this player is added to
+    void setRoster(@Nonnull final PlayerRoster roster) {
+        this.roster = roster;
     }
 
     @Nonnull
@@ -108,12 +119,76 @@ public class Player {
         return this.items.stream().anyMatch(i -> i.item.equals(item));
     }
 
+    /**
+     * @return true if the player had an item of that type, which is now used up
+     */
+    public boolean useItem(@Nonnull final Item.Items item) {
+        final Optional<Item> found = this.items.stream().filter(i -> i.item == item).findAny();
+        found.ifPresent(this.items::remove);
+        return found.isPresent();
+    }
+
+    /**
+     * Look up the names of this player once and keep them, so that rendering them does not need to go to the shard
+     * caches or the database anymore. Afterwards they are kept up to date by {@link #updateName} and
+     * {@link #updateNick}. If the lookup fails, the names will be looked up on each call, as if this was never called.
+     */
+    public void memoizeNames() {
+        final Guild guild = Wolfia.getGuildById(this.guildId);
+        if (guild != null) {
+            final Member member = guild.getMemberById(this.userId);
+            if (member != null) {
+                memoizeNames(member.getUser().getName(), member.getNickname());
+                return;
+            }
+        }
+        try {
+            final CachedUser cu = CachedUser.load(this.userId);
+            final User user = Wolfia.getUserById(this.userId);
+            memoizeNames(user != null ? user.getName() : cu.getName(), cu.getNick(this.guildId));
+        } catch (final DatabaseException e) {
+            log.error("Db blew up why looking up cache user {}", this.userId, e);
+        }
+    }
+
+    /**
+     * Same as {@link #memoizeNames()}, with names that have been looked up already
+     */
+    public void memoizeNames(@Nonnull final String name, @Nullable final String nick) {
+        this.names = new Names(name, nick);
+    }
+
+    /**
+     * Called when the discord user (global) name of this player changed. Does nothing if the names are not memoized.
+     */
+    public synchronized void updateName(@Nonnull final String name) {
+        final Names current = this.names;
+        if (current != null) {
+            this.names = new Names(name, current.nick);
+        }
+    }
+
+    /**
+     * Called when the nick name of this player in the guild of the game changed. Does nothing if the names are not
+     * memoized.
+     */
+    public synchronized void updateNick(@Nullable final String nick) {
+        final Names current = this.names;
+        if (current != null) {
+            this.names = new Names(current.name, nick);
+        }
+    }
+
     /**
      * @return the discord user (global) name of this player.
      * May return a placeholder for unknown users in weird edge cases
      */
     @Nonnull
     public String getName() {
+        final Names memoized = this.names;
+        if (memoized != null) {
+            return memoized.name;
+        }
         final User user = Wolfia.getUserById(this.userId);
         if (user != null) {
             return user.getName();
@@ -131,6 +206,10 @@ public class Player {
      */
     @Nonnull
     public String getNick() {
+        final Names memoized = this.names;
+        if (memoized != null) {
+            return memoized.nick != null ? memoized.nick : memoized.name;
+        }
         final Guild guild = Wolfia.getGuildById(this.guildId);
         if (guild != null) {
             final Member member = guild.getMemberById(this.userId);
@@ -151,6 +230,24 @@ public class Player {
         }
     }
 
+    /**
+     * @return {@link #getName()} in lower case, for matching user input against it
+     */
+    @Nonnull
+    public String getNameLowerCase() {
+        final Names memoized = this.names;
+        return memoized != null ? memoized.nameLowerCase : getName().toLowerCase();
+    }
+
+    /**
+     * @return {@link #getNick()} in lower case, for matching user input against it
+     */
+    @Nonnull
+    public String getNickLowerCase() {
+        final Names memoized = this.names;
+        return memoized != null ? memoized.nickLowerCase : getNick().toLowerCase();
+    }
+
     /**
      * @return Name of this player in the form of **name** OR **nick** aka ** name**, where the name is this discord
      * users global name and the nick is the optional nick in the guild of the main game channel
@@ -158,6 +255,10 @@ public class Player {
      */
     @Nonnull
     public String bothNamesFormatted() {
+        final Names memoized = this.names;
+        if (memoized != null) {
+            return memoized.bothNamesFormatted;
+        }
         final Guild guild = Wolfia.getGuildById(this.guildId);
         if (guild != null) {
             final Member member = guild.getMemberById(this.userId);
@@ -179,7 +280,7 @@ public class Player {
     }
 
     @Nonnull
-    private String formatNameAndNick(@Nonnull final String name, @Nullable final String nick) {
+    private static String formatNameAndNick(@Nonnull final String name, @Nullable final String nick) {
         if (name.equals(nick) || nick == null) {
             return "**" + TextchatUtils.escapeMarkdown(name) + "**";
         } else {
@@ -220,10 +321,13 @@ public class Player {
     }
 
     public void kill() throws IllegalGameStateException {
-        if (!this.isAlive) {
+        if (!this.isAlive.compareAndSet(true, false)) {
             throw new IllegalGameStateException("Can't kill a dead player");
         }
-        this.isAlive = false;
+        final PlayerRoster r = this.roster;
+        if (r != null) {
+            r.markDead(this);
+        }
     }
 
     @Override
@@ -257,11 +361,40 @@ public class Player {
      * if the user is not present in the bot
      */
     public void sendMessage(@Nonnull final Message message, @Nonnull final Consumer<Throwable> onFail) {
+        sendMessage(message, null, onFail);
+    }
+
+    /**
+     * Same as {@link #sendMessage(Message, Consumer)}, with a handler for the message having been delivered
+     */
+    public void sendMessage(@Nonnull final Message message, @Nullable final Consumer<Message> onSuccess,
+                            @Nonnull final Consumer<Throwable> onFail) {
         final User user = Wolfia.getUserById(this.userId);
         if (user != null) {
-            RestActions.sendPrivateMessage(user, message, null, onFail);
+            RestActions.sendPrivateMessage(user, message, onSuccess, onFail);
         } else {
             onFail.accept(new UserNotPresentException(this.userId));
         }
     }
+
+    private static class Names {
+        @Nonnull
+        private final String name;
+        @Nullable
+        private final String nick;
+        @Nonnull
+        private final String bothNamesFormatted;
+        @Nonnull
+        private final String nameLowerCase;
+        @Nonnull
+        private final String nickLowerCase; //same instance as nameLowerCase if there is no different nick
+
+        private Names(@Nonnull final String name, @Nullable final String nick) {
+            this.name = name;
+            this.nick = nick;
+            this.bothNamesFormatted = formatNameAndNick(name, nick);
+            this.nameLowerCase = name.toLowerCase();
+            this.nickLowerCase = nick == null || nick.equals(name) ? this.nameLowerCase : nick.toLowerCase();
+        }
+    }
 }
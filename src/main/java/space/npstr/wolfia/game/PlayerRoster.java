@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.game.definitions.Alignments;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * The players of a game, indexed by user id and by player number.
+ * <p>
+ * Besides the lookups, the roster keeps bitsets of which players are alive and which alignment they have, with bit
+ * (number - 1) standing for the player with that number. Views like "living wolves" are intersections of those bitsets
+ * and can be iterated and counted without streaming over the whole player list or allocating intermediate collections.
+ * The alive bits and the living counts per alignment are updated by {@link Player#kill()}, so win conditions can be
+ * checked without looking at the individual players.
+ */
+public class PlayerRoster {
+
+    public static final PlayerRoster EMPTY = new PlayerRoster(Collections.emptyList());
+
+    private final List<Player> players;
+    private final Map<Long, Player> byUserId;
+    private final Map<Alignments, long[]> alignmentBits = new EnumMap<>(Alignments.class);
+    private final AtomicLongArray aliveBits;
+    private final AtomicInteger livingCount = new AtomicInteger();
+    private final Map<Alignments, AtomicInteger> livingCounts = new EnumMap<>(Alignments.class);
+
+    /**
+     * @param players
+     *         the players of the game, ordered by their numbers, which have to start at 1 and be gapless
+     */
+    public PlayerRoster(@Nonnull final List<Player> players) {
+        this.players = Collections.unmodifiableList(new ArrayList<>(players));
+        this.byUserId = new HashMap<>(players.size() * 2);
+        final int words = wordsFor(players.size());
+        this.aliveBits = new AtomicLongArray(words);
+        for (final Alignments alignment : Alignments.values()) {
+            this.alignmentBits.put(alignment, new long[words]);
+            this.livingCounts.put(alignment, new AtomicInteger());
+        }
+
+        for (int i = 0; i < this.players.size(); i++) {
+            final Player player = this.players.get(i);
+            if (player.number != i + 1) {
+                throw new IllegalArgumentException("Player " + player.userId + " has number " + player.number
+                        + " but is at position " + (i + 1) + " of the roster");
+            }
+            if (this.byUserId.put(player.userId, player) != null) {
+                throw new IllegalArgumentException("Player " + player.userId + " is in the roster more than once");
+            }
+            this.alignmentBits.get(player.alignment)[i >>> 6] |= 1L << i;
+            if (player.isAlive()) {
+                this.aliveBits.set(i >>> 6, this.aliveBits.get(i >>> 6) | 1L << i);
+                this.livingCount.incrementAndGet();
+                this.livingCounts.get(player.alignment).incrementAndGet();
+            }
+            player.setRoster(this);
+        }
+    }
+
+    /**
+     * @return all players, dead or alive, ordered by their number
+     */
+    @Nonnull
+    public List<Player> all() {
+        return this.players;
+    }
+
+    public int size() {
+        return this.players.size();
+    }
+
+    @Nullable
+    public Player byUserId(final long userId) {
+        return this.byUserId.get(userId);
+    }
+
+    @Nullable
+    public Player byNumber(final int number) {
+        if (number < 1 || number > this.players.size()) {
+            return null;
+        }
+        return this.players.get(number - 1);
+    }
+
+    public boolean contains(final long userId) {
+        return this.byUserId.containsKey(userId);
+    }
+
+    public boolean isLiving(final long userId) {
+        final Player player = this.byUserId.get(userId);
+        return player != null && isAliveBitSet(player.number - 1);
+    }
+
+    public boolean isLiving(final long userId, @Nonnull final Alignments alignment) {
+        final Player player = this.byUserId.get(userId);
+        return player != null && player.alignment == alignment && isAliveBitSet(player.number - 1);
+    }
+
+    /**
+     * Run the action for each living player, in the order of their numbers
+     */
+    public void forEachLiving(@Nonnull final Consumer<Player> action) {
+        forEach(null, true, action);
+    }
+
+    /**
+     * Run the action for each living player of the alignment, in the order of their numbers
+     */
+    public void forEachLiving(@Nonnull final Alignments alignment, @Nonnull final Consumer<Player> action) {
+        forEach(this.alignmentBits.get(alignment), true, action);
+    }
+
+    @Nonnull
+    public List<Player> living() {
+        final List<Player> result = new ArrayList<>(countAlive(null));
+        forEach(null, true, result::add);
+        return result;
+    }
+
+    @Nonnull
+    public List<Player> living(@Nonnull final Alignments alignment) {
+        final long[] alignmentBits = this.alignmentBits.get(alignment);
+        final List<Player> result = new ArrayList<>(countAlive(alignmentBits));
+        forEach(alignmentBits, true, result::add);
+        return result;
+    }
+
+    /**
+     * Run the action for each player of the alignment, dead or alive, in the order of their numbers
+     */
+    public void forEach(@Nonnull final Alignments alignment, @Nonnull final Consumer<Player> action) {
+        forEach(this.alignmentBits.get(alignment), false, action);
+    }
+
+    /**
+     * @return players of the alignment, dead or alive
+     */
+    @Nonnull
+    public List<Player> ofAlignment(@Nonnull final Alignments alignment) {
+        final List<Player> result = new ArrayList<>();
+        forEach(this.alignmentBits.get(alignment), false, result::add);
+        return result;
+    }
+
+    @Nonnull
+    public Set<Long> livingIds() {
+        final Set<Long> result = new HashSet<>();
+        forEach(null, true, p -> result.add(p.userId));
+        return result;
+    }
+
+    @Nonnull
+    public Set<Long> livingIds(@Nonnull final Alignments alignment) {
+        final Set<Long> result = new HashSet<>();
+        forEach(this.alignmentBits.get(alignment), true, p -> result.add(p.userId));
+        return result;
+    }
+
+    /**
+     * @return user ids of the players of the alignment, dead or alive
+     */
+    @Nonnull
+    public Set<Long> ids(@Nonnull final Alignments alignment) {
+        final Set<Long> result = new HashSet<>();
+        forEach(this.alignmentBits.get(alignment), false, p -> result.add(p.userId));
+        return result;
+    }
+
+    public int countLiving() {
+        return this.livingCount.get();
+    }
+
+    public int countLiving(@Nonnull final Alignments alignment) {
+        return this.livingCounts.get(alignment).get();
+    }
+
+    //called by the player when they die, exactly once
+    void markDead(@Nonnull final Player player) {
+        final int index = player.number - 1;
+        this.aliveBits.getAndUpdate(index >>> 6, word -> word & ~(1L << index));
+        this.livingCounts.get(player.alignment).decrementAndGet();
+        this.livingCount.decrementAndGet();
+    }
+
+    private boolean isAliveBitSet(final int index) {
+        return (this.aliveBits.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    private int countAlive(@Nullable final long[] filter) {
+        int count = 0;
+        for (int w = 0; w < this.aliveBits.length(); w++) {
+            long word = this.aliveBits.get(w);
+            if (filter != null) {
+                word &= filter[w];
+            }
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private void forEach(@Nullable final long[] filter, final boolean livingOnly, @Nonnull final Consumer<Player> action) {
+        final int words = wordsFor(this.players.size());
+        for (int w = 0; w < words; w++) {
+            long word = livingOnly ? this.aliveBits.get(w) : -1L;
+            if (filter != null) {
+                word &= filter[w];
+            }
+            while (word != 0) {
+                final int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (index >= this.players.size()) {
+                    break;
+                }
+                action.accept(this.players.get(index));
+                word &= word - 1; //clear lowest set bit
+            }
+        }
+    }
+
+    private static int wordsFor(final int players) {
+        return (players + 63) >>> 6;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import space.npstr.wolfia.game.definitions.Alignments;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A condition that ends a game. Checked after every death, so implementations should stick to the living counts of
+ * the roster instead of looking at the individual players.
+ */
+public interface WinCondition {
+
+    /**
+     * @return the winning alignment if this condition is met, null otherwise
+     */
+    @Nullable
+    Alignments winner(@Nonnull PlayerRoster roster);
+
+    /**
+     * @param wwFlair
+     *         true for werewolf flair, false for mafia flair
+     *
+     * @return the announcement to post in the game channel when this condition ends the game
+     */
+    @Nonnull
+    String announcement(boolean wwFlair);
+}
@@ -27,8 +27,11 @@ import space.npstr.wolfia.game.popcorn.PopcornInfo;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -50,6 +53,9 @@ public enum Games {
     }
 
     private static final Map<Long, Game> GAME_REGISTRY = new ConcurrentHashMap<>();
+    //secondary indexes of the registry, kept up to date by set() and remove()
+    private static final Map<Long, Set<Game>> GAMES_BY_GUILD = new ConcurrentHashMap<>();
+    private static final Map<Long, Game> GAMES_BY_PRIVATE_GUILD = new ConcurrentHashMap<>();
 
     private static final Map<Class<? extends Game>, GameInfo> GAME_INFOS = new HashMap<>();
 
@@ -92,16 +98,70 @@ public enum Games {
         return GAME_REGISTRY.get(Long.valueOf(channelId));
     }
 
+    /**
+     * @return games running in channels of the specified guild, a live view that may be empty
+     */
+    @Nonnull
+    public static Collection<Game> getByGuild(final long guildId) {
+        final Set<Game> games = GAMES_BY_GUILD.get(guildId);
+        return games != null ? Collections.unmodifiableSet(games) : Collections.emptySet();
+    }
+
+    /**
+     * @return game that uses the specified private guild as its wolf chat; may return null
+     */
+    @Nullable
+    public static Game getByPrivateGuild(final long privateGuildId) {
+        return GAMES_BY_PRIVATE_GUILD.get(privateGuildId);
+    }
+
+    /**
+     * @return a game that the user is playing in; may return null
+     */
+    @Nullable
+    public static Game getByPlayer(final long userId) {
+        for (final Game game : GAME_REGISTRY.values()) {
+            if (game.isUserPlaying(userId)) {
+                return game;
+            }
+        }
+        return null;
+    }
+
     public static void remove(final Game game) {
-        GAME_REGISTRY.remove(game.getChannelId());
+        remove(game.getChannelId());
     }
 
     public static void remove(final long channelId) {
-        GAME_REGISTRY.remove(channelId);
+        final Game removed = GAME_REGISTRY.remove(channelId);
+        if (removed != null) {
+            unindex(removed);
+        }
     }
 
     public static void set(final Game game) {
-        GAME_REGISTRY.put(game.getChannelId(), game);
+        final Game replaced = GAME_REGISTRY.put(game.getChannelId(), game);
+        if (replaced != null && replaced != game) {
+            unindex(replaced);
+        }
+        //add inside of compute, so an unindex of the last game of the guild can't drop the set we are adding to
+        GAMES_BY_GUILD.compute(game.getGuildId(), (guildId, games) -> {
+            final Set<Game> result = games != null ? games : ConcurrentHashMap.newKeySet();
+            result.add(game);
+            return result;
+        });
+        final long privateGuildId = game.getPrivateGuildId();
+        if (privateGuildId != -1) {
+            GAMES_BY_PRIVATE_GUILD.put(privateGuildId, game);
+        }
+    }
+
+    private static void unindex(final Game game) {
+        GAMES_BY_GUILD.computeIfPresent(game.getGuildId(), (guildId, games) -> {
+            games.remove(game);
+            return games.isEmpty() ? null : games;
+        });
+        GAMES_BY_PRIVATE_GUILD.remove(game.getPrivateGuildId(), game);
     }
 
     public static int getRunningGamesCount() {
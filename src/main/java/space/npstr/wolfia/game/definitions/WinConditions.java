@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.definitions;
+
+import space.npstr.wolfia.game.PlayerRoster;
+import space.npstr.wolfia.game.WinCondition;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Win conditions shared by the games, in the order they are checked
+ */
+public enum WinConditions implements WinCondition {
+
+    //this check will probably get much more sophisticated with more complicated roles
+    PARITY_REACHED(Alignments.WOLF,
+            "Parity reached! **Wolves win.** Thanks for playing.",
+            "Parity reached! **Mafia wins.** Thanks for playing.") {
+        @Override
+        protected boolean isMet(@Nonnull final PlayerRoster roster) {
+            return roster.countLiving(Alignments.WOLF) >= roster.countLiving(Alignments.VILLAGE);
+        }
+    },
+    ONLY_VILLAGE_LEFT(Alignments.VILLAGE,
+            "All wolves dead! **Village wins.** Thanks for playing!",
+            "All mafia dead! **Town wins.** Thanks for playing!") {
+        @Override
+        protected boolean isMet(@Nonnull final PlayerRoster roster) {
+            return roster.countLiving(Alignments.VILLAGE) == roster.countLiving();
+        }
+    };
+
+    public final Alignments winner;
+    private final String announcementWW;
+    private final String announcementMaf;
+
+    WinConditions(final Alignments winner, final String announcementWW, final String announcementMaf) {
+        this.winner = winner;
+        this.announcementWW = announcementWW;
+        this.announcementMaf = announcementMaf;
+    }
+
+    protected abstract boolean isMet(@Nonnull PlayerRoster roster);
+
+    @Nullable
+    @Override
+    public Alignments winner(@Nonnull final PlayerRoster roster) {
+        return isMet(roster) ? this.winner : null;
+    }
+
+    @Nonnull
+    @Override
+    public String announcement(final boolean wwFlair) {
+        return wwFlair ? this.announcementWW : this.announcementMaf;
+    }
+}
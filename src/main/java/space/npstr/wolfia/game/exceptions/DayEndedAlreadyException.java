@@ -1,29 +0,0 @@
-/*
- * Copyright (C) 2017 Dennis Neufeld
- *
- * This program is free software: you can redistribute it and/or modify
- * it under the terms of the GNU Affero General Public License as published
- * by the Free Software Foundation, either version 3 of the License, or
- * (at your option) any later version.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Affero General Public License for more details.
- *
- * You should have received a copy of the GNU Affero General Public License
- * along with this program.  If not, see <http://www.gnu.org/licenses/>.
- */
-
-package space.npstr.wolfia.game.exceptions;
-
-/**
- * Created by napster on 06.08.17.
- * <p>
- * Thrown when trying to end a day that has ended already. This conflict usually comes from concurrent paths to a days
- * end, for example in Popcorn a day can end by timer or by a user shooting someone; in Mafia day can end by timer or by
- * majority lynch. There is special carefulness required to handle a consistent game state.
- */
-public class DayEndedAlreadyException extends IllegalGameStateException {
-
-}
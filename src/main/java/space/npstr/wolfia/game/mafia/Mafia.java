@@ -21,7 +21,11 @@ import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.ChannelType;
 import net.dv8tion.jda.core.entities.Guild;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageEmbed;
 import net.dv8tion.jda.core.entities.TextChannel;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import space.npstr.sqlsauce.DatabaseException;
 import space.npstr.wolfia.Wolfia;
 import space.npstr.wolfia.commands.CommRegistry;
@@ -43,6 +47,8 @@ import space.npstr.wolfia.db.entities.stats.TeamStats;
 import space.npstr.wolfia.events.UpdatingReactionListener;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.GameRules;
+import space.npstr.wolfia.game.GameSnapshots;
 import space.npstr.wolfia.game.GameUtils;
 import space.npstr.wolfia.game.Player;
 import space.npstr.wolfia.game.definitions.Actions;
@@ -51,31 +57,36 @@ import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.definitions.Item;
 import space.npstr.wolfia.game.definitions.Phase;
 import space.npstr.wolfia.game.definitions.Roles;
-import space.npstr.wolfia.game.exceptions.DayEndedAlreadyException;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.game.tools.RolePmFanOut;
+import space.npstr.wolfia.game.tools.VoteTally;
 import space.npstr.wolfia.game.tools.VotingBuilder;
 import space.npstr.wolfia.utils.PeriodicTimer;
+import space.npstr.wolfia.utils.TimingWheel;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.Emojis;
+import space.npstr.wolfia.utils.discord.PermissionOverrides;
 import space.npstr.wolfia.utils.discord.RestActions;
-import space.npstr.wolfia.utils.discord.RoleAndPermissionUtils;
+import space.npstr.wolfia.utils.discord.RestScheduler;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 import space.npstr.wolfia.utils.log.DiscordLogger;
 
 import javax.annotation.Nonnull;
-import java.util.Arrays;
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Created by napster on 02.07.17.
@@ -88,20 +99,17 @@ public class Mafia extends Game {
 
     private long dayLengthMillis = TimeUnit.MINUTES.toMillis(10); //10 minutes default
     private final long nightLengthMillis = TimeUnit.MINUTES.toMillis(1); //1 minute default
-    //current cycle and phase, describing n0, d1, n1, d2, n2 etc...
-    private int cycle = 0;
-    private Phase phase = Phase.NIGHT;
     private long phaseStarted = -1;
 
-    private final Map<Player, Player> votes = new LinkedHashMap<>();//using linked to keep first votes at the top
-    private final Map<Player, ActionStats> voteActions = new HashMap<>();
+    private final VoteTally<Player, Player> votes = new VoteTally<>();
+    private final Map<Player, ActionStats> voteActions = new ConcurrentHashMap<>();
 
-    private final Map<Player, Player> nightkillVotes = new LinkedHashMap<>();//using linked to keep first votes at the top
-    private final Map<Player, ActionStats> nightKillVoteActions = new HashMap<>();
-    private final Map<Player, ActionStats> nightActions = new HashMap<>();
+    private final VoteTally<Player, Player> nightkillVotes = new VoteTally<>();
+    private final Map<Player, ActionStats> nightKillVoteActions = new ConcurrentHashMap<>();
+    private final Map<Player, ActionStats> nightActions = new ConcurrentHashMap<>();
 
-    private Future phaseEndTimer;
-    private Future phaseEndReminder;
+    private TimingWheel.Timeout phaseEndTimer;
+    private TimingWheel.Timeout phaseEndReminder;
     private final VotingBuilder votingBuilder = new VotingBuilder()
             .unvoteEmoji(Emojis.X)
             .header("Day ends in **%timeleft** with a lynch.")
@@ -110,8 +118,10 @@ public class Mafia extends Game {
                     + "%nMajority is enabled.", WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_VOTE));
 
     private final VotingBuilder nightKillVotingBuilder = new VotingBuilder()
+            .voterAlignment(Alignments.WOLF)
+            .candidateAlignment(Alignments.VILLAGE)
             .unvoteEmoji(Emojis.X)
-            .header("Night ends in **%timeleft**.")
+            .header("Voting ends with the night.")
             .notes(String.format("**Use `%s` to cast a vote on a player.**"
                     + "%nOnly your last vote will be counted.", WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_NIGHTKILL));
 
@@ -131,8 +141,9 @@ public class Mafia extends Game {
             neb.addField("", "**Game is not running**", false);
             return neb;
         }
-        neb.addField("Phase", this.phase.textRep + " " + this.cycle, true);
-        final long timeLeft = this.phaseStarted + (this.phase == Phase.DAY ? this.dayLengthMillis : this.nightLengthMillis) - System.currentTimeMillis();
+        final Phase phase = this.phaseState.getPhase();
+        neb.addField("Phase", phase.textRep + " " + this.phaseState.getCycle(), true);
+        final long timeLeft = this.phaseStarted + (phase == Phase.DAY ? this.dayLengthMillis : this.nightLengthMillis) - System.currentTimeMillis();
         neb.addField("Time left", TextchatUtils.formatMillis(timeLeft), true);
 
         final NiceEmbedBuilder.ChunkingField living = new NiceEmbedBuilder.ChunkingField("Living Players", true);
@@ -148,7 +159,7 @@ public class Mafia extends Game {
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized void start(final long channelId, final GameInfo.GameMode mode, final Set<Long> innedPlayers)
+    public synchronized CompletionStage<Void> start(final long channelId, final GameInfo.GameMode mode, final Set<Long> innedPlayers)
             throws UserFriendlyException, DatabaseException {
         try {//wrap into our own exceptions
             doArgumentChecksAndSet(channelId, mode, innedPlayers);
@@ -156,22 +167,35 @@ public class Mafia extends Game {
             throw new UserFriendlyException(e.getMessage(), e);
         }
 
-        doPermissionCheckAndPrepareChannel(true); //all werewolf games are moderated
+        final CompletionStage<Void> channelPrepared = doPermissionCheckAndPrepareChannel(true); //all werewolf games are moderated
 
-        this.cycle = 0;
-        this.phase = Phase.NIGHT;
+        //the phases go n0, d1, n1, d2, n2 etc..., n0 is over once the role pms have been sent
+        this.phaseState.reset(Phase.NIGHT, 0, true);
 
         // - rand the characters
         randCharacters(innedPlayers);
 
+        final TextChannel gameChannel = fetchGameChannel();
+        final CompletionStage<String> inviteLink = TextchatUtils.getOrCreateInviteLinkForChannelAsync(gameChannel);
         //get a hold of a private server...
-        this.wolfChat = allocatePrivateGuild();
-        this.wolfChat.beginUsage(getWolvesIds());
+        final CompletionStage<String> wolfchatInvite = channelPrepared
+                .thenCompose(__ -> allocatePrivateGuild())
+                .thenCompose(privateGuild -> {
+                    this.wolfChat = privateGuild;
+                    return privateGuild.beginUsage(getWolvesIds());
+                })
+                .thenCompose(__ -> this.wolfChat.getInviteAsync());
 
-        final TextChannel gameChannel = fetchGameChannel();
+        //the rest is quick, but don't run it on the threads of JDA
+        return wolfchatInvite
+                .thenCombineAsync(inviteLink, (wolfchat, invite) -> begin(gameChannel, invite, wolfchat), Wolfia.executor)
+                .thenCompose(Function.identity());
+    }
+
+    //second part of the start, once the private guild and invites are in place
+    private synchronized CompletionStage<Void> begin(final TextChannel gameChannel, final String inviteLink,
+                                                     final String wolfchatInvite) {
         //inform each player about his role
-        final String inviteLink = TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel);
-        final String wolfchatInvite = this.wolfChat.getInvite();
         final StringBuilder mafiaTeamNames = new StringBuilder("Your team is:\n");
         final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
                 gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
@@ -180,7 +204,8 @@ public class Mafia extends Game {
             mafiaTeamNames.append(player.bothNamesFormatted()).append("\n");
         }
 
-        for (final Player player : this.players) {
+        final RolePmFanOut rolePms = new RolePmFanOut(this.timers);
+        for (final Player player : this.roster.all()) {
             final StringBuilder rolePm = new StringBuilder()
                     .append("Hi ").append(player.getName()).append("!\n")
                     .append(player.alignment.rolePmBlockMaf).append("\n")
@@ -192,7 +217,7 @@ public class Mafia extends Game {
             rolePm.append(guildChannelAndInvite);
 
             player.setRolePm(rolePm.toString());
-            player.sendMessage(rolePm.toString(),
+            rolePms.add(player, rolePm.toString(),
                     e -> RestActions.sendMessage(gameChannel,
                             String.format("%s, **I cannot send you a private message**, please adjust your privacy settings " +
                                             "and/or unblock me, then issue `%s` to receive your role PM.",
@@ -200,13 +225,12 @@ public class Mafia extends Game {
             );
         }
 
-
         final Guild g = gameChannel.getGuild();
         //set up stats objects
         this.gameStats = new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
-                Games.MAFIA, this.mode.name(), this.players.size());
+                Games.MAFIA, this.mode.name(), this.roster.size());
         final Map<Alignments, TeamStats> teams = new HashMap<>();
-        for (final Player player : this.players) {
+        for (final Player player : this.roster.all()) {
             final Alignments alignment = player.alignment;
             final TeamStats team = teams.getOrDefault(alignment,
                     new TeamStats(this.gameStats, alignment, alignment.textRepMaf, -1));
@@ -220,25 +244,124 @@ public class Mafia extends Game {
             team.setTeamSize(team.getPlayers().size());
             this.gameStats.addTeam(team);
         }
+        openGameRecord();
+        //the game is on record now, so players can be told their roles
+        final CompletableFuture<Void> rolePmsSent = rolePms.send();
 
         // - start the game
         Games.set(this);
         DiscordLogger.getLogger().log("%s `%s` Game started in guild **%s** `%s`, channel **#%s** `%s`, **%s %s %s** players",
                 Emojis.VIDEO_GAME, TextchatUtils.berlinTime(),
                 g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
-                Games.getInfo(this).textRep(), mode.textRep, this.players.size());
+                Games.getInfo(this).textRep(), this.mode.textRep, this.roster.size());
         this.running = true;
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMESTART, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMESTART, -1));
         //mention the players in the thread
-        RestActions.sendMessage(gameChannel, "Game has started!\n" + listLivingPlayers());
+        final CompletableFuture<Void> announced = new CompletableFuture<>();
+        RestActions.sendMessage(gameChannel, "Game has started!\n" + listLivingPlayers(),
+                __ -> announced.complete(null),
+                t -> {
+                    log.warn("Could not announce the start of game #{}", this.journal.getGameId(), t);
+                    announced.complete(null);
+                });
+
+        //start the time only after everyone got their role pm, and the message was actually sent
+        final Consumer c = aVoid -> this.timers.schedule(this::startDay, 20, TimeUnit.SECONDS);
+        rolePmsSent.thenRun(() -> {
+            if (this.running) RestActions.sendMessage(gameChannel, "Time to read your role PMs! Day starts in 20 seconds.", c, c);
+        });
+        return announced;
+    }
+
+    @Nonnull
+    @Override
+    public JSONObject snapshot() {
+        final long phaseLength = this.phaseState.getPhase() == Phase.DAY ? this.dayLengthMillis : this.nightLengthMillis;
+        final JSONObject snapshot = super.snapshot()
+                .put("dayLengthMillis", this.dayLengthMillis)
+                .put("phaseTimeLeft", this.phaseStarted + phaseLength - System.currentTimeMillis())
+                .put("votes", votesToJson(this.votes.snapshot().getVotes(), this.voteActions))
+                .put("nightkillVotes", votesToJson(this.nightkillVotes.snapshot().getVotes(), this.nightKillVoteActions));
+        final JSONArray nightActionsJson = new JSONArray();
+        this.nightActions.values().forEach(action -> nightActionsJson.put(GameSnapshots.toJson(action)));
+        return snapshot.put("nightActions", nightActionsJson);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public synchronized void resume(@Nonnull final JSONObject snapshot) throws IllegalGameStateException {
+        super.resume(snapshot);
+        this.dayLengthMillis = snapshot.getLong("dayLengthMillis");
+        final long phaseLength = this.phaseState.getPhase() == Phase.DAY ? this.dayLengthMillis : this.nightLengthMillis;
+        //the clock was stopped while the bot was down
+        final long timeLeft = Math.max(0, snapshot.getLong("phaseTimeLeft"));
+        this.phaseStarted = System.currentTimeMillis() - phaseLength + timeLeft;
+
+        votesFromJson(snapshot.getJSONArray("votes"), this.votes, this.voteActions);
+        votesFromJson(snapshot.getJSONArray("nightkillVotes"), this.nightkillVotes, this.nightKillVoteActions);
+        final JSONArray nightActionsJson = snapshot.getJSONArray("nightActions");
+        for (int i = 0; i < nightActionsJson.length(); i++) {
+            final ActionStats action = GameSnapshots.actionFromJson(this.gameStats, nightActionsJson.getJSONObject(i));
+            this.nightActions.put(getPlayer(action.getActor()), action);
+        }
+        this.votingBuilder.endTime(this.phaseStarted + this.dayLengthMillis)
+                .roster(this.roster);
+        this.nightKillVotingBuilder.endTime(this.phaseStarted + this.nightLengthMillis)
+                .roster(this.roster);
+
+        Games.set(this);
+        final TextChannel gameChannel = fetchGameChannel();
+        if (this.phaseState.isOngoing(Phase.DAY)) {
+            RestActions.sendMessage(gameChannel, String.format("The game has been resumed! Day %s ends in %s.",
+                    this.phaseState.getCycle(), TextchatUtils.formatMillis(timeLeft)));
+            scheduleDayEnd(timeLeft);
+        } else if (this.phaseState.isOngoing(Phase.NIGHT)) {
+            RestActions.sendMessage(gameChannel, "The game has been resumed!");
+            if (timeLeft > 0) {
+                postUpdatingNightMessage();
+                postNightkillVoting();
+            } else {
+                //the night ran out while the bot was down, the votes and actions cast so far still count
+                resolveNightkill(this.phaseState.getCycle(), null);
+            }
+        } else {
+            //resumed in between phases, or before the first day started
+            this.phaseState.end(Phase.NIGHT, this.phaseState.getCycle());
+            final Consumer c = aVoid -> this.timers.schedule(this::startDay, 10, TimeUnit.SECONDS);
+            RestActions.sendMessage(gameChannel, String.format("The game has been resumed! Day starts in 10 seconds.\n%s",
+                    String.join(", ", getLivingPlayerMentions())),
+                    c, c);
+        }
+    }
+
+    @Nonnull
+    private static JSONArray votesToJson(@Nonnull final Map<Player, Player> votes, @Nonnull final Map<Player, ActionStats> actions) {
+        final JSONArray result = new JSONArray();
+        for (final Map.Entry<Player, Player> vote : votes.entrySet()) {
+            final ActionStats action = actions.get(vote.getKey());
+            result.put(new JSONObject()
+                    .put("voter", vote.getKey().userId)
+                    .put("candidate", vote.getValue().userId)
+                    .put("action", action != null ? GameSnapshots.toJson(action) : null));
+        }
+        return result;
+    }
 
-        //start the time only after the message was actually sent
-        final Consumer c = aVoid -> this.executor.schedule(this::startDay, 20, TimeUnit.SECONDS);
-        RestActions.sendMessage(gameChannel, "Time to read your role PMs! Day starts in 20 seconds.", c, c);
+    private void votesFromJson(@Nonnull final JSONArray json, @Nonnull final VoteTally<Player, Player> votes,
+                               @Nonnull final Map<Player, ActionStats> actions) throws IllegalGameStateException {
+        for (int i = 0; i < json.length(); i++) {
+            final JSONObject vote = json.getJSONObject(i);
+            final Player voter = getPlayer(vote.getLong("voter"));
+            votes.vote(voter, getPlayer(vote.getLong("candidate")));
+            final JSONObject action = vote.optJSONObject("action");
+            if (action != null) {
+                actions.put(voter, GameSnapshots.actionFromJson(this.gameStats, action));
+            }
+        }
     }
 
     @Override
-    public boolean issueCommand(@Nonnull final CommandContext context)
+    protected boolean handleCommand(@Nonnull final CommandContext context)
             throws IllegalGameStateException {
         final Player invoker;
         try {
@@ -258,7 +381,7 @@ public class Mafia extends Game {
                 context.replyWithMention("you can issue that command only in the main game channel.");
                 return false; //ignore vote commands not in game chat
             }
-            final Player candidate = GameUtils.identifyPlayer(this.players, context);
+            final Player candidate = GameUtils.identifyPlayer(this.roster, context);
             if (candidate == null) return false;
 
             return vote(invoker, candidate, context);
@@ -280,7 +403,7 @@ public class Mafia extends Game {
                 return false;
             }
 
-            if (this.phase != Phase.NIGHT) {
+            if (!this.phaseState.isOngoing(Phase.NIGHT)) {
                 context.replyWithMention("checks can only be issued during the night.");
                 return false;
             }
@@ -290,7 +413,7 @@ public class Mafia extends Game {
                 return false;
             }
 
-            final Player target = GameUtils.identifyPlayer(this.players, context);
+            final Player target = GameUtils.identifyPlayer(this.roster, context);
             if (target == null) return false;
 
             return check(invoker, target, context);
@@ -300,7 +423,7 @@ public class Mafia extends Game {
                 return false;
             }
 
-            if (this.phase != Phase.NIGHT) {
+            if (!this.phaseState.isOngoing(Phase.NIGHT)) {
                 context.replyWithMention("presents can only be given during the night.");
                 return false;
             }
@@ -310,7 +433,7 @@ public class Mafia extends Game {
                 return false;
             }
 
-            final Player target = GameUtils.identifyPlayer(this.players, context);
+            final Player target = GameUtils.identifyPlayer(this.roster, context);
             if (target == null) return false;
 
             return givePresent(invoker, target, context);
@@ -332,34 +455,34 @@ public class Mafia extends Game {
                 return false;
             }
 
-            if (this.phase != Phase.DAY) {
+            if (!this.phaseState.isOngoing(Phase.DAY)) {
                 context.reply("You can only shoot during the day.");
                 return false;
             }
 
-            final Player target = GameUtils.identifyPlayer(this.players, context);
+            final Player target = GameUtils.identifyPlayer(this.roster, context);
             if (target == null) return false;
 
             return shoot(invoker, target, context);
         } else if (context.command instanceof VoteCountCommand) {
 
             //wolves asked for one, give them a votecount of their nk votes
-            if (this.phase == Phase.NIGHT && context.getGuild() != null && context.getGuild().getIdLong() == this.wolfChat.getId()) {
-                context.reply(this.nightKillVotingBuilder.getEmbed(new HashMap<>(this.nightkillVotes)).build());
+            if (this.phaseState.getPhase() == Phase.NIGHT && context.getGuild() != null && context.getGuild().getIdLong() == this.wolfChat.getId()) {
+                context.reply(this.nightKillVotingBuilder.getEmbed(this.nightkillVotes.snapshot()).build());
                 return true;
             }
 
-            if (this.phase != Phase.DAY) {
+            if (this.phaseState.getPhase() != Phase.DAY) {
                 context.replyWithMention("vote counts are only shown during the day phase.");
                 return false;
             }
-            context.reply(this.votingBuilder.getEmbed(new HashMap<>(this.votes)).build());
+            context.reply(this.votingBuilder.getEmbed(this.votes.snapshot()).build());
             return true;
 
         } else if (context.command instanceof NightkillCommand) {
             //equivalent to the vote command m just for baddies in the night
 
-            final Player candidate = GameUtils.identifyPlayer(this.players, context);
+            final Player candidate = GameUtils.identifyPlayer(this.roster, context);
             if (candidate == null) return false;
 
             return nkVote(invoker, candidate, context);
@@ -372,7 +495,7 @@ public class Mafia extends Game {
     private boolean vote(@Nonnull final Player voter, @Nonnull final Player candidate, @Nonnull final Context context) {
 
         final TextChannel gameChannel = fetchGameChannel();
-        if (this.phase != Phase.DAY) {
+        if (!this.phaseState.isOngoing(Phase.DAY)) {
             context.reply(voter.asMention() + ", you can only vote during the day.");
             return false;
         }
@@ -384,22 +507,12 @@ public class Mafia extends Game {
 
         RestActions.sendMessage(gameChannel, String.format("%s votes %s for lynch.", voter.asMention(), candidate.asMention()));
 
-        synchronized (this.votes) {
-            this.votes.remove(voter);
-            this.votes.put(voter, candidate);
-            this.voteActions.put(voter, simpleAction(voter.userId, Actions.VOTELYNCH, candidate.userId));
-
-            //check for majj
-            final int livingPlayersCount = getLivingPlayers().size();
-            final int majThreshold = (livingPlayersCount / 2);
-            final long mostVotes = GameUtils.mostVotes(this.votes);
-            if (mostVotes > majThreshold) {
-                RestActions.sendMessage(gameChannel, Emojis.ANGRY_BUBBLE + "Majority was reached!");
-                try {
-                    endDay();
-                } catch (final DayEndedAlreadyException ignored) {
-                }
-            }
+        this.votes.vote(voter, candidate);
+        this.voteActions.put(voter, simpleAction(voter.userId, Actions.VOTELYNCH, candidate.userId));
+
+        //check for majj
+        if (GameRules.isMajority(this.votes, this.roster.countLiving())) {
+            endDay(this.phaseState.getCycle(), DayEndReason.MAJORITY);
         }
         return true;
     }
@@ -408,22 +521,19 @@ public class Mafia extends Game {
 
         final boolean shutUp = silent.length > 0 && silent[0];
         final TextChannel gameChannel = fetchGameChannel();
-        if (this.phase != Phase.DAY) {
+        if (!this.phaseState.isOngoing(Phase.DAY)) {
             if (!shutUp)
                 context.reply(unvoter.asMention() + ", you can only unvote during the day.");
             return false;
         }
 
-        final Player unvoted;
-        synchronized (this.votes) {
-            if (this.votes.get(unvoter) == null) {
-                if (!shutUp)
-                    context.reply(unvoter.asMention() + ", you can't unvote if you aren't voting in the first place.");
-                return false;
-            }
-            unvoted = this.votes.remove(unvoter);
-            this.voteActions.remove(unvoter);
+        final Player unvoted = this.votes.unvote(unvoter);
+        if (unvoted == null) {
+            if (!shutUp)
+                context.reply(unvoter.asMention() + ", you can't unvote if you aren't voting in the first place.");
+            return false;
         }
+        this.voteActions.remove(unvoter);
 
         if (!shutUp) {
             RestActions.sendMessage(gameChannel, String.format("%s unvoted %s.",
@@ -482,18 +592,16 @@ public class Mafia extends Game {
             invoker.items.remove(hasPresent);
         }
 
-        final Item.Items openedPresent = GameUtils.rand(Arrays.asList(Item.Items.GUN, Item.Items.MAGNIFIER, Item.Items.BOMB, Item.Items.ANGEL));
+        final Item.Items openedPresent = GameRules.openPresent(ThreadLocalRandom.current());
         invoker.items.add(new Item(hasPresent.sourceId, openedPresent));
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.OPEN_PRESENT, invoker.userId).setAdditionalInfo(openedPresent.name()));
+        this.journal.append(simpleAction(invoker.userId, Actions.OPEN_PRESENT, invoker.userId).setAdditionalInfo(openedPresent.name()));
 
         context.reply("You received a " + openedPresent.emoji + "! This has the following effect:\n" + openedPresent.explanation);
 
         if (openedPresent == Item.Items.BOMB) {
 
             //use up an angel if this person has one
-            final Optional<Item> angel = invoker.items.stream().filter(i -> i.item == Item.Items.ANGEL).findAny();
-            if (angel.isPresent()) {
-                invoker.items.remove(angel.get());
+            if (invoker.useItem(Item.Items.ANGEL)) {
                 invoker.sendMessage(String.format("Your present contained a %s, but luckily one of your %ss saved you! Say `%s` to see what items you have left.",
                         Item.Items.BOMB, Item.Items.ANGEL, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_ITEMS), RestActions.defaultOnFail());
                 RestActions.sendMessage(fetchGameChannel(), "An explosion is heard, but nobody dies.");
@@ -509,7 +617,7 @@ public class Mafia extends Game {
                 //lets ignore this for now and just log it
                 log.error("Dead player got a bomb from present", ignore);
             }
-            this.gameStats.addAction(simpleAction(hasPresent.sourceId, Actions.DEATH, dying.userId));
+            this.journal.append(simpleAction(hasPresent.sourceId, Actions.DEATH, dying.userId));
 
             //remove votes of dead player and ppl voting the dead player
             clearVotesForPlayer(dying, context);
@@ -517,14 +625,15 @@ public class Mafia extends Game {
 
             //remove writing permissions
             final TextChannel gameChannel = fetchGameChannel();
-            RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),//todo breaks nonnull contract
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            PermissionOverrides.of(gameChannel)
+                    .deny(gameChannel.getGuild().getMemberById(dying.userId), Permission.MESSAGE_WRITE)
+                    .queue();
 
             //send info
             final String message = String.format("%s %s opened a %s and found a lit %s inside, killing them immediately.\n%s",
                     Emojis.BOOM, dying.asMention(), Item.Items.PRESENT, Item.Items.BOMB, getReveal(dying));
             RestActions.sendMessage(gameChannel, message);
-            if (this.phase == Phase.NIGHT) {
+            if (this.phaseState.getPhase() == Phase.NIGHT) {
                 RestActions.sendMessage(fetchBaddieChannel(), message);
             }
             isGameOver();
@@ -545,20 +654,16 @@ public class Mafia extends Game {
         //noinspection UnnecessaryLocalVariable
         final Player dying = target;
 
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.SHOOT, dying.userId));
+        this.journal.append(simpleAction(invoker.userId, Actions.SHOOT, dying.userId));
 
         //use up a gun if the invoker has one
-        final Optional<Item> gun = invoker.items.stream().filter(i -> i.item == Item.Items.GUN).findAny();
-        if (gun.isPresent()) {
-            invoker.items.remove(gun.get());
+        if (invoker.useItem(Item.Items.GUN)) {
             invoker.sendMessage(String.format("You used up one of your %ss. Say `%s` to see what items you have left.",
                     Item.Items.GUN, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_ITEMS), RestActions.defaultOnFail());
         }
 
         //use up an angel if the target has one
-        final Optional<Item> angel = target.items.stream().filter(i -> i.item == Item.Items.ANGEL).findAny();
-        if (angel.isPresent()) {
-            target.items.remove(angel.get());
+        if (target.useItem(Item.Items.ANGEL)) {
             target.sendMessage(String.format("One of your %ss saved you! Say `%s` to see what items you have left.",
                     Item.Items.ANGEL, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_ITEMS), RestActions.defaultOnFail());
             RestActions.sendMessage(fetchGameChannel(), "A shot rings out, but nobody dies.");
@@ -571,7 +676,7 @@ public class Mafia extends Game {
             //lets ignore this for now and just log it
             log.error("Dead player got a bomb from present", ignore);
         }
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.DEATH, dying.userId));
+        this.journal.append(simpleAction(invoker.userId, Actions.DEATH, dying.userId));
 
 
         //remove votes of dead player and ppl voting the dead player
@@ -580,14 +685,15 @@ public class Mafia extends Game {
 
         //remove writing permissions
         final TextChannel gameChannel = fetchGameChannel();
-        RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),//todo breaks nonnull contract
-                Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+        PermissionOverrides.of(gameChannel)
+                .deny(gameChannel.getGuild().getMemberById(dying.userId), Permission.MESSAGE_WRITE)
+                .queue();
 
         //send info
         final String message = String.format("%s has been shot! They die immediately.\n%s",
                 dying.asMention(), getReveal(dying));
         RestActions.sendMessage(gameChannel, message);
-        if (this.phase == Phase.NIGHT) {
+        if (this.phaseState.getPhase() == Phase.NIGHT) {
             RestActions.sendMessage(fetchBaddieChannel(), message);
         }
         isGameOver();
@@ -595,15 +701,9 @@ public class Mafia extends Game {
     }
 
     private void clearVotesForPlayer(@Nonnull final Player player, @Nonnull final Context context) {
-        final Set<Player> toUnvote = new HashSet<>();
-        for (final Map.Entry<Player, Player> vote : this.votes.entrySet()) {
-            final Player voter = vote.getKey();
-            final Player candidate = vote.getValue();
-            if (voter.equals(player)) {
-                toUnvote.add(voter);
-            } else if (candidate.equals(player)) {
-                toUnvote.add(voter);
-            }
+        final Set<Player> toUnvote = new HashSet<>(this.votes.getVotersFor(player));
+        if (this.votes.getVote(player) != null) {
+            toUnvote.add(player);
         }
         for (final Player unvoter : toUnvote) {
             unvote(unvoter, context, true);
@@ -611,15 +711,9 @@ public class Mafia extends Game {
     }
 
     private void clearNkVotesForPlayer(@Nonnull final Player player, @Nonnull final Context context) {
-        final Set<Player> toUnvoteNk = new HashSet<>();
-        for (final Map.Entry<Player, Player> vote : this.nightkillVotes.entrySet()) {
-            final Player voter = vote.getKey();
-            final Player candidate = vote.getValue();
-            if (voter.equals(player)) {
-                toUnvoteNk.add(voter);
-            } else if (candidate.equals(player)) {
-                toUnvoteNk.add(voter);
-            }
+        final Set<Player> toUnvoteNk = new HashSet<>(this.nightkillVotes.getVotersFor(player));
+        if (this.nightkillVotes.getVote(player) != null) {
+            toUnvoteNk.add(player);
         }
         for (final Player unvoter : toUnvoteNk) {
             nkUnvote(unvoter, context, true);
@@ -631,94 +725,103 @@ public class Mafia extends Game {
     protected ActionStats simpleAction(final long actor, final Actions action, final long target) {
         final long now = System.currentTimeMillis();
         return new ActionStats(this.gameStats, this.actionOrder.incrementAndGet(),
-                now, now, this.cycle, this.phase, actor, action, target, null);
+                now, now, this.phaseState.getCycle(), this.phaseState.getPhase(), actor, action, target, null);
     }
 
     private void startDay() {
-        this.cycle++;
-        this.phase = Phase.DAY;
+        final int cycle = this.phaseState.getCycle() + 1;
+        if (!this.phaseState.start(Phase.DAY, cycle)) {
+            return; //the previous night hasn't ended, or this day has been started already
+        }
         this.phaseStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYSTART, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYSTART, -1));
 
         this.votes.clear();
         this.voteActions.clear();
         final List<Player> living = getLivingPlayers();
         this.votingBuilder.endTime(this.phaseStarted + this.dayLengthMillis)
-                .possibleVoters(living)
-                .possibleCandidates(living);
+                .roster(this.roster);
 
         //open channel
         final TextChannel gameChannel = fetchGameChannel();
-        RestActions.sendMessage(gameChannel, String.format("Day %s started! You have %s minutes to discuss. You may vote a"
+        RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("Day %s started! You have %s minutes to discuss. You may vote a"
                         + " player for lynch with `%s`. You can see the current votecount with `%s`."
                         + "\nIf a player is voted by more than half the living players (majority), they will be lynched immediately!",
-                this.cycle, this.dayLengthMillis / 60000, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_VOTE,
+                cycle, this.dayLengthMillis / 60000, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_VOTE,
                 WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_VOTECOUNT));
+        final PermissionOverrides openChannel = PermissionOverrides.of(gameChannel);
         for (final Player player : living) {
-            RoleAndPermissionUtils.grant(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            openChannel.grant(gameChannel.getGuild().getMemberById(player.userId), Permission.MESSAGE_WRITE);
         }
+        openChannel.queue();
 
-        //set a timer that calls endDay()
-        this.phaseEndTimer = this.executor.schedule(() -> {
-            try {
-                this.endDay();
-            } catch (final DayEndedAlreadyException ignored) {
-            }
-        }, this.dayLengthMillis, TimeUnit.MILLISECONDS);
-        this.phaseEndReminder = this.executor.schedule(() -> RestActions.sendMessage(gameChannel, "One minute left until day end!"),
-                this.dayLengthMillis - 60000, TimeUnit.MILLISECONDS);
+        scheduleDayEnd(this.dayLengthMillis);
     }
 
-    private void endDay() throws DayEndedAlreadyException {
-        synchronized (this.hasDayEnded) {
-            //check if this is a valid call
-            if (this.hasDayEnded.contains(this.cycle)) {
-                throw new DayEndedAlreadyException();
-            }
-            this.hasDayEnded.add(this.cycle);
+    //set a timer that calls endDay(), and one that reminds the players shortly before
+    private void scheduleDayEnd(final long timeLeft) {
+        final int cycle = this.phaseState.getCycle();
+        this.phaseEndTimer = this.timers.schedule(() -> this.endDay(cycle, DayEndReason.TIMER), timeLeft, TimeUnit.MILLISECONDS);
+        if (timeLeft > 60000) {
+            this.phaseEndReminder = this.timers.schedule(() -> RestActions.sendMessage(fetchGameChannel(), "One minute left until day end!"),
+                    timeLeft - 60000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private enum DayEndReason {
+        TIMER,
+        MAJORITY
+    }
+
+    private void endDay(final int cycle, final DayEndReason reason) {
+        //only the first caller gets to end the day, majority votes racing the timer lose silently
+        if (!this.phaseState.end(Phase.DAY, cycle)) {
+            return;
         }
-        if (this.phaseEndTimer != null) this.phaseEndTimer.cancel(false);
-        if (this.phaseEndReminder != null) this.phaseEndReminder.cancel(false);
+        if (this.phaseEndTimer != null) this.phaseEndTimer.cancel();
+        if (this.phaseEndReminder != null) this.phaseEndReminder.cancel();
 
         final TextChannel gameChannel = fetchGameChannel();
+        if (reason == DayEndReason.MAJORITY) {
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, Emojis.ANGRY_BUBBLE + "Majority was reached!");
+        }
 
         final List<Player> livingPlayers = getLivingPlayers();
         //close channel
+        final PermissionOverrides closeChannel = PermissionOverrides.of(gameChannel);
         for (final Player livingPlayer : livingPlayers) {
-            RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(livingPlayer.userId),
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
-        }
-
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYEND, -1));
-        synchronized (this.votes) {
-            RestActions.sendMessage(gameChannel, this.votingBuilder.getFinalEmbed(this.votes, this.phase, this.cycle).build());
-            final List<Player> lynchCandidates = GameUtils.mostVoted(this.votes, livingPlayers);
-            boolean randedLynch = false;
-            final Player lynchCandidate;
-            if (lynchCandidates.size() > 1) {
-                randedLynch = true;
-                lynchCandidate = GameUtils.rand(lynchCandidates);
-            } else {
-                lynchCandidate = lynchCandidates.get(0);
-            }
-
-            try {
-                lynchCandidate.kill();
-                this.gameStats.addAction(simpleAction(-3, Actions.LYNCH, lynchCandidate.userId));
-            } catch (final IllegalGameStateException | NullPointerException e) {
-                //should not happen, but if it does, kill the game
-                this.destroy(e);
-                return;
-            }
+            closeChannel.deny(gameChannel.getGuild().getMemberById(livingPlayer.userId), Permission.MESSAGE_WRITE);
+        }
+        closeChannel.queue();
+
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYEND, -1));
+        final VoteTally.Snapshot<Player, Player> votes = this.votes.snapshot();
+        RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, this.votingBuilder.getFinalEmbed(votes, Phase.DAY, cycle).build());
+        final List<Player> lynchCandidates = votes.getMostVoted(livingPlayers);
+        boolean randedLynch = false;
+        final Player lynchCandidate;
+        if (lynchCandidates.size() > 1) {
+            randedLynch = true;
+            lynchCandidate = GameUtils.rand(lynchCandidates);
+        } else {
+            lynchCandidate = lynchCandidates.get(0);
+        }
 
-            final long votesAmount = this.votes.values().stream().filter(p -> p.userId == lynchCandidate.userId).count();
-            RestActions.sendMessage(gameChannel, String.format("%s has been lynched%s with %s votes on them!\nThey were **%s %s** %s",
-                    lynchCandidate.asMention(), randedLynch ? " at random due to a tie" : "", votesAmount,
-                    lynchCandidate.alignment.textRepMaf, lynchCandidate.role.textRep, lynchCandidate.getCharakterEmoji()));
-            this.gameStats.addActions(this.voteActions.values());
+        try {
+            lynchCandidate.kill();
+            this.journal.append(simpleAction(-3, Actions.LYNCH, lynchCandidate.userId));
+        } catch (final IllegalGameStateException | NullPointerException e) {
+            //should not happen, but if it does, kill the game
+            this.destroy(e);
+            return;
         }
 
+        final int votesAmount = votes.getVotersFor(lynchCandidate).size();
+        RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("%s has been lynched%s with %s votes on them!\nThey were **%s %s** %s",
+                lynchCandidate.asMention(), randedLynch ? " at random due to a tie" : "", votesAmount,
+                lynchCandidate.alignment.textRepMaf, lynchCandidate.role.textRep, lynchCandidate.getCharakterEmoji()));
+        this.journal.appendAll(this.voteActions.values());
+
         if (!isGameOver()) {
             startNight();
         }
@@ -726,7 +829,7 @@ public class Mafia extends Game {
 
     private void postUpdatingNightMessage() {
         final String basic = "Night falls...\n";
-        RestActions.sendMessage(fetchGameChannel(), basic + nightTimeLeft(),
+        RestActions.sendMessageSeparately(fetchGameChannel(), basic + nightTimeLeft(),
                 m -> new PeriodicTimer(
                         TimeUnit.SECONDS.toMillis(5),
                         onUpdate -> RestActions.editMessage(m, basic + nightTimeLeft()),
@@ -740,57 +843,23 @@ public class Mafia extends Game {
     }
 
     private void startNight() {
-        this.phase = Phase.NIGHT;
+        if (!this.phaseState.start(Phase.NIGHT, this.phaseState.getCycle())) {
+            return;
+        }
         this.phaseStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.NIGHTSTART, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.NIGHTSTART, -1));
 
         this.nightActions.clear();
 
         postUpdatingNightMessage();
 
-        //post a voting embed for the wolfs in wolfchat
-        final TextChannel wolfchatChannel = fetchBaddieChannel();
-
         this.nightkillVotes.clear();
         this.nightKillVoteActions.clear();
 
         this.nightKillVotingBuilder.endTime(this.phaseStarted + this.nightLengthMillis)
-                .possibleVoters(getLivingWolves())
-                .possibleCandidates(getLivingVillage());
+                .roster(this.roster);
 
-
-        RestActions.sendMessage(wolfchatChannel, "Nightkill voting!\n" + String.join(", ", getLivingWolvesMentions()),
-                m -> RestActions.sendMessage(wolfchatChannel, this.nightKillVotingBuilder.getEmbed(this.nightkillVotes).build(), message -> {
-                    Wolfia.addEventListener(new UpdatingReactionListener(message,
-                            this::isLivingWolf,
-                            __ -> {
-                            },//todo move away from using a reaction listener
-                            this.nightLengthMillis,
-                            //on destruction
-                            aVoid -> {
-                                if (!this.running) {//game ended meanwhile.
-                                    return;
-                                }
-                                message.clearReactions().queue(null, RestActions.defaultOnFail());
-                                synchronized (this.nightkillVotes) {
-                                    RestActions.editMessage(message, this.nightKillVotingBuilder.getFinalEmbed(this.nightkillVotes, this.phase, this.cycle).build());
-                                    final Player nightKillCandidate = GameUtils.rand(GameUtils.mostVoted(this.nightkillVotes, getLivingVillage()));
-
-                                    RestActions.sendMessage(wolfchatChannel, String.format(
-                                            "\n@here, %s will be killed! Game about to start/continue, get back to the main chat.\n%s",
-                                            nightKillCandidate.bothNamesFormatted(),
-                                            TextchatUtils.getOrCreateInviteLinkForChannel(Wolfia.getTextChannelById(this.channelId))));
-                                    this.gameStats.addActions(this.nightKillVoteActions.values());
-
-                                    endNight(nightKillCandidate);
-                                }
-                            },
-                            //update every few seconds
-                            TimeUnit.SECONDS.toMillis(10),
-                            aVoid -> RestActions.editMessage(message, this.nightKillVotingBuilder.getEmbed(this.nightkillVotes).build())
-                    ));
-                })
-        );
+        postNightkillVoting();
 
 
         //notify other roles of their possible night actions
@@ -827,9 +896,73 @@ public class Mafia extends Game {
         }
     }
 
+    //post a voting embed for the wolfs in wolfchat, the night ends when the voting is over
+    private void postNightkillVoting() {
+        final TextChannel wolfchatChannel = fetchBaddieChannel();
+        final int cycle = this.phaseState.getCycle();
+        RestActions.sendMessage(wolfchatChannel, "Nightkill voting!\n" + String.join(", ", getLivingWolvesMentions()),
+                m -> {
+                    //read the version before rendering, a vote cast in between is then picked up by the first update
+                    final long sentVersion = nightkillVotingVersion();
+                    RestActions.sendMessage(wolfchatChannel, this.nightKillVotingBuilder.getEmbed(this.nightkillVotes.snapshot()).build(), message -> {
+                        Wolfia.addEventListener(new UpdatingReactionListener(message,
+                                this::isLivingWolf,
+                                __ -> {
+                                },//todo move away from using a reaction listener
+                                this.phaseStarted + this.nightLengthMillis - System.currentTimeMillis(),
+                                //on destruction
+                                aVoid -> resolveNightkill(cycle, message),
+                                //update every few seconds, if anything changed
+                                TimeUnit.SECONDS.toMillis(10),
+                                sentVersion,
+                                this::nightkillVotingVersion,
+                                () -> this.nightKillVotingBuilder.getEmbed(this.nightkillVotes.snapshot()).build()
+                        ));
+                    });
+                });
+    }
+
+    /**
+     * End the night with the kill of the player most voted by the wolves, and carry out the night actions.
+     *
+     * @param votingMessage
+     *         the nightkill voting message in the wolfchat to finalize, null to post the final results instead
+     */
+    private void resolveNightkill(final int cycle, @Nullable final Message votingMessage) {
+        if (!this.running) {//game ended meanwhile.
+            return;
+        }
+        if (!this.phaseState.end(Phase.NIGHT, cycle)) {
+            return;
+        }
+        final TextChannel wolfchatChannel = fetchBaddieChannel();
+        final VoteTally.Snapshot<Player, Player> nkVotes = this.nightkillVotes.snapshot();
+        final MessageEmbed finalEmbed = this.nightKillVotingBuilder.getFinalEmbed(nkVotes, Phase.NIGHT, cycle).build();
+        if (votingMessage != null) {
+            votingMessage.clearReactions().queue(null, RestActions.defaultOnFail());
+            RestActions.editMessage(votingMessage, finalEmbed);
+        } else {
+            RestActions.sendMessage(wolfchatChannel, finalEmbed);
+        }
+        final Player nightKillCandidate = GameUtils.rand(nkVotes.getMostVoted(getLivingVillage()));
+
+        RestActions.sendMessage(wolfchatChannel, String.format(
+                "\n@here, %s will be killed! Game about to start/continue, get back to the main chat.\n%s",
+                nightKillCandidate.bothNamesFormatted(),
+                TextchatUtils.getOrCreateInviteLinkForChannel(Wolfia.getTextChannelById(this.channelId))));
+        this.journal.appendAll(this.nightKillVoteActions.values());
+
+        endNight(nightKillCandidate);
+    }
+
+    //changes whenever a nightkill vote is cast or a player dies
+    private long nightkillVotingVersion() {
+        return (this.nightkillVotes.getVersion() << 8) | this.roster.countLiving();
+    }
+
     private boolean nkVote(final Player voter, final Player nightkillVote, @Nonnull final CommandContext context) {
 
-        if (this.phase != Phase.NIGHT) {
+        if (!this.phaseState.isOngoing(Phase.NIGHT)) {
             context.replyWithMention("you can only vote during the night.");
             return false;
         }
@@ -846,35 +979,29 @@ public class Mafia extends Game {
 
         context.reply(String.format("%s votes %s for nightkill.", voter.asMention(), nightkillVote.asMention()));
 
-        synchronized (this.nightkillVotes) {
-            this.nightkillVotes.remove(voter);
-            this.nightkillVotes.put(voter, nightkillVote);
-            this.nightKillVoteActions.put(voter, simpleAction(voter.userId, Actions.VOTENIGHTKILL, nightkillVote.userId));
-        }
+        this.nightkillVotes.vote(voter, nightkillVote);
+        this.nightKillVoteActions.put(voter, simpleAction(voter.userId, Actions.VOTENIGHTKILL, nightkillVote.userId));
         return true;
     }
 
     private boolean nkUnvote(final Player unvoter, @Nonnull final Context context, final boolean... silent) {
         final boolean shutUp = silent.length > 0 && silent[0];
 
-        if (this.phase != Phase.NIGHT) {
+        if (!this.phaseState.isOngoing(Phase.NIGHT)) {
             if (!shutUp) {
                 context.replyWithMention("you can only unvote during the night.");
             }
             return false;
         }
 
-        final Player unvoted;
-        synchronized (this.nightkillVotes) {
-            if (this.nightkillVotes.get(unvoter) == null) {
-                if (!shutUp) {
-                    context.replyWithMention("you can't unvote if you aren't voting in the first place.");
-                }
-                return false;
+        final Player unvoted = this.nightkillVotes.unvote(unvoter);
+        if (unvoted == null) {
+            if (!shutUp) {
+                context.replyWithMention("you can't unvote if you aren't voting in the first place.");
             }
-            unvoted = this.nightkillVotes.remove(unvoter);
-            this.nightKillVoteActions.remove(unvoter);
+            return false;
         }
+        this.nightKillVoteActions.remove(unvoter);
 
         if (!shutUp) {
             RestActions.sendMessage(fetchBaddieChannel(), String.format("%s unvoted %s.", unvoter.asMention(), unvoted.asMention()));
@@ -885,7 +1012,7 @@ public class Mafia extends Game {
     @SuppressWarnings("unchecked")
     private void endNight(@Nonnull final Player nightKillCandidate) {
 
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.NIGHTEND, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.NIGHTEND, -1));
 
         for (final ActionStats nightAction : this.nightActions.values()) {
             if (nightAction.getActionType() == Actions.CHECK) {
@@ -893,15 +1020,13 @@ public class Mafia extends Game {
                     final Player checker = getPlayer(nightAction.getActor());
                     final Player checked = getPlayer(nightAction.getTarget());
                     checker.sendMessage(String.format("%s, you checked %s on night %s. Their alignment is **%s**",
-                            checker.asMention(), checked.bothNamesFormatted(), this.cycle,
+                            checker.asMention(), checked.bothNamesFormatted(), this.phaseState.getCycle(),
                             checked.alignment.textRepMaf), RestActions.defaultOnFail());
                     nightAction.setTimeStampHappened(System.currentTimeMillis());
-                    this.gameStats.addAction(nightAction);
+                    this.journal.append(nightAction);
 
                     //use up a mag if this player has one
-                    final Optional<Item> mag = checker.items.stream().filter(i -> i.item == Item.Items.MAGNIFIER).findAny();
-                    if (mag.isPresent()) {
-                        checker.items.remove(mag.get());
+                    if (checker.useItem(Item.Items.MAGNIFIER)) {
                         checker.sendMessage(String.format("You used up your %s. Say `%s` to see what items you have left.",
                                 Item.Items.MAGNIFIER, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_ITEMS), RestActions.defaultOnFail());
                     }
@@ -915,7 +1040,7 @@ public class Mafia extends Game {
                             Item.Items.PRESENT.emoji, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_OPENPRESENT);
                     receiver.sendMessage(message, RestActions.defaultOnFail());
                     receiver.items.add(new Item(nightAction.getActor(), Item.Items.PRESENT));
-                    this.gameStats.addAction(nightAction);
+                    this.journal.append(nightAction);
                 } catch (final IllegalGameStateException e) {
                     log.error("Player {} getting a present not a player of the ongoing game in {}.", nightAction.getTarget(), this.channelId);
                 }
@@ -926,29 +1051,27 @@ public class Mafia extends Game {
 
         final TextChannel gameChannel = fetchGameChannel();
         //use up an angel if the target has one
-        final Optional<Item> angel = nightKillCandidate.items.stream().filter(i -> i.item == Item.Items.ANGEL).findAny();
-        if (angel.isPresent()) {
-            nightKillCandidate.items.remove(angel.get());
+        if (nightKillCandidate.useItem(Item.Items.ANGEL)) {
             nightKillCandidate.sendMessage(String.format("One of your %ss saved you! Say `%s` to see what items you have left.",
                     Item.Items.ANGEL, WolfiaConfig.DEFAULT_PREFIX + CommRegistry.COMM_TRIGGER_ITEMS), RestActions.defaultOnFail());
-            RestActions.sendMessage(gameChannel, "Nobody died during the night.");
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, "Nobody died during the night.");
         } else {
             try {
                 nightKillCandidate.kill();
-                this.gameStats.addAction(simpleAction(-2, Actions.DEATH, nightKillCandidate.userId));
+                this.journal.append(simpleAction(-2, Actions.DEATH, nightKillCandidate.userId));
             } catch (final IllegalGameStateException e) {
                 //should not happen, but if it does, kill the game
                 this.destroy(e);
                 return;
             }
-            RestActions.sendMessage(gameChannel, String.format("%s has died during the night!\n%s",
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("%s has died during the night!\n%s",
                     nightKillCandidate.asMention(), getReveal(nightKillCandidate)));
         }
 
         if (!isGameOver()) {
             //start the timer only after the message has actually been sent
-            final Consumer c = aVoid -> this.executor.schedule(this::startDay, 10, TimeUnit.SECONDS);
-            RestActions.sendMessage(gameChannel, String.format("Day starts in 10 seconds.\n%s",
+            final Consumer c = aVoid -> this.timers.schedule(this::startDay, 10, TimeUnit.SECONDS);
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("Day starts in 10 seconds.\n%s",
                     String.join(", ", getLivingPlayerMentions())),
                     c, c);
         }
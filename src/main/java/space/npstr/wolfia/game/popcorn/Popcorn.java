@@ -21,6 +21,7 @@ import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.TextChannel;
+import org.json.JSONObject;
 import space.npstr.sqlsauce.DatabaseException;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.Wolfia;
@@ -34,32 +35,37 @@ import space.npstr.wolfia.db.entities.stats.PlayerStats;
 import space.npstr.wolfia.db.entities.stats.TeamStats;
 import space.npstr.wolfia.events.ReactionListener;
 import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.GameRules;
 import space.npstr.wolfia.game.GameUtils;
 import space.npstr.wolfia.game.Player;
 import space.npstr.wolfia.game.definitions.Actions;
 import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.game.definitions.Games;
 import space.npstr.wolfia.game.definitions.Phase;
-import space.npstr.wolfia.game.exceptions.DayEndedAlreadyException;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.game.tools.RolePmFanOut;
+import space.npstr.wolfia.game.tools.VoteTally;
 import space.npstr.wolfia.utils.Operation;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.Emojis;
+import space.npstr.wolfia.utils.discord.PermissionOverrides;
 import space.npstr.wolfia.utils.discord.RestActions;
-import space.npstr.wolfia.utils.discord.RoleAndPermissionUtils;
+import space.npstr.wolfia.utils.discord.RestScheduler;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 import space.npstr.wolfia.utils.log.DiscordLogger;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static space.npstr.wolfia.game.GameInfo.GameMode;
 
@@ -76,8 +82,6 @@ public class Popcorn extends Game {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Popcorn.class);
 
     //internal variables of an ongoing game
-    private final List<Thread> timers = new ArrayList<>(); //keeps track of timer threads
-    private int day = -1;
     private long dayLengthMillis = TimeUnit.MINUTES.toMillis(10); //10 minutes default
     private long dayStarted = -1;
     private long gunBearer = -1;
@@ -99,7 +103,7 @@ public class Popcorn extends Game {
             neb.addField("", "**Game is not running**", false);
             return neb;
         }
-        neb.addField("Day", Integer.toString(this.day), true);
+        neb.addField("Day", Integer.toString(this.phaseState.getCycle()), true);
         final long timeLeft = this.dayStarted + this.dayLengthMillis - System.currentTimeMillis();
         neb.addField("Time left", TextchatUtils.formatMillis(timeLeft), true);
 
@@ -123,19 +127,22 @@ public class Popcorn extends Game {
 
     @Override
     public void cleanUp() {
-        this.timers.forEach(Thread::interrupt);
+        this.timers.cancelAll();
         if (this.wolfChat != null) {
-            this.wolfChat.endUsage();
+            try {
+                this.wolfChat.endUsage();
+            } catch (final IllegalStateException ignored) {
+                //dont really care about this one, its fine if usage has been stopped already
+            }
         }
 
-        this.executor.shutdown();
         if (this.mode != GameMode.WILD) { //nothing to do for the wild mode
             resetRolesAndPermissions(true);
         }
     }
 
     @Override
-    public synchronized void start(final long channelId, final GameMode mode, final Set<Long> innedPlayers)
+    public synchronized CompletionStage<Void> start(final long channelId, final GameMode mode, final Set<Long> innedPlayers)
             throws UserFriendlyException, DatabaseException {
         try {//wrap into our own exceptions
             doArgumentChecksAndSet(channelId, mode, innedPlayers);
@@ -143,24 +150,41 @@ public class Popcorn extends Game {
             throw new UserFriendlyException(e.getMessage(), e);
         }
 
-        doPermissionCheckAndPrepareChannel(this.mode != GameMode.WILD);
+        final CompletionStage<Void> channelPrepared = doPermissionCheckAndPrepareChannel(this.mode != GameMode.WILD);
 
 
-        this.day = 0;
+        this.phaseState.reset(Phase.DAY, 0, true);
 
         // - rand the characters
         randCharacters(innedPlayers);
 
+        final TextChannel gameChannel = fetchGameChannel();
+        final CompletionStage<String> inviteLink = TextchatUtils.getOrCreateInviteLinkForChannelAsync(gameChannel);
         //get a hold of a private server...
+        final CompletionStage<String> wolfchatInvite;
         if (this.mode != GameMode.WILD) {
-            this.wolfChat = allocatePrivateGuild();
-            this.wolfChat.beginUsage(getWolvesIds());
+            wolfchatInvite = channelPrepared
+                    .thenCompose(__ -> allocatePrivateGuild())
+                    .thenCompose(privateGuild -> {
+                        this.wolfChat = privateGuild;
+                        return privateGuild.beginUsage(getWolvesIds());
+                    })
+                    .thenCompose(__ -> this.wolfChat.getInviteAsync())
+                    .thenApply(invite -> "Wolfchat: " + invite + "\n");
+        } else {
+            wolfchatInvite = channelPrepared.thenApply(__ -> "");
         }
 
-        final TextChannel gameChannel = fetchGameChannel();
+        //the rest is quick, but don't run it on the threads of JDA
+        return wolfchatInvite
+                .thenCombineAsync(inviteLink, (wolfchat, invite) -> begin(gameChannel, invite, wolfchat), Wolfia.executor)
+                .thenCompose(Function.identity());
+    }
+
+    //second part of the start, once the private guild and invites are in place
+    private synchronized CompletionStage<Void> begin(final TextChannel gameChannel, final String inviteLink,
+                                                     final String wolfchatInvite) {
         //inform each player about his role
-        final String inviteLink = TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel);
-        final String wolfchatInvite = this.wolfChat != null ? "Wolfchat: " + this.wolfChat.getInvite() + "\n" : "";
         final StringBuilder wolfteamNames = new StringBuilder("Your team is:\n");
         final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
                 gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
@@ -169,7 +193,8 @@ public class Popcorn extends Game {
             wolfteamNames.append(player.bothNamesFormatted()).append("\n");
         }
 
-        for (final Player player : this.players) {
+        final RolePmFanOut rolePms = new RolePmFanOut(this.timers);
+        for (final Player player : this.roster.all()) {
             final StringBuilder rolePm = new StringBuilder()
                     .append("Hi ").append(player.getName()).append("!\n")
                     .append(player.alignment.rolePmBlockWW).append("\n");
@@ -184,7 +209,7 @@ public class Popcorn extends Game {
             rolePm.append(guildChannelAndInvite);
 
             player.setRolePm(rolePm.toString());
-            player.sendMessage(rolePm.toString(),
+            rolePms.add(player, rolePm.toString(),
                     e -> RestActions.sendMessage(gameChannel, String.format(
                             "%s, **I cannot send you a private message**, please adjust your privacy settings " +
                                     "and/or unblock me, then issue `%s` to receive your role PM.",
@@ -195,9 +220,9 @@ public class Popcorn extends Game {
         final Guild g = gameChannel.getGuild();
         //set up stats objects
         this.gameStats = new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
-                Games.POPCORN, this.mode.name(), this.players.size());
+                Games.POPCORN, this.mode.name(), this.roster.size());
         final Map<Alignments, TeamStats> teams = new HashMap<>();
-        for (final Player player : this.players) {
+        for (final Player player : this.roster.all()) {
             final Alignments alignment = player.alignment;
             final TeamStats team = teams.getOrDefault(alignment,
                     new TeamStats(this.gameStats, alignment, alignment.textRepWW, -1));
@@ -211,27 +236,70 @@ public class Popcorn extends Game {
             team.setTeamSize(team.getPlayers().size());
             this.gameStats.addTeam(team);
         }
+        openGameRecord();
+        final CompletableFuture<Void> rolePmsSent = rolePms.send();
 
         // - start the game
         Games.set(this);
         DiscordLogger.getLogger().log("%s `%s` Game started in guild **%s** `%s`, channel **#%s** `%s`, **%s %s %s** players",
                 Emojis.VIDEO_GAME, TextchatUtils.berlinTime(),
                 g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
-                Games.getInfo(this).textRep(), mode.textRep, this.players.size());
+                Games.getInfo(this).textRep(), this.mode.textRep, this.roster.size());
         this.running = true;
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMESTART, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GAMESTART, -1));
         //mention the players in the thread
+        final CompletableFuture<Void> announced = new CompletableFuture<>();
         RestActions.sendMessage(gameChannel, String.format("Game has started!\n%s\n**%s** wolves are alive!",
-                listLivingPlayers(), getLivingWolves().size()));
-        distributeGun();
+                listLivingPlayers(), getLivingWolves().size()),
+                __ -> announced.complete(null),
+                t -> {
+                    log.warn("Could not announce the start of game #{}", this.journal.getGameId(), t);
+                    announced.complete(null);
+                });
+        //the wolves need their role pms to find wolfchat, where they hand out the gun
+        rolePmsSent.thenRun(() -> {
+            if (this.running) distributeGun();
+        });
+        return announced;
+    }
+
+    @Nonnull
+    @Override
+    public JSONObject snapshot() {
+        return super.snapshot()
+                .put("dayLengthMillis", this.dayLengthMillis)
+                .put("dayTimeLeft", this.dayStarted + this.dayLengthMillis - System.currentTimeMillis())
+                .put("gunBearer", this.gunBearer);
+    }
+
+    @Override
+    public synchronized void resume(@Nonnull final JSONObject snapshot) throws IllegalGameStateException {
+        super.resume(snapshot);
+        this.dayLengthMillis = snapshot.getLong("dayLengthMillis");
+        this.gunBearer = snapshot.getLong("gunBearer");
+        //the clock was stopped while the bot was down
+        final long timeLeft = Math.max(0, snapshot.getLong("dayTimeLeft"));
+        this.dayStarted = System.currentTimeMillis() - this.dayLengthMillis + timeLeft;
+
+        Games.set(this);
+        if (this.phaseState.isOngoing(Phase.DAY) && this.gunBearer != -1) {
+            RestActions.sendMessage(fetchGameChannel(), String.format("The game has been resumed! %s, you have %s left to shoot someone.",
+                    TextchatUtils.userAsMention(this.gunBearer), TextchatUtils.formatMillis(timeLeft)));
+            scheduleDayEnd(timeLeft);
+        } else {
+            //resumed while the gun was being handed out
+            this.phaseState.end(Phase.DAY, this.phaseState.getCycle());
+            RestActions.sendMessage(fetchGameChannel(), "The game has been resumed!");
+            distributeGun();
+        }
     }
 
     @Override
-    public boolean issueCommand(@Nonnull final CommandContext context)
+    protected boolean handleCommand(@Nonnull final CommandContext context)
             throws IllegalGameStateException {
         if (context.command instanceof ShootCommand) {
             final long shooter = context.invoker.getIdLong();
-            final Player target = GameUtils.identifyPlayer(this.players, context);
+            final Player target = GameUtils.identifyPlayer(this.roster, context);
             if (target == null) return false;
             return shoot(shooter, target.userId);
         } else {
@@ -246,56 +314,78 @@ public class Popcorn extends Game {
             RestActions.sendMessage(gameChannel, "Randing the " + Emojis.GUN);
             giveGun(GameUtils.rand(getLivingVillage()).userId);
         } else { //lets wolves do it
+            final PermissionOverrides closeChannel = PermissionOverrides.of(gameChannel);
             for (final Player player : getLivingPlayers()) {
-                RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
-                        Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).queue(null, RestActions.defaultOnFail());
+                closeChannel.deny(gameChannel.getGuild().getMemberById(player.userId),
+                        Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION);
             }
+            closeChannel.queue();
             new GunDistribution();
         }
     }
 
     private void giveGun(final long userId) {
         this.gunBearer = userId;
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GIVEGUN, userId));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.GIVEGUN, userId));
         RestActions.sendMessage(fetchGameChannel(), String.format("%s has received the %s !",
                 TextchatUtils.userAsMention(userId), Emojis.GUN));
         startDay();
     }
 
     private void startDay() {
-        this.day++;
+        final int day = this.phaseState.getCycle() + 1;
+        if (!this.phaseState.start(Phase.DAY, day)) {
+            return; //the previous day hasn't ended, or this day has been started already
+        }
         this.dayStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYSTART, -1));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYSTART, -1));
         final TextChannel channel = Wolfia.getTextChannelById(this.channelId);
         if (channel != null) { //todo handle properly
             RestActions.sendMessage(channel, getStatus().build());
-            RestActions.sendMessage(channel, String.format("Day %s started! %s, you have %s minutes to shoot someone.",
-                    this.day, TextchatUtils.userAsMention(this.gunBearer), this.dayLengthMillis / 60000));
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, channel, String.format("Day %s started! %s, you have %s minutes to shoot someone.",
+                    day, TextchatUtils.userAsMention(this.gunBearer), this.dayLengthMillis / 60000));
 
             if (this.mode != GameMode.WILD) {
+                final PermissionOverrides openChannel = PermissionOverrides.of(channel);
                 for (final Player player : getLivingPlayers()) {
-                    RoleAndPermissionUtils.grant(channel, channel.getGuild().getMemberById(player.userId),
-                            Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+                    openChannel.grant(channel.getGuild().getMemberById(player.userId), Permission.MESSAGE_WRITE);
                 }
+                openChannel.queue();
             }
         }
 
-        final Thread t = new Thread(new PopcornTimer(this.day, this),
-                "timer-popcorngame-" + this.day + "-" + this.channelId);
-        this.timers.add(t);
-        t.start();
+        scheduleDayEnd(this.dayLengthMillis);
     }
 
-    private void endDay(final DayEndReason reason, final long toBeKilled, final long survivor,
-                        final Operation doIfLegal) throws DayEndedAlreadyException {
-        synchronized (this.hasDayEnded) {
-            //check if this is a valid call
-            if (this.hasDayEnded.contains(this.day)) {
-                throw new DayEndedAlreadyException();
-            }
-            this.hasDayEnded.add(this.day);
+    private void scheduleDayEnd(final long timeLeft) {
+        final int day = this.phaseState.getCycle();
+        //if the day is longer than one minute, remind the gunholder about the time running out with 1 minute left
+        final long oneMinute = TimeUnit.MINUTES.toMillis(1);
+        if (timeLeft > oneMinute) {
+            this.timers.schedule(() -> {
+                if (!this.phaseState.isOngoing(Phase.DAY) || day != this.phaseState.getCycle()) return;
+                RestActions.sendMessage(fetchGameChannel(), String.format(
+                        "%s, **there is 1 minute left for you to shoot!**",
+                        TextchatUtils.userAsMention(this.gunBearer)));
+            }, timeLeft - oneMinute, TimeUnit.MILLISECONDS);
         }
-        //an operation that shall only be run if the call to endDay() does not cause an DayEndedAlreadyException
+        this.timers.schedule(() -> {
+            final Operation ifLegal = () -> this.journal.append(simpleAction(
+                    Wolfia.getSelfUser().getIdLong(), Actions.MODKILL, this.gunBearer));
+            endDay(day, DayEndReason.TIMER, this.gunBearer, -1, ifLegal);
+        }, timeLeft, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return false if the day has been ended already by someone else, true otherwise
+     */
+    private boolean endDay(final int day, final DayEndReason reason, final long toBeKilled, final long survivor,
+                           final Operation doIfLegal) {
+        //only the first caller gets to end the day, a shot racing the timer loses
+        if (!this.phaseState.end(Phase.DAY, day)) {
+            return false;
+        }
+        //an operation that shall only be run if this call actually ended the day
         doIfLegal.execute();
 
         final Player killed;
@@ -305,19 +395,19 @@ public class Popcorn extends Game {
         } catch (final IllegalGameStateException e) {
             //should not happen, but if it does, kill the game
             this.destroy(e);
-            return;
+            return true;
         }
-        this.gameStats.addAction(simpleAction(survivor, Actions.DEATH, toBeKilled));
+        this.journal.append(simpleAction(survivor, Actions.DEATH, toBeKilled));
         final TextChannel gameChannel = fetchGameChannel();
         final Guild g = gameChannel.getGuild();
 
-        this.gameStats.addAction(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYEND, -1));
-        RestActions.sendMessage(gameChannel, String.format("Day %s has ended!", this.day));
+        this.journal.append(simpleAction(Wolfia.getSelfUser().getIdLong(), Actions.DAYEND, -1));
+        RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("Day %s has ended!", day));
 
         //an operation that shall be run if the game isn't over; doing this so we can ge the output from he below if construct sent
         final Consumer<Long> doIfGameIsntOver;
         if (reason == DayEndReason.TIMER) {
-            RestActions.sendMessage(gameChannel, String.format(
+            RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format(
                     "%s took too long to decide who to shoot! They died and the %s will be redistributed.",
                     TextchatUtils.userAsMention(toBeKilled), Emojis.GUN));
             doIfGameIsntOver = ignored -> distributeGun();
@@ -326,11 +416,11 @@ public class Popcorn extends Game {
                 log.error("You introduced a new day end reason but didn't handle it in the code.");
             }
             if (killed.isBaddie()) {
-                RestActions.sendMessage(gameChannel, String.format("%s was a dirty %s!",
+                RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("%s was a dirty %s!",
                         TextchatUtils.userAsMention(toBeKilled), Emojis.WOLF));
                 doIfGameIsntOver = ignored -> startDay();
             } else {
-                RestActions.sendMessage(gameChannel, String.format("%s is an innocent %s! %s dies.",
+                RestActions.sendMessage(RestScheduler.Lane.GAME_CRITICAL, gameChannel, String.format("%s is an innocent %s! %s dies.",
                         TextchatUtils.userAsMention(survivor), Emojis.COWBOY, TextchatUtils.userAsMention(toBeKilled)));
                 doIfGameIsntOver = this::giveGun;
             }
@@ -338,12 +428,13 @@ public class Popcorn extends Game {
 
         //check win conditions
         if (isGameOver(true)) {
-            return; //we're done here
+            return true; //we're done here
         }
         if (this.mode != GameMode.WILD) {
-            RoleAndPermissionUtils.deny(gameChannel, g.getMemberById(toBeKilled), Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            PermissionOverrides.of(gameChannel).deny(g.getMemberById(toBeKilled), Permission.MESSAGE_WRITE).queue();
         }
         doIfGameIsntOver.accept(survivor);
+        return true;
     }
 
     // can be called for debugging
@@ -368,7 +459,7 @@ public class Popcorn extends Game {
             RestActions.sendMessage(gameChannel, String.format("%s please don't %s yourself, that would make a big mess.",
                     TextchatUtils.userAsMention(shooterId), Emojis.GUN));
             return false;
-        } else if (this.players.stream().noneMatch(p -> p.userId == shooterId)) {
+        } else if (!this.roster.contains(shooterId)) {
             RestActions.sendMessage(gameChannel, String.format("%s shush, you're not playing in this game!",
                     TextchatUtils.userAsMention(shooterId)));
             return false;
@@ -391,18 +482,15 @@ public class Popcorn extends Game {
         //itshappening.gif
         final Player target = getPlayer(targetId);
 
-        try {
-            final Operation doIfLegal = () -> this.gameStats.addAction(simpleAction(shooterId, Actions.SHOOT, targetId));
-            if (target.isBaddie()) {
-                endDay(DayEndReason.SHAT, targetId, shooterId, doIfLegal);
-            } else {
-                endDay(DayEndReason.SHAT, shooterId, targetId, doIfLegal);
-            }
-            return true;
-        } catch (final DayEndedAlreadyException e) {
+        final int day = this.phaseState.getCycle();
+        final Operation doIfLegal = () -> this.journal.append(simpleAction(shooterId, Actions.SHOOT, targetId));
+        final Player dying = GameRules.shotVictim(getPlayer(shooterId), target);
+        final long survivorId = dying.userId == targetId ? shooterId : targetId;
+        final boolean ended = endDay(day, DayEndReason.SHAT, dying.userId, survivorId, doIfLegal);
+        if (!ended) {
             RestActions.sendMessage(gameChannel, "Too late! Time has run out.");
-            return false;
         }
+        return ended;
     }
 
     //simplifies the giant constructor of an action by providing it with game/mode specific defaults
@@ -410,56 +498,10 @@ public class Popcorn extends Game {
     protected ActionStats simpleAction(final long actor, final Actions action, final long target) {
         final long now = System.currentTimeMillis();
         return new ActionStats(this.gameStats, this.actionOrder.incrementAndGet(),
-                now, now, this.day, Phase.DAY, actor, action, target, null);
+                now, now, this.phaseState.getCycle(), Phase.DAY, actor, action, target, null);
     }
 
 
-    class PopcornTimer implements Runnable {
-
-        protected final int day;
-        protected final Popcorn game;
-
-        public PopcornTimer(final int day, final Popcorn game) {
-            this.day = day;
-            this.game = game;
-        }
-
-        @Override
-        public void run() {
-            try {
-                //if the day is longer than one minute, remind the gunholder about the time running out with 1 minute left
-                final long oneMinute = TimeUnit.MINUTES.toMillis(1);
-                if (this.game.dayLengthMillis > oneMinute) {
-                    Thread.sleep(this.game.dayLengthMillis - oneMinute);
-                    if (this.day != this.game.day) return;
-
-                    RestActions.sendMessage(fetchGameChannel(), String.format(
-                            "%s, **there is 1 minute left for you to shoot!**",
-                            TextchatUtils.userAsMention(Popcorn.this.gunBearer)));
-                    Thread.sleep(oneMinute);
-                } else {
-                    Thread.sleep(this.game.dayLengthMillis);
-                }
-                if (this.day != this.game.day) return;
-
-                //run this in it own thread in an independent executor,
-                // because it may result in this PopcornTimer getting canceled in case it ends the game
-                Popcorn.this.executor.execute(() -> {
-                            try {
-                                final Operation ifLegal = () -> Popcorn.this.gameStats.addAction(simpleAction(
-                                        Wolfia.getSelfUser().getIdLong(), Actions.MODKILL, this.game.gunBearer));
-                                this.game.endDay(DayEndReason.TIMER, this.game.gunBearer, -1, ifLegal);
-                            } catch (final DayEndedAlreadyException ignored) {
-                            }
-                        }
-                );
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return;
-            }
-        }
-    }
-
     private enum DayEndReason {
         TIMER, //gun bearer didn't shoot in time
         SHAT  //gun bearer shatted someone
@@ -468,7 +510,7 @@ public class Popcorn extends Game {
     class GunDistribution {
         private static final long TIME_TO_DISTRIBUTE_GUN_MILLIS = 1000 * 60; //1 minute
         private boolean done = false;
-        private final Map<Long, Long> votes = new LinkedHashMap<>();//using linked to keep first votes at the top
+        private final VoteTally<Long, Long> votes = new VoteTally<>();
         private final long startedMillis = System.currentTimeMillis();
 
         public GunDistribution() {
@@ -481,7 +523,7 @@ public class Popcorn extends Game {
 
             RestActions.sendMessage(wolfchatChannel, "Gun distribution!\n" + String.join(", ", getLivingWolvesMentions()),
                     __ -> RestActions.sendMessage(wolfchatChannel,
-                            prepareGunDistributionEmbed(options, new HashMap<>(this.votes)).build(),
+                            prepareGunDistributionEmbed(options, this.votes.snapshot()).build(),
                             m -> {
                                 options.keySet().forEach(emoji -> m.addReaction(emoji).queue(null, RestActions.defaultOnFail()));
                                 Wolfia.addEventListener(new ReactionListener(m,
@@ -493,42 +535,45 @@ public class Popcorn extends Game {
                                             if (p == null) return;
                                             voted(reactionEvent.getUser().getIdLong(), p.userId);
                                             RestActions.editMessage(m, prepareGunDistributionEmbed(options,
-                                                    new HashMap<>(this.votes)).build());
+                                                    this.votes.snapshot()).build());
                                         },
                                         TIME_TO_DISTRIBUTE_GUN_MILLIS,
-                                        aVoid -> endDistribution(new HashMap<>(this.votes),
+                                        aVoid -> endDistribution(this.votes.snapshot(),
                                                 GunDistributionEndReason.TIMER)
                                 ));
                             })
             );
         }
 
-        //synchronized because it modifies the votes map
+        //synchronized so that the check whether everyone has voted sees this vote
         private synchronized void voted(final long voter, final long candidate) {
             log.info("PrivateGuild #{}: user {} voted for user {}",
                     Popcorn.this.wolfChat.getNumber(), voter, candidate);
-            this.votes.remove(voter);//remove first so there is an order by earliest vote (reinserting would not put the new vote to the end)
-            this.votes.put(voter, candidate);
+            this.votes.vote(voter, candidate);
             //has everyone voted?
-            if (this.votes.size() == getLivingWolves().size()) {
-                endDistribution(new HashMap<>(this.votes), GunDistributionEndReason.EVERYONE_VOTED);
+            if (this.votes.getVoteCount() == getLivingWolves().size()) {
+                endDistribution(this.votes.snapshot(), GunDistributionEndReason.EVERYONE_VOTED);
             }
         }
 
         //synchronized because there is only one distribution allowed to happen
-        private synchronized void endDistribution(final Map<Long, Long> votesCopy,
+        private synchronized void endDistribution(final VoteTally.Snapshot<Long, Long> votesCopy,
                                                   final GunDistributionEndReason reason) {
             if (this.done) {
                 //ignore
                 return;
             }
             this.done = true;
+            if (!Popcorn.this.running) {
+                //game was suspended or ended meanwhile
+                return;
+            }
 
             //log votes
-            votesCopy.forEach((voter, candidate) ->
-                    Popcorn.this.gameStats.addAction(simpleAction(voter, Actions.VOTEGUN, candidate)));
+            votesCopy.getVotes().forEach((voter, candidate) ->
+                    Popcorn.this.journal.append(simpleAction(voter, Actions.VOTEGUN, candidate)));
 
-            final long getsGun = GameUtils.rand(GameUtils.mostVoted(votesCopy, getLivingVillageIds()));
+            final long getsGun = GameUtils.rand(votesCopy.getMostVoted(getLivingVillageIds()));
             String out = "";
             if (reason == GunDistributionEndReason.TIMER) {
                 out = "Time ran out!";
@@ -546,11 +591,11 @@ public class Popcorn extends Game {
                             playerName, Emojis.GUN,
                             TextchatUtils.getOrCreateInviteLinkForChannel(baddieChannel)));
             //give wolves 10 seconds to get back into the chat
-            Popcorn.this.executor.schedule(() -> giveGun(getsGun), 10, TimeUnit.SECONDS);
+            Popcorn.this.timers.schedule(() -> giveGun(getsGun), 10, TimeUnit.SECONDS);
         }
 
         private EmbedBuilder prepareGunDistributionEmbed(final Map<String, Player> livingVillage,
-                                                         final Map<Long, Long> votesCopy) {
+                                                         final VoteTally.Snapshot<Long, Long> votesCopy) {
             final NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
             final long timeLeft = TIME_TO_DISTRIBUTE_GUN_MILLIS - (System.currentTimeMillis() - this.startedMillis);
             neb.addField("", "You have " + TextchatUtils.formatMillis(timeLeft)
@@ -559,12 +604,8 @@ public class Popcorn extends Game {
             livingVillage.forEach((emoji, player) -> {
                 //who is voting for this player to receive the gun?
                 final List<String> voters = new ArrayList<>();
-                for (final Map.Entry<Long, Long> entry : votesCopy.entrySet()) {
-                    final long voter = entry.getKey();
-                    final Long vote = entry.getValue();
-                    if (vote.equals(player.userId)) {
-                        voters.add(TextchatUtils.userAsMention(voter));
-                    }
+                for (final long voter : votesCopy.getVotersFor(player.userId)) {
+                    voters.add(TextchatUtils.userAsMention(voter));
                 }
                 villagersField.add(emoji + " **" + voters.size() + "** votes: " + player.bothNamesFormatted() +
                         "\nVoted by: " + String.join(", ", voters) + "\n");
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.exceptions.ErrorResponseException;
+import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.metrics.Metrics;
+import space.npstr.wolfia.utils.TimingWheel;
+import space.npstr.wolfia.utils.UserNotPresentException;
+import space.npstr.wolfia.utils.discord.RestActions;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Sends the role PMs of a game, a few at a time, retrying the ones that fail for reasons that may go away.
+ * <p>
+ * Opening a private channel and sending into it are two requests per player, so firing all of them at once for a big
+ * game only makes them wait in the rate limit buckets, and leaves it open when the last one arrives. Here, a fixed
+ * amount of PMs is in flight at any time, failed ones are retried with a growing backoff, and the future returned by
+ * {@link RolePmFanOut#send()} completes once every PM has either been delivered or given up on, or the timeout hits.
+ */
+public class RolePmFanOut {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RolePmFanOut.class);
+
+    private static final int MAX_IN_FLIGHT = 5;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_MILLIS = 1000;
+    //the game waits on the role pms before it goes on, so don't let a hanging request hold it up forever
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final TimingWheel.TimerGroup timers;
+
+    private final List<RolePm> rolePms = new ArrayList<>();
+    private final Queue<RolePm> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private long started;
+
+    /**
+     * @param timers
+     *         the timers of the game, so that retries are dropped once the game is over
+     */
+    public RolePmFanOut(@Nonnull final TimingWheel.TimerGroup timers) {
+        this.timers = timers;
+    }
+
+    /**
+     * @param onFail
+     *         called when the PM could not be delivered to the player, after retrying if it made sense
+     */
+    @Nonnull
+    public RolePmFanOut add(@Nonnull final Player player, @Nonnull final String content,
+                            @Nonnull final Consumer<Throwable> onFail) {
+        this.rolePms.add(new RolePm(player, RestActions.from(content), onFail));
+        return this;
+    }
+
+    /**
+     * Start sending the added PMs. Call this only once.
+     *
+     * @return a future that completes once all PMs have been delivered or failed, or after a timeout; it never completes
+     * exceptionally
+     */
+    @Nonnull
+    public CompletableFuture<Void> send() {
+        this.started = System.nanoTime();
+        this.pending.addAll(this.rolePms);
+        this.remaining.set(this.rolePms.size());
+        if (this.rolePms.isEmpty()) {
+            this.done.complete(null);
+        }
+        for (int i = 0; i < MAX_IN_FLIGHT; i++) {
+            sendNext();
+        }
+        return this.done
+                .orTimeout(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .exceptionally(t -> {
+                    log.warn("Stopped waiting on {} of {} role pms after {}ms", this.remaining.get(),
+                            this.rolePms.size(), TIMEOUT_MILLIS);
+                    return null;
+                });
+    }
+
+    private void sendNext() {
+        final RolePm rolePm = this.pending.poll();
+        if (rolePm != null) {
+            attempt(rolePm, 1);
+        }
+    }
+
+    private void attempt(@Nonnull final RolePm rolePm, final int attempt) {
+        rolePm.player.sendMessage(rolePm.message,
+                __ -> {
+                    Metrics.rolePms.labels("delivered").inc();
+                    Metrics.rolePmDelivery.observe((System.nanoTime() - this.started) / 1_000_000_000.0);
+                    finished();
+                },
+                t -> {
+                    if (attempt < MAX_ATTEMPTS && isWorthRetrying(t)) {
+                        Metrics.rolePms.labels("retried").inc();
+                        this.timers.schedule(() -> attempt(rolePm, attempt + 1),
+                                BACKOFF_MILLIS << (attempt - 1), TimeUnit.MILLISECONDS);
+                        return;
+                    }
+                    Metrics.rolePms.labels("failed").inc();
+                    try {
+                        rolePm.onFail.accept(t);
+                    } finally {
+                        finished();
+                    }
+                }
+        );
+    }
+
+    //a retry keeps its slot, so whatever is pending only starts once a pm is done for good
+    private void finished() {
+        if (this.remaining.decrementAndGet() == 0) {
+            this.done.complete(null);
+        } else {
+            sendNext();
+        }
+    }
+
+    //users that we don't share a guild with anymore, or who don't accept PMs from us, won't change their mind in a second
+    private static boolean isWorthRetrying(@Nonnull final Throwable t) {
+        if (t instanceof UserNotPresentException) {
+            return false;
+        }
+        if (t instanceof ErrorResponseException) {
+            return ((ErrorResponseException) t).isServerError();
+        }
+        return true;
+    }
+
+    private static class RolePm {
+        private final Player player;
+        private final Message message;
+        private final Consumer<Throwable> onFail;
+
+        private RolePm(final Player player, final Message message, final Consumer<Throwable> onFail) {
+            this.player = player;
+            this.message = message;
+            this.onFail = onFail;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The votes of a single voting, like the lynch votes of a day or the nightkill votes of a night.
+ * <p>
+ * Besides the vote of each voter, the tally keeps the voters of each candidate and a histogram of how many candidates
+ * have received how many votes, which is updated on every vote and unvote. The highest amount of votes on any
+ * candidate can be looked up without counting, which is what majority checks need after every vote.
+ * <p>
+ * Renderers take a {@link Snapshot}, which is immutable and reused until the next vote or unvote happens.
+ *
+ * @param <V> class of the voters
+ * @param <C> class of the candidates
+ */
+public class VoteTally<V, C> {
+
+    private final Map<V, C> votes = new LinkedHashMap<>();//using linked to keep first votes at the top
+    private final Map<C, Set<V>> votersByCandidate = new HashMap<>();
+    //the amount of candidates that have exactly n votes, at index n
+    private int[] candidatesByVotes = new int[8];
+    private int mostVotes = 0;
+    private long version = 0;
+    @Nullable
+    private Snapshot<V, C> snapshot;
+
+    /**
+     * Cast a vote, replacing any previous vote of the voter. The vote moves to the end of the voting order, even if
+     * the voter voted for the same candidate before.
+     *
+     * @return the candidate that the voter voted for previously, or null if they did not vote yet
+     */
+    @Nullable
+    public synchronized C vote(@Nonnull final V voter, @Nonnull final C candidate) {
+        final C previous = this.votes.remove(voter);
+        if (previous != null) {
+            removeVoter(previous, voter);
+        }
+        this.votes.put(voter, candidate);
+        addVoter(candidate, voter);
+        changed();
+        return previous;
+    }
+
+    /**
+     * @return the candidate that the voter voted for, or null if they did not vote
+     */
+    @Nullable
+    public synchronized C unvote(@Nonnull final V voter) {
+        final C previous = this.votes.remove(voter);
+        if (previous != null) {
+            removeVoter(previous, voter);
+            changed();
+        }
+        return previous;
+    }
+
+    public synchronized void clear() {
+        this.votes.clear();
+        this.votersByCandidate.clear();
+        Arrays.fill(this.candidatesByVotes, 0);
+        this.mostVotes = 0;
+        changed();
+    }
+
+    @Nullable
+    public synchronized C getVote(@Nonnull final V voter) {
+        return this.votes.get(voter);
+    }
+
+    public synchronized int getVoteCount() {
+        return this.votes.size();
+    }
+
+    public synchronized int getVotesFor(@Nonnull final C candidate) {
+        final Set<V> voters = this.votersByCandidate.get(candidate);
+        return voters != null ? voters.size() : 0;
+    }
+
+    /**
+     * @return the voters of a candidate, in the order they voted
+     */
+    @Nonnull
+    @CheckReturnValue
+    public synchronized List<V> getVotersFor(@Nonnull final C candidate) {
+        final Set<V> voters = this.votersByCandidate.get(candidate);
+        return voters != null ? new ArrayList<>(voters) : new ArrayList<>();
+    }
+
+    /**
+     * @return highest amount of votes on any single candidate
+     */
+    public synchronized int getMostVotes() {
+        return this.mostVotes;
+    }
+
+    /**
+     * Find the candidates with the most votes. If there are no votes, all candidates are returned.
+     *
+     * @return the candidates with the most votes, in the order of the provided candidates
+     */
+    @Nonnull
+    @CheckReturnValue
+    public List<C> getMostVoted(@Nonnull final Collection<C> allCandidates) {
+        return snapshot().getMostVoted(allCandidates);
+    }
+
+    /**
+     * @return increases with every change to the votes
+     */
+    public synchronized long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return an immutable copy of the current votes, that is shared between callers until the votes change
+     */
+    @Nonnull
+    public synchronized Snapshot<V, C> snapshot() {
+        Snapshot<V, C> result = this.snapshot;
+        if (result == null) {
+            final Map<C, List<V>> voters = new HashMap<>(this.votersByCandidate.size());
+            this.votersByCandidate.forEach((candidate, v) ->
+                    voters.put(candidate, Collections.unmodifiableList(new ArrayList<>(v))));
+            result = new Snapshot<>(this.version, Collections.unmodifiableMap(new LinkedHashMap<>(this.votes)),
+                    Collections.unmodifiableMap(voters));
+            this.snapshot = result;
+        }
+        return result;
+    }
+
+    private void addVoter(final C candidate, final V voter) {
+        final Set<V> voters = this.votersByCandidate.computeIfAbsent(candidate, c -> new LinkedHashSet<>());
+        voters.add(voter);
+        final int count = voters.size();
+        if (count > 1) {
+            this.candidatesByVotes[count - 1]--;
+        }
+        if (count >= this.candidatesByVotes.length) {
+            this.candidatesByVotes = Arrays.copyOf(this.candidatesByVotes, this.candidatesByVotes.length * 2);
+        }
+        this.candidatesByVotes[count]++;
+        if (count > this.mostVotes) {
+            this.mostVotes = count;
+        }
+    }
+
+    private void removeVoter(final C candidate, final V voter) {
+        final Set<V> voters = this.votersByCandidate.get(candidate);
+        voters.remove(voter);
+        final int count = voters.size();
+        this.candidatesByVotes[count + 1]--;
+        if (count > 0) {
+            this.candidatesByVotes[count]++;
+        } else {
+            this.votersByCandidate.remove(candidate);
+        }
+        //the candidate went down by one vote, so the most votes can only have gone down by one
+        if (count + 1 == this.mostVotes && this.candidatesByVotes[count + 1] == 0) {
+            this.mostVotes = count;
+        }
+    }
+
+    private void changed() {
+        this.version++;
+        this.snapshot = null;
+    }
+
+    /**
+     * The votes of a tally at a point in time
+     */
+    public static class Snapshot<V, C> {
+
+        public final long version;
+        private final Map<V, C> votes;
+        private final Map<C, List<V>> votersByCandidate;
+
+        private Snapshot(final long version, final Map<V, C> votes, final Map<C, List<V>> votersByCandidate) {
+            this.version = version;
+            this.votes = votes;
+            this.votersByCandidate = votersByCandidate;
+        }
+
+        /**
+         * @return the votes by voter, in the order they were cast
+         */
+        @Nonnull
+        public Map<V, C> getVotes() {
+            return this.votes;
+        }
+
+        /**
+         * @return the voters of a candidate, in the order they voted
+         */
+        @Nonnull
+        public List<V> getVotersFor(@Nonnull final C candidate) {
+            return this.votersByCandidate.getOrDefault(candidate, Collections.emptyList());
+        }
+
+        /**
+         * Same as {@link VoteTally#getMostVoted(Collection)}
+         */
+        @Nonnull
+        @CheckReturnValue
+        public List<C> getMostVoted(@Nonnull final Collection<C> allCandidates) {
+            int most = 0;
+            final List<C> result = new ArrayList<>();
+            for (final C candidate : allCandidates) {
+                final int votesAmount = getVotersFor(candidate).size();
+                if (votesAmount > most) {
+                    most = votesAmount;
+                    result.clear();
+                }
+                if (votesAmount == most && !result.contains(candidate)) {
+                    result.add(candidate);
+                }
+            }
+            return result;
+        }
+    }
+}
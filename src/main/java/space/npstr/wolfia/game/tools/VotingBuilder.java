@@ -1,17 +1,17 @@
 package space.npstr.wolfia.game.tools;
 
 import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.game.PlayerRoster;
+import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.game.definitions.Phase;
 import space.npstr.wolfia.utils.discord.Emojis;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
 
+import javax.annotation.Nullable;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -25,8 +25,11 @@ public class VotingBuilder {
     private String header = "You have **%timeleft** left to vote.";
     private long endTime;
     private String unvoteEmoji = Emojis.X;
-    private List<Player> possibleVoters = Collections.emptyList();
-    private List<Player> possibleCandidates = Collections.emptyList();
+    private PlayerRoster roster = PlayerRoster.EMPTY;
+    @Nullable
+    private Alignments voterAlignment = null; //null means everyone may vote
+    @Nullable
+    private Alignments candidateAlignment = null; //null means everyone may be voted
     private String notes = "**Use `%command` to cast a vote on a player." +
             "\nOnly your last vote will be counted.\nOnly votes by living players will be counted.**" +
             "\nUpdates every few seconds.";
@@ -53,20 +56,31 @@ public class VotingBuilder {
         return this;
     }
 
-    public VotingBuilder possibleVoters(final List<Player> possibleVoters) {
-        this.possibleVoters = possibleVoters;
+    //living voters and candidates are looked up in this roster whenever an embed is rendered
+    public VotingBuilder roster(final PlayerRoster roster) {
+        this.roster = roster;
         return this;
     }
 
-    public VotingBuilder possibleCandidates(final List<Player> possibleCandidates) {
-        this.possibleCandidates = possibleCandidates;
+    //restrict the voters to the living players of an alignment, or allow all living players with null
+    public VotingBuilder voterAlignment(@Nullable final Alignments voterAlignment) {
+        this.voterAlignment = voterAlignment;
         return this;
     }
 
-    public NiceEmbedBuilder getEmbed(final Map<Player, Player> votes) {
+    //restrict the candidates to the living players of an alignment, or allow all living players with null
+    public VotingBuilder candidateAlignment(@Nullable final Alignments candidateAlignment) {
+        this.candidateAlignment = candidateAlignment;
+        return this;
+    }
+
+    public NiceEmbedBuilder getEmbed(final VoteTally.Snapshot<Player, Player> votes) {
 
         NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
         neb = addHeader(neb, this.endTime - System.currentTimeMillis());
+        //discord shows this in the local time of each reader, so it stays correct when the embed is not edited
+        neb.setFooter("Voting ends", null);
+        neb.setTimestamp(Instant.ofEpochMilli(this.endTime));
 
         final List<VoteEntry> processedVotes = processVotes(votes);
         neb.addField(renderVotes("", processedVotes, true, true));
@@ -75,7 +89,7 @@ public class VotingBuilder {
         return neb;
     }
 
-    public NiceEmbedBuilder getFinalEmbed(final Map<Player, Player> votes, final Phase phase, final int cycle) {
+    public NiceEmbedBuilder getFinalEmbed(final VoteTally.Snapshot<Player, Player> votes, final Phase phase, final int cycle) {
         final NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
 
         final List<VoteEntry> processedVotes = processVotes(votes);
@@ -108,7 +122,7 @@ public class VotingBuilder {
         if (renderEmojis) {
             nv.append(this.unvoteEmoji).append(" ");
         }
-        final Set<Player> nonVoters = getNonVoters(votes.stream().flatMap(ve -> ve.voters.stream()).collect(Collectors.toSet()));
+        final List<Player> nonVoters = getNonVoters(votes.stream().flatMap(ve -> ve.voters.stream()).collect(Collectors.toSet()));
         nv.append("**Non-voters: **\n").append(String.join(", ", nonVoters.stream().map(Player::bothNamesFormatted).collect(Collectors.toList())));
 
         votesField.add(nv.toString());
@@ -116,18 +130,14 @@ public class VotingBuilder {
     }
 
     //also cleans out dead players
-    private List<VoteEntry> processVotes(final Map<Player, Player> votes) {
+    private List<VoteEntry> processVotes(final VoteTally.Snapshot<Player, Player> votes) {
         final List<VoteEntry> processedVotes = new ArrayList<>();
-        for (final Player candidate : this.possibleCandidates) {
-            if (candidate.isDead()) {
-                continue;
-            }
-            //who is voting for this player?
+        final List<Player> candidates = this.candidateAlignment == null
+                ? this.roster.living() : this.roster.living(this.candidateAlignment);
+        for (final Player candidate : candidates) {
             final List<Player> voters = new ArrayList<>();
-            for (final Map.Entry<Player, Player> entry : votes.entrySet()) {
-                final Player voter = entry.getKey();
-                final Player voted = entry.getValue();
-                if (voted.equals(candidate) && voter.isAlive()) {
+            for (final Player voter : votes.getVotersFor(candidate)) {
+                if (voter.isAlive()) {
                     voters.add(voter);
                 }
             }
@@ -136,8 +146,9 @@ public class VotingBuilder {
         return processedVotes;
     }
 
-    private Set<Player> getNonVoters(final Collection<Player> voters) {
-        final Set<Player> nonVoters = new HashSet<>(this.possibleVoters);
+    private List<Player> getNonVoters(final Collection<Player> voters) {
+        final List<Player> nonVoters = this.voterAlignment == null
+                ? this.roster.living() : this.roster.living(this.voterAlignment);
         nonVoters.removeAll(voters);
         return nonVoters;
     }
@@ -25,14 +25,26 @@ import org.json.JSONObject;
 import space.npstr.wolfia.App;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.db.ClusterLease;
+import space.npstr.wolfia.db.ClusterNodes;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by napster on 17.11.17.
  */
 public class Carbonitex extends Listing {
 
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Carbonitex.class);
+
+    //carbonitex takes a single server count for the whole bot, so in a cluster only one node posts it
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    @Nullable
+    private ClusterLease lease;
+
     //https://www.carbonitex.net/
     //api docs: https://www.carbonitex.net/discord/data/botdata.php?key=MAH_KEY
     public Carbonitex(@Nonnull final OkHttpClient httpClient) {
@@ -44,7 +56,7 @@ public class Carbonitex extends Listing {
     protected String createPayload(@Nonnull final JDA jda) {
         return new JSONObject()
                 .put("key", Launcher.getBotContext().getListingsConfig().getCarbonitexKey())
-                .put("servercount", Wolfia.getGuildsAmount())
+                .put("servercount", ClusterNodes.getLiveNodes().stream().mapToLong(node -> node.guilds).sum())
                 .toString();
     }
 
@@ -63,4 +75,24 @@ public class Carbonitex extends Listing {
         final String carbonitexKey = Launcher.getBotContext().getListingsConfig().getCarbonitexKey();
         return carbonitexKey != null && !carbonitexKey.isEmpty();
     }
+
+    @Override
+    protected boolean isReady() {
+        if (!Wolfia.isClustered()) {
+            return Wolfia.allShardsUp();
+        }
+        if (!ClusterNodes.allShardsUp()) {
+            log.info("Not all shards of the cluster are up");
+            return false;
+        }
+        if (this.lease == null) {
+            this.lease = new ClusterLease("listings-carbonitex",
+                    Launcher.getBotContext().getWolfiaConfig().getNodeName(), LEASE_MILLIS);
+        }
+        if (!this.lease.tryAcquire()) {
+            log.info("Another node is posting the server count");
+            return false;
+        }
+        return true;
+    }
 }
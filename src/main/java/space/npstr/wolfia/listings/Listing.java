@@ -23,7 +23,6 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import space.npstr.wolfia.Launcher;
-import space.npstr.wolfia.Wolfia;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
@@ -58,6 +57,11 @@ public abstract class Listing {
     //return false if there is no token configured, or whatever is needed to post to the site
     protected abstract boolean isConfigured();
 
+    //return false if the stats can't be posted from this node right now
+    protected boolean isReady() {
+        return true;
+    }
+
     //retries with growing delay until it is successful
     public void postStats(@Nonnull final JDA jda) throws InterruptedException {
         if (!isConfigured()) {
@@ -70,8 +74,8 @@ public abstract class Listing {
             return;
         }
 
-        if (this instanceof Carbonitex && !Wolfia.allShardsUp()) {
-            log.info("Skipping posting stats to Carbonitex since not all shards are up");
+        if (!isReady()) {
+            log.info("Skipping posting stats to {} since it is not ready", this.name);
             return;
         }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.metrics;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+
+/**
+ * Wolfia specific metrics. They are registered by the {@link MetricsRegistry}.
+ */
+public class Metrics {
+
+    private Metrics() {}
+
+    //############## commands
+
+    public static final Histogram commandParseToInvoke = Histogram.build()
+            .name("wolfia_command_parse_to_invoke_seconds")
+            .help("Time from starting to parse a command until it is invoked")
+            .labelNames("command") // BaseCommand.name
+            .buckets(.0001, .0005, .001, .005, .01, .05, .1, .5, 1, 5)
+            .create();
+
+    public static final Histogram commandExecutionTime = Histogram.build()
+            .name("wolfia_command_execution_seconds")
+            .help("Time it takes to execute a command")
+            .labelNames("command") // BaseCommand.name
+            .buckets(.001, .005, .01, .025, .05, .1, .25, .5, 1, 2.5, 5, 10, 30)
+            .create();
+
+    public static final Counter commandOutcomes = Counter.build()
+            .name("wolfia_command_outcomes_total")
+            .help("Executed commands by their outcome")
+            .labelNames("command", "outcome") // BaseCommand.name, see CommandHandler for possible outcomes
+            .create();
+
+    public static final Gauge commandQueueDepth = Gauge.build()
+            .name("wolfia_command_queue_depth")
+            .help("Commands waiting in channel mailboxes to be executed")
+            .create();
+
+    public static final Histogram commandQueueWait = Histogram.build()
+            .name("wolfia_command_queue_wait_seconds")
+            .help("Time commands spend waiting in their channel mailbox")
+            .labelNames("command") // BaseCommand.name
+            .buckets(.0001, .0005, .001, .005, .01, .05, .1, .5, 1, 5, 10, 30)
+            .create();
+
+    public static final Counter commandQueueRejections = Counter.build()
+            .name("wolfia_command_queue_rejections_total")
+            .help("Commands rejected because their channel mailbox was full")
+            .labelNames("command") // BaseCommand.name
+            .create();
+
+    public static final Counter commandsThrottled = Counter.build()
+            .name("wolfia_commands_throttled_total")
+            .help("Commands dropped by the rate limiter")
+            .labelNames("command", "scope") // BaseCommand.name, user/channel/guild
+            .create();
+
+    //############## timers
+
+    public static final Gauge timersLive = Gauge.build()
+            .name("wolfia_timers_live")
+            .help("Timers scheduled on the timing wheel that have neither fired nor been cancelled")
+            .create();
+
+    public static final Histogram timerLag = Histogram.build()
+            .name("wolfia_timer_lag_seconds")
+            .help("Time between the deadline of a timer and its task starting to run")
+            .buckets(.01, .05, .1, .15, .2, .3, .5, 1, 2.5, 5, 10)
+            .create();
+
+    public static final Counter timerRunsSkipped = Counter.build()
+            .name("wolfia_timer_runs_skipped_total")
+            .help("Runs of fixed rate timers skipped because the previous run was still going")
+            .create();
+
+    //############## games
+
+    public static final Histogram gameStart = Histogram.build()
+            .name("wolfia_game_start_seconds")
+            .help("Time from a start command until the game has started")
+            .labelNames("game") // Games enum name
+            .buckets(.25, .5, 1, 2.5, 5, 10, 20, 30, 60, 120)
+            .create();
+
+    public static final Histogram rolePmDelivery = Histogram.build()
+            .name("wolfia_role_pm_delivery_seconds")
+            .help("Time from a game starting to send its role PMs until one of them has been delivered")
+            .buckets(.1, .25, .5, 1, 2.5, 5, 10, 20, 30, 60)
+            .create();
+
+    public static final Counter rolePms = Counter.build()
+            .name("wolfia_role_pms_total")
+            .help("Role PM send attempts by their outcome")
+            .labelNames("outcome") // delivered, retried, failed
+            .create();
+
+    //############## discord
+
+    public static final Counter successfulRestActions = Counter.build()
+            .name("wolfia_rest_actions_successful_total")
+            .help("Rest actions that Discord answered successfully")
+            .labelNames("restAction") // sendMessage, editMessage, deleteMessage, etc, see RestActions
+            .create();
+
+    public static final Counter failedRestActions = Counter.build()
+            .name("wolfia_rest_actions_failed_total")
+            .help("Rest actions that failed")
+            .labelNames("restAction", "errorCode") // see RestActions; Discord error code or the exception class
+            .create();
+
+    public static final Histogram restActionLatency = Histogram.build()
+            .name("wolfia_rest_action_seconds")
+            .help("Time from queueing a rest action until it succeeded or failed")
+            .labelNames("restAction") // sendMessage, editMessage, deleteMessage, etc, see RestActions
+            .buckets(.025, .05, .1, .25, .5, 1, 2.5, 5, 10, 30)
+            .create();
+
+    public static final Gauge restLaneDepth = Gauge.build()
+            .name("wolfia_rest_lane_depth")
+            .help("Messages waiting in a lane of the rest scheduler to be handed to JDA")
+            .labelNames("lane") // RestScheduler.Lane
+            .create();
+
+    public static final Histogram restLaneWait = Histogram.build()
+            .name("wolfia_rest_lane_wait_seconds")
+            .help("Time messages spend waiting in a lane of the rest scheduler")
+            .labelNames("lane") // RestScheduler.Lane
+            .buckets(.001, .005, .01, .05, .1, .25, .5, 1, 2.5, 5, 10, 30)
+            .create();
+
+    public static final Counter messageEditsSkipped = Counter.build()
+            .name("wolfia_message_edits_skipped_total")
+            .help("Periodic message updates that did not send an edit because nothing changed")
+            .labelNames("reason") // version: nothing changed, content: changes did not affect the rendered message
+            .create();
+
+    public static final Counter messagesCoalesced = Counter.build()
+            .name("wolfia_messages_coalesced_total")
+            .help("Messages that were not sent on their own because they were merged into a preceding one")
+            .create();
+
+    public static final Counter permissionOverrideEdits = Counter.build()
+            .name("wolfia_permission_override_edits_total")
+            .help("Permission override edits requested by games, per holder and batch")
+            .labelNames("result") // sent: a request went out, skipped: the override already looked like that
+            .create();
+}
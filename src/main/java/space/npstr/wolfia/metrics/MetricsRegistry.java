@@ -46,6 +46,29 @@ public class MetricsRegistry {
 
         poolMetrics.register();
         queryMetrics.register();
+
+        //wolfia metrics
+        Metrics.commandParseToInvoke.register();
+        Metrics.commandExecutionTime.register();
+        Metrics.commandOutcomes.register();
+        Metrics.commandQueueDepth.register();
+        Metrics.commandQueueWait.register();
+        Metrics.commandQueueRejections.register();
+        Metrics.commandsThrottled.register();
+        Metrics.timersLive.register();
+        Metrics.timerLag.register();
+        Metrics.timerRunsSkipped.register();
+        Metrics.gameStart.register();
+        Metrics.rolePmDelivery.register();
+        Metrics.rolePms.register();
+        Metrics.successfulRestActions.register();
+        Metrics.failedRestActions.register();
+        Metrics.restActionLatency.register();
+        Metrics.restLaneDepth.register();
+        Metrics.restLaneWait.register();
+        Metrics.messageEditsSkipped.register();
+        Metrics.messagesCoalesced.register();
+        Metrics.permissionOverrideEdits.register();
     }
 
 }
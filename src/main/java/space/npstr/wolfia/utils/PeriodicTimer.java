@@ -2,13 +2,12 @@ package space.npstr.wolfia.utils;
 
 import space.npstr.wolfia.Wolfia;
 
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class PeriodicTimer {
     private final Consumer<Void> updateCallback;
-    private final ScheduledFuture updates;
+    private final TimingWheel.Timeout updates;
     private final Consumer<Void> selfDestructCallback;
 
     /**
@@ -21,10 +20,10 @@ public class PeriodicTimer {
                          final long selfDestructMillis, final Consumer<Void> selfDestructCallback) {
 
         this.updateCallback = updateCallback;
-        this.updates = Wolfia.executor.scheduleAtFixedRate(this::update, updateMillis - 1000, updateMillis, TimeUnit.MILLISECONDS);
+        this.updates = Wolfia.timers.scheduleAtFixedRate(this::update, updateMillis - 1000, updateMillis, TimeUnit.MILLISECONDS);
 
         this.selfDestructCallback = selfDestructCallback;
-        Wolfia.executor.schedule(this::destruct, selfDestructMillis, TimeUnit.MILLISECONDS);
+        Wolfia.timers.schedule(this::destruct, selfDestructMillis, TimeUnit.MILLISECONDS);
     }
 
     private void update() {
@@ -32,7 +31,7 @@ public class PeriodicTimer {
     }
 
     protected void destruct() {
-        this.updates.cancel(true);
+        this.updates.cancel();
         this.selfDestructCallback.accept(null);
     }
 }
@@ -55,41 +55,44 @@ public class StatsProvider {
     private static class Queries {
 
         private static class Bot {
+            //games are recorded when they start, only count those that have ended
+            private static final String ENDED = "\nWHERE (stats_game.end_time > 0)";
+
             //average player size bot wide
-            private static final String AVERAGE_PLAYERS_SIZE = "SELECT AVG(stats_game.player_size) FROM public.stats_game";
+            private static final String AVERAGE_PLAYERS_SIZE = "SELECT AVG(stats_game.player_size) FROM public.stats_game" + ENDED;
 
             //select teams + games
             private static final String TEAMS = "SELECT stats_game.game_id, stats_team.alignment FROM public.stats_game\n" +
-                    "INNER JOIN public.stats_team ON (stats_team.game_id = stats_game.game_id)";
+                    "INNER JOIN public.stats_team ON (stats_team.game_id = stats_game.game_id)" + ENDED;
 
             //select winning teams of all games
             private static final String WINNING_TEAMS = TEAMS +
-                    "\nWHERE (stats_team.is_winner = TRUE)";
+                    "\nAND (stats_team.is_winner = TRUE)";
 
             //select winning teams of games of a certain size
             private static final String WINNING_TEAMS_FOR_PLAYER_SIZE = TEAMS +
-                    "\nWHERE (stats_team.is_winner = TRUE AND stats_game.player_size = :playerSize)";
+                    "\nAND (stats_team.is_winner = TRUE AND stats_game.player_size = :playerSize)";
 
             //select all unique player sizes for games that are recorded
-            private static final String DISTINCT_PLAYER_SIZES = "SELECT DISTINCT stats_game.player_size FROM public.stats_game";
+            private static final String DISTINCT_PLAYER_SIZES = "SELECT DISTINCT stats_game.player_size FROM public.stats_game" + ENDED;
         }
 
         private static class Guild {
 
             //average player size for a guild
             private static final String AVERAGE_PLAYERS_SIZE = Bot.AVERAGE_PLAYERS_SIZE +
-                    "\nWHERE (stats_game.guild_id = :guildId)";
+                    "\nAND (stats_game.guild_id = :guildId)";
 
             //select winning teams of all games in this guild
             private static final String WINNING_TEAMS = Bot.TEAMS +
-                    "\nWHERE (stats_game.guild_id = :guildId AND stats_team.is_winner = TRUE)";
+                    "\nAND (stats_game.guild_id = :guildId AND stats_team.is_winner = TRUE)";
 
             //select winning teams of games of a certain size in this guild
             private static final String WINNING_TEAMS_FOR_PLAYER_SIZE = Bot.TEAMS +
-                    "\nWHERE (stats_game.guild_id = :guildId AND stats_team.is_winner = TRUE AND stats_game.player_size = :playerSize)";
+                    "\nAND (stats_game.guild_id = :guildId AND stats_team.is_winner = TRUE AND stats_game.player_size = :playerSize)";
 
             private static final String DISTINCT_PLAYER_SIZES = Bot.DISTINCT_PLAYER_SIZES +
-                    "\nWHERE (stats_game.guild_id = :guildId)";
+                    "\nAND (stats_game.guild_id = :guildId)";
 
         }
 
@@ -98,7 +101,8 @@ public class StatsProvider {
             private static final String GENERAL =
                     "SELECT stats_player.total_postlength, stats_player.total_posts, stats_player.alignment, stats_team.is_winner FROM public.stats_player\n" +
                             "INNER JOIN public.stats_team ON (stats_player.team_id = stats_team.team_id)\n" +
-                            "WHERE stats_player.user_id = :userId";
+                            "INNER JOIN public.stats_game ON (stats_team.game_id = stats_game.game_id)\n" +
+                            "WHERE stats_player.user_id = :userId AND stats_game.end_time > 0";
 
             //return all SHOOT actions where userId pulled the trigger; join with team data for the target
             private static final String SHATS =
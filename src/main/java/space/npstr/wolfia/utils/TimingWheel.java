@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils;
+
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+import space.npstr.wolfia.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hierarchical timing wheel, shared by all games for their timers.
+ * <p>
+ * A single ticker thread advances the wheel every tick and hands due tasks to an executor, so thousands of pending
+ * timers cost a few objects each instead of a sleeping thread or a slot in a per game thread pool. The ticker never runs
+ * a task itself, so tasks that block don't delay the timers of anyone else, as long as the executor has threads to
+ * spare. A run of a fixed rate task is skipped while its previous run is still going. The wheel
+ * has {@link #LEVELS} levels of {@link #SLOTS} slots each; timers far in the future sit in the coarser levels and
+ * cascade down as their deadline comes closer. Scheduling and cancelling are O(1) from any thread: new timers are
+ * handed to the ticker through a queue, cancelled timers are dropped when their slot comes up.
+ * <p>
+ * Timers are accurate to one tick. Tasks of a game should be scheduled through a {@link TimerGroup}, so they can all
+ * be cancelled at once when the game ends.
+ */
+public class TimingWheel {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4; //with 100ms ticks this covers around 19 days before timers get parked at the top
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Timeout[][] wheel = new Timeout[LEVELS][SLOTS]; //only touched by the ticker thread
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private final Thread ticker;
+    private long currentTick = 0; //only touched by the ticker thread
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param name
+     *         used to name the threads of this wheel
+     * @param tickMillis
+     *         resolution of the timers
+     * @param executor
+     *         runs the tasks of due timers. It is not shut down by this wheel.
+     */
+    public TimingWheel(@Nonnull final String name, final long tickMillis, @Nonnull final Executor executor) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.executor = executor;
+        this.ticker = new Thread(this::run, name + "-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Nonnull
+    public TimerGroup newGroup() {
+        return new TimerGroup();
+    }
+
+    @Nonnull
+    public Timeout schedule(@Nonnull final Runnable task, final long delay, @Nonnull final TimeUnit unit) {
+        return add(new Timeout(task, System.nanoTime() + unit.toNanos(delay), 0, null));
+    }
+
+    @Nonnull
+    public Timeout scheduleAtFixedRate(@Nonnull final Runnable task, final long initialDelay, final long period,
+                                       @Nonnull final TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period has to be positive, got " + period);
+        }
+        return add(new Timeout(task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period), null));
+    }
+
+    /**
+     * Stops the ticker. Pending timers will not fire anymore.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        LockSupport.unpark(this.ticker);
+    }
+
+    @Nonnull
+    private Timeout add(@Nonnull final Timeout timeout) {
+        Metrics.timersLive.inc();
+        this.incoming.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!this.shutdown) {
+            final long nextTickAt = this.startNanos + (this.currentTick + 1) * this.tickNanos;
+            final long sleep = nextTickAt - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+            try {
+                advance(++this.currentTick);
+            } catch (final Exception e) {
+                log.error("Timing wheel failed to advance to tick {}", this.currentTick, e);
+            }
+        }
+        log.info("Timing wheel ticker stopped");
+    }
+
+    private void advance(final long tick) {
+        //cascade the coarser levels, highest first, whenever the finer level below them wrapped around
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                final int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                Timeout timeout = this.wheel[level][slot];
+                this.wheel[level][slot] = null;
+                while (timeout != null) {
+                    final Timeout next = timeout.next;
+                    if (!timeout.isCancelled()) {
+                        insert(timeout, tick);
+                    }
+                    timeout = next;
+                }
+            }
+        }
+
+        Timeout added;
+        while ((added = this.incoming.poll()) != null) {
+            if (!added.isCancelled()) {
+                insert(added, tick);
+            }
+        }
+
+        final int slot = (int) tick & SLOT_MASK;
+        Timeout timeout = this.wheel[0][slot];
+        this.wheel[0][slot] = null;
+        while (timeout != null) {
+            final Timeout next = timeout.next;
+            fire(timeout, tick);
+            timeout = next;
+        }
+    }
+
+    //places the timeout in the finest level whose slots don't wrap around before its deadline
+    private void insert(@Nonnull final Timeout timeout, final long tick) {
+        final long deadlineTick = Math.max(tick, ceilDiv(timeout.deadlineNanos - this.startNanos, this.tickNanos));
+        int level = 0;
+        while (level < LEVELS - 1
+                && (deadlineTick >>> (SLOT_BITS * level)) - (tick >>> (SLOT_BITS * level)) >= SLOTS) {
+            level++;
+        }
+        final long topDistance = (deadlineTick >>> (SLOT_BITS * level)) - (tick >>> (SLOT_BITS * level));
+        final int slot;
+        if (topDistance >= SLOTS) {
+            //beyond the range of the wheel, park it in the top slot visited last and let it cascade from there
+            slot = (int) ((tick >>> (SLOT_BITS * level)) - 1) & SLOT_MASK;
+        } else {
+            slot = (int) (deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        }
+        timeout.next = this.wheel[level][slot];
+        this.wheel[level][slot] = timeout;
+    }
+
+    private void fire(@Nonnull final Timeout timeout, final long tick) {
+        final long deadline = timeout.deadlineNanos;
+        if (timeout.periodNanos > 0) {
+            if (timeout.isCancelled()) {
+                return;
+            }
+            timeout.deadlineNanos = deadline + timeout.periodNanos;
+            insert(timeout, tick + 1);
+            if (!timeout.running.compareAndSet(false, true)) {
+                Metrics.timerRunsSkipped.inc();
+                return;
+            }
+        } else if (!timeout.complete()) {
+            return;
+        }
+
+        try {
+            this.executor.execute(() -> {
+                final TimerGroup group = timeout.group;
+                if (group != null && !group.enter()) {
+                    timeout.running.set(false);
+                    return; //the group was cancelled while the task waited for a thread
+                }
+                try {
+                    Metrics.timerLag.observe((System.nanoTime() - deadline) / NANOS_PER_SECOND);
+                    timeout.task.run();
+                } finally {
+                    timeout.running.set(false);
+                    if (group != null) {
+                        group.exit();
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            timeout.running.set(false);
+            log.warn("Executor rejected the task of a due timer", e);
+        }
+    }
+
+    private static long ceilDiv(final long x, final long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    /**
+     * Handle of a scheduled task
+     */
+    public static class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int DONE = 1;
+        private static final int CANCELLED = 2;
+
+        private final Runnable task;
+        private final long periodNanos;
+        @Nullable
+        private final TimerGroup group;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final AtomicBoolean running = new AtomicBoolean(false); //fixed rate timers only
+        private volatile long deadlineNanos;
+        @Nullable
+        private Timeout next; //next timeout in the same slot, only touched by the ticker thread
+
+        private Timeout(@Nonnull final Runnable task, final long deadlineNanos, final long periodNanos,
+                        @Nullable final TimerGroup group) {
+            this.task = ExceptionLoggingExecutor.wrapRunnableExceptionSafe(task);
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+            this.group = group;
+        }
+
+        /**
+         * @return true if this call cancelled the timer, false if it had fired or was cancelled already
+         */
+        public boolean cancel() {
+            if (!this.state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            finished();
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        //one shot timers only
+        private boolean complete() {
+            if (!this.state.compareAndSet(PENDING, DONE)) {
+                return false;
+            }
+            finished();
+            return true;
+        }
+
+        private void finished() {
+            Metrics.timersLive.dec();
+            if (this.group != null) {
+                this.group.timeouts.remove(this);
+            }
+        }
+    }
+
+    /**
+     * A set of timers that can be cancelled together, for example all timers of a game. Once cancelled, the group
+     * refuses to schedule any more timers.
+     */
+    public class TimerGroup {
+
+        private final Set<Timeout> timeouts = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger runningTasks = new AtomicInteger(0);
+        private volatile boolean cancelled = false;
+
+        private TimerGroup() {
+        }
+
+        @Nonnull
+        public Timeout schedule(@Nonnull final Runnable task, final long delay, @Nonnull final TimeUnit unit) {
+            return add(new Timeout(task, System.nanoTime() + unit.toNanos(delay), 0, this));
+        }
+
+        @Nonnull
+        public Timeout scheduleAtFixedRate(@Nonnull final Runnable task, final long initialDelay, final long period,
+                                           @Nonnull final TimeUnit unit) {
+            if (period <= 0) {
+                throw new IllegalArgumentException("Period has to be positive, got " + period);
+            }
+            return add(new Timeout(task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period), this));
+        }
+
+        /**
+         * Cancel all pending timers of this group, and any that are attempted to be scheduled later on. Tasks that are
+         * already running are not interrupted, see {@link #awaitRunning(long, TimeUnit)}.
+         */
+        public void cancelAll() {
+            this.cancelled = true;
+            for (final Timeout timeout : this.timeouts) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * Wait for the tasks of this group that are running right now to finish. Meant to be called after
+         * {@link #cancelAll()}, when no new tasks will be started anymore.
+         *
+         * @return true if no task of this group is running anymore, false if the waiting time elapsed before that
+         */
+        public boolean awaitRunning(final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (this.runningTasks) {
+                while (this.runningTasks.get() > 0) {
+                    final long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this.runningTasks, left);
+                }
+            }
+            return true;
+        }
+
+        public int size() {
+            return this.timeouts.size();
+        }
+
+        //a task of this group is about to run. false if the group is cancelled and the task must be skipped
+        private boolean enter() {
+            this.runningTasks.incrementAndGet();
+            if (this.cancelled) {
+                exit();
+                return false;
+            }
+            return true;
+        }
+
+        private void exit() {
+            if (this.runningTasks.decrementAndGet() == 0) {
+                synchronized (this.runningTasks) {
+                    this.runningTasks.notifyAll();
+                }
+            }
+        }
+
+        @Nonnull
+        private Timeout add(@Nonnull final Timeout timeout) {
+            this.timeouts.add(timeout);
+            TimingWheel.this.add(timeout);
+            if (this.cancelled) {
+                timeout.cancel(); //lost a race against cancelAll()
+            }
+            return timeout;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ * <p>
+ * Instead of counting tokens and refilling them, the bucket keeps track of the point in time at which it will be full
+ * again (this is known as the generic cell rate algorithm). Taking tokens pushes that point further into the future,
+ * and taking is denied if it would end up further away than a full bucket's worth of refill time. This way the whole
+ * state fits into a single long that is updated with a compare-and-set.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    //the point in time (System.nanoTime()) at which the bucket will be full again
+    private final AtomicLong fullAt;
+
+    /**
+     * @param capacity
+     *         maximum amount of tokens the bucket holds
+     * @param refillPeriod
+     *         time it takes to refill a single token
+     */
+    public TokenBucket(final int capacity, final long refillPeriod, final TimeUnit unit) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.nanosPerToken = unit.toNanos(refillPeriod);
+        this.capacityNanos = this.nanosPerToken * capacity;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return true if the tokens were taken, false if there were not enough tokens in the bucket
+     */
+    public boolean tryTake(final int tokens) {
+        final long cost = this.nanosPerToken * tokens;
+        while (true) {
+            final long now = System.nanoTime();
+            final long current = this.fullAt.get();
+            final long next = Math.max(current, now) + cost;
+            if (next - now > this.capacityNanos) {
+                return false;
+            }
+            if (this.fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return tokens that were taken but ended up not being used. A bucket that refilled in the meantime simply stays
+     * full.
+     */
+    public void giveBack(final int tokens) {
+        this.fullAt.addAndGet(-this.nanosPerToken * tokens);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.MessageChannel;
+import net.dv8tion.jda.core.entities.TextChannel;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Merges plain text messages that are sent to the same game channel within a short window into a single message.
+ * <p>
+ * Game flows tend to send a few short lines in a row, like a death announcement followed by the time until the next
+ * phase, and every one of them costs a request against the rate limit bucket of the channel. Here, the first message
+ * opens a batch for its channel that is sent after the window has passed; messages arriving meanwhile are appended to
+ * it as long as the merged message stays below {@link TextchatUtils#MAX_MESSAGE_LENGTH}. Messages with embeds or tts,
+ * as well as those sent with {@link RestActions#sendMessageSeparately}, are not merged, and send whatever is batched
+ * for their channel first so the order of messages is kept. Private channels, like role PMs, and channels without a
+ * running game are never merged.
+ * <p>
+ * The success callback of a merged message is called with the message as it was offered, not the one that has been
+ * sent, so it carries no id. Don't use this for messages that are edited or deleted later on.
+ * <p>
+ * Disabled by default, see {@link space.npstr.wolfia.config.properties.WolfiaConfig#getMessageCoalesceMillis()}.
+ */
+public class MessageCoalescer {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MessageCoalescer.class);
+
+    private static final String SEPARATOR = "\n";
+
+    private static volatile long windowMillis = 0; //disabled until configured
+
+    private static final ConcurrentHashMap<Long, Batch> batches = new ConcurrentHashMap<>();
+
+    private MessageCoalescer() {}
+
+    /**
+     * @param millis
+     *         how long to wait for more messages to the same channel before sending them; 0 to disable merging
+     */
+    public static void setWindowMillis(final long millis) {
+        windowMillis = millis;
+        if (millis <= 0) {
+            flushAll();
+        }
+    }
+
+    /**
+     * @return true if the message has been taken over and will be sent later, false if the caller should send it
+     */
+    static boolean offer(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                         @Nonnull final Message message,
+                         @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
+        final long window = windowMillis;
+        if (window <= 0 || !isGameChannel(channel) || !isCoalescable(message)) {
+            flush(channel.getIdLong());
+            return false;
+        }
+
+        final Pending pending = new Pending(lane, message, onSuccess, onFail);
+        final Batch[] full = new Batch[1];
+        batches.compute(channel.getIdLong(), (channelId, batch) -> {
+            if (batch != null && batch.fits(pending)) {
+                batch.add(pending);
+                return batch;
+            }
+            full[0] = batch;
+            final Batch fresh = new Batch(channel, pending);
+            fresh.scheduledFlush = RestActions.restService.schedule(() -> flush(channelId, fresh), window, TimeUnit.MILLISECONDS);
+            return fresh;
+        });
+        if (full[0] != null) {
+            full[0].scheduledFlush.cancel(false);
+            send(full[0]);
+        }
+        return true;
+    }
+
+    /**
+     * Send whatever is batched for the channel right away.
+     */
+    static void flush(final long channelId) {
+        final Batch batch = batches.remove(channelId);
+        if (batch != null) {
+            batch.scheduledFlush.cancel(false);
+            send(batch);
+        }
+    }
+
+    private static void flush(final long channelId, @Nonnull final Batch expected) {
+        if (batches.remove(channelId, expected)) {
+            send(expected);
+        }
+    }
+
+    private static void flushAll() {
+        for (final Long channelId : batches.keySet()) {
+            flush(channelId);
+        }
+    }
+
+    private static boolean isGameChannel(@Nonnull final MessageChannel channel) {
+        return channel instanceof TextChannel && Games.get(channel.getIdLong()) != null;
+    }
+
+    private static boolean isCoalescable(@Nonnull final Message message) {
+        return message.getEmbeds().isEmpty()
+                && !message.isTTS()
+                && !message.getContentRaw().isEmpty();
+    }
+
+    private static void send(@Nonnull final Batch batch) {
+        if (batch.pendings.size() == 1) {
+            final Pending only = batch.pendings.get(0);
+            RestActions.sendMessageNow(only.lane, batch.channel, only.message, only.onSuccess, only.onFail);
+            return;
+        }
+
+        Metrics.messagesCoalesced.inc(batch.pendings.size() - 1);
+        final Consumer<Message> onSuccess = merged -> {
+            for (final Pending pending : batch.pendings) {
+                if (pending.onSuccess != null) {
+                    try {
+                        pending.onSuccess.accept(pending.message);
+                    } catch (final Exception e) {
+                        log.error("Success handler of a merged message threw", e);
+                    }
+                }
+            }
+        };
+        final Consumer<Throwable> onFail = t -> {
+            for (final Pending pending : batch.pendings) {
+                try {
+                    RestActions.wrapOnFail(batch.channel, pending.message, pending.onFail).accept(t);
+                } catch (final Exception e) {
+                    log.error("Failure handler of a merged message threw", e);
+                }
+            }
+        };
+        RestActions.sendMessageNow(batch.lane, batch.channel, RestActions.from(batch.content.toString()), onSuccess, onFail);
+    }
+
+    private static class Batch {
+        private final MessageChannel channel;
+        private final StringBuilder content = new StringBuilder();
+        private final List<Pending> pendings = new ArrayList<>();
+        private RestScheduler.Lane lane = RestScheduler.Lane.BACKGROUND; //the highest lane of its messages
+        private ScheduledFuture<?> scheduledFlush;
+
+        private Batch(final MessageChannel channel, final Pending first) {
+            this.channel = channel;
+            add(first);
+        }
+
+        private boolean fits(final Pending pending) {
+            return this.content.length() + SEPARATOR.length() + pending.message.getContentRaw().length()
+                    <= TextchatUtils.MAX_MESSAGE_LENGTH;
+        }
+
+        private void add(final Pending pending) {
+            if (!this.pendings.isEmpty()) {
+                this.content.append(SEPARATOR);
+            }
+            this.content.append(pending.message.getContentRaw());
+            this.pendings.add(pending);
+            if (pending.lane.compareTo(this.lane) < 0) {
+                this.lane = pending.lane;
+            }
+        }
+    }
+
+    private static class Pending {
+        private final RestScheduler.Lane lane;
+        private final Message message;
+        @Nullable
+        private final Consumer<Message> onSuccess;
+        @Nullable
+        private final Consumer<Throwable> onFail;
+
+        private Pending(final RestScheduler.Lane lane, final Message message, @Nullable final Consumer<Message> onSuccess,
+                        @Nullable final Consumer<Throwable> onFail) {
+            this.lane = lane;
+            this.message = message;
+            this.onSuccess = onSuccess;
+            this.onFail = onFail;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Channel;
+import net.dv8tion.jda.core.entities.IPermissionHolder;
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.PermissionOverride;
+import net.dv8tion.jda.core.entities.Role;
+import net.dv8tion.jda.core.exceptions.PermissionException;
+import net.dv8tion.jda.core.requests.RestAction;
+import space.npstr.wolfia.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Collects the permission override changes for a single channel, and applies them with at most one request per
+ * permission holder: all grants, denies and clears for a holder are merged into a single edit (or create / delete) of
+ * its override, and holders whose override already looks like the result are skipped without a request.
+ * <p>
+ * Discord has no endpoint to edit several overrides of a channel at once that JDA exposes, so one request per changed
+ * holder is as few as it gets. Not thread safe, build it up and apply it from a single thread.
+ */
+public class PermissionOverrides {
+
+    private final Channel channel;
+    //keeps the order in which holders were added, so requests go out in the order the caller thought of them
+    private final Map<IPermissionHolder, Change> changes = new LinkedHashMap<>();
+
+    private PermissionOverrides(final Channel channel) {
+        this.channel = channel;
+    }
+
+    @Nonnull
+    public static PermissionOverrides of(@Nonnull final Channel channel) {
+        return new PermissionOverrides(channel);
+    }
+
+    /**
+     * @param memberOrRole
+     *         Member or Role that will be granted the permissions. null is ignored, so that members who left the
+     *         guild don't need to be filtered out by the caller.
+     */
+    @Nonnull
+    public PermissionOverrides grant(@Nullable final IPermissionHolder memberOrRole, @Nonnull final Permission... permissions) {
+        if (memberOrRole != null) {
+            change(memberOrRole).grant(Permission.getRaw(permissions));
+        }
+        return this;
+    }
+
+    @Nonnull
+    public PermissionOverrides deny(@Nullable final IPermissionHolder memberOrRole, @Nonnull final Permission... permissions) {
+        if (memberOrRole != null) {
+            change(memberOrRole).deny(Permission.getRaw(permissions));
+        }
+        return this;
+    }
+
+    @Nonnull
+    public PermissionOverrides clear(@Nullable final IPermissionHolder memberOrRole, @Nonnull final Permission... permissions) {
+        if (memberOrRole != null) {
+            change(memberOrRole).clear(Permission.getRaw(permissions));
+        }
+        return this;
+    }
+
+    /**
+     * Apply the collected changes, logging any failures.
+     *
+     * @throws PermissionException
+     *         if the bot is missing permissions to edit the overrides. Nothing is sent in that case.
+     */
+    public void queue() throws PermissionException {
+        submit().whenComplete((__, t) -> {
+            if (t != null) {
+                RestActions.defaultOnFail().accept(t);
+            }
+        });
+    }
+
+    /**
+     * Apply the collected changes.
+     *
+     * @return a stage that completes once all requests have been answered, or exceptionally if any of them failed
+     *
+     * @throws PermissionException
+     *         if the bot is missing permissions to edit the overrides. Nothing is sent in that case.
+     */
+    @Nonnull
+    public CompletionStage<Void> submit() throws PermissionException {
+        //build all of them before sending any, so that a missing permission doesn't leave the channel half done
+        final List<RestAction<?>> actions = new ArrayList<>();
+        for (final Map.Entry<IPermissionHolder, Change> entry : this.changes.entrySet()) {
+            final RestAction<?> action = toAction(entry.getKey(), entry.getValue());
+            if (action == null) {
+                Metrics.permissionOverrideEdits.labels("skipped").inc();
+            } else {
+                actions.add(action);
+            }
+        }
+        this.changes.clear();
+
+        final CompletableFuture<?>[] stages = new CompletableFuture<?>[actions.size()];
+        for (int i = 0; i < actions.size(); i++) {
+            Metrics.permissionOverrideEdits.labels("sent").inc();
+            stages[i] = RestActions.toStage("editPermissionOverride", actions.get(i));
+        }
+        return CompletableFuture.allOf(stages);
+    }
+
+    @Nonnull
+    private Change change(@Nonnull final IPermissionHolder memberOrRole) {
+        return this.changes.computeIfAbsent(memberOrRole, __ -> new Change());
+    }
+
+    //null if the override already is what the change would turn it into
+    @Nullable
+    private RestAction<?> toAction(@Nonnull final IPermissionHolder memberOrRole, @Nonnull final Change change) {
+        final PermissionOverride po;
+        if (memberOrRole instanceof Role) {
+            po = this.channel.getPermissionOverride((Role) memberOrRole);
+        } else if (memberOrRole instanceof Member) {
+            po = this.channel.getPermissionOverride((Member) memberOrRole);
+        } else {
+            throw new IllegalArgumentException("Unsupported class of IPermissionHolder: " + memberOrRole);
+        }
+
+        final long allowed = po != null ? po.getAllowedRaw() : 0;
+        final long denied = po != null ? po.getDeniedRaw() : 0;
+        final long targetAllowed = change.applyToAllowed(allowed);
+        final long targetDenied = change.applyToDenied(denied);
+
+        if (targetAllowed == allowed && targetDenied == denied) {
+            return null;
+        }
+        if (po == null) {
+            if (memberOrRole instanceof Role) {
+                return this.channel.createPermissionOverride((Role) memberOrRole).setAllow(targetAllowed).setDeny(targetDenied);
+            } else {
+                return this.channel.createPermissionOverride((Member) memberOrRole).setAllow(targetAllowed).setDeny(targetDenied);
+            }
+        }
+        //an override that doesn't override anything anymore is removed
+        if (targetAllowed == 0 && targetDenied == 0) {
+            return po.delete();
+        }
+        final long cleared = (allowed | denied) & ~(targetAllowed | targetDenied);
+        return po.getManager().clear(cleared).grant(targetAllowed).deny(targetDenied);
+    }
+
+    //the latest call for a permission wins
+    static class Change {
+        private long grant = 0;
+        private long deny = 0;
+        private long clear = 0;
+
+        void grant(final long permissions) {
+            this.grant |= permissions;
+            this.deny &= ~permissions;
+            this.clear &= ~permissions;
+        }
+
+        void deny(final long permissions) {
+            this.deny |= permissions;
+            this.grant &= ~permissions;
+            this.clear &= ~permissions;
+        }
+
+        void clear(final long permissions) {
+            this.clear |= permissions;
+            this.grant &= ~permissions;
+            this.deny &= ~permissions;
+        }
+
+        long applyToAllowed(final long allowed) {
+            return (allowed & ~(this.deny | this.clear)) | this.grant;
+        }
+
+        long applyToDenied(final long denied) {
+            return (denied & ~(this.grant | this.clear)) | this.deny;
+        }
+    }
+}
@@ -12,14 +12,19 @@ import net.dv8tion.jda.core.entities.User;
 import net.dv8tion.jda.core.exceptions.ErrorResponseException;
 import net.dv8tion.jda.core.exceptions.InsufficientPermissionException;
 import net.dv8tion.jda.core.requests.ErrorResponse;
+import net.dv8tion.jda.core.requests.RestAction;
+import space.npstr.wolfia.metrics.Metrics;
 import space.npstr.wolfia.utils.log.LogTheStackException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -43,6 +48,14 @@ public class RestActions {
     public static final ScheduledExecutorService restService = Executors.newScheduledThreadPool(10,
             runnable -> new Thread(runnable, "rest-actions-scheduler"));
 
+    //decides the order in which messages are handed to JDA. the global rate limit of discord is 50 requests per second
+    private static final RestScheduler restScheduler = new RestScheduler(50, 10);
+
+    //see getJdaRestActionFailureHandler()
+    private static final int CAPTURE_STACK_SAMPLE_RATE = 64;
+    private static final long CAPTURE_ALL_STACKS_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static volatile long captureAllStacksUntil = 0;
+
 
     // ********************************************************************************
     //       Thread local handling and providing of Messages and Embeds builders
@@ -94,6 +107,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final Message message,
                                    @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 message,
                 onSuccess,
@@ -105,6 +119,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final Message message,
                                    @Nullable final Consumer<Message> onSuccess) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 message,
                 onSuccess,
@@ -115,6 +130,7 @@ public class RestActions {
     // Message
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final Message message) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 message,
                 null,
@@ -126,6 +142,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final MessageEmbed embed,
                                    @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 from(embed),
                 onSuccess,
@@ -137,6 +154,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final MessageEmbed embed,
                                    @Nullable final Consumer<Message> onSuccess) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 from(embed),
                 onSuccess,
@@ -147,6 +165,7 @@ public class RestActions {
     // Embed
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final MessageEmbed embed) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 from(embed),
                 null,
@@ -158,6 +177,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final String content,
                                    @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 from(content),
                 onSuccess,
@@ -169,6 +189,7 @@ public class RestActions {
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final String content,
                                    @Nullable final Consumer<Message> onSuccess) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
                 channel,
                 from(content),
                 onSuccess,
@@ -179,13 +200,101 @@ public class RestActions {
     // String
     public static void sendMessage(@Nonnull final MessageChannel channel, @Nonnull final String content) {
         sendMessage0(
+                RestScheduler.Lane.INTERACTIVE,
+                channel,
+                from(content),
+                null,
+                null
+        );
+    }
+
+    // ********************************************************************************
+    //       Sending messages in a lane other than the default one, see RestScheduler
+    // ********************************************************************************
+
+    public static void sendMessage(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                                   @Nonnull final Message message,
+                                   @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
+        sendMessage0(
+                lane,
+                channel,
+                message,
+                onSuccess,
+                onFail
+        );
+    }
+
+    public static void sendMessage(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                                   @Nonnull final String content,
+                                   @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
+        sendMessage0(
+                lane,
                 channel,
                 from(content),
+                onSuccess,
+                onFail
+        );
+    }
+
+    public static void sendMessage(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                                   @Nonnull final MessageEmbed embed) {
+        sendMessage0(
+                lane,
+                channel,
+                from(embed),
                 null,
                 null
         );
     }
 
+    public static void sendMessage(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                                   @Nonnull final String content) {
+        sendMessage0(
+                lane,
+                channel,
+                from(content),
+                null,
+                null
+        );
+    }
+
+    // ********************************************************************************
+    //       Sending messages that must not be merged with others, see MessageCoalescer
+    // ********************************************************************************
+
+    // use these for messages that are edited, deleted or reacted to after they have been sent
+    public static void sendMessageSeparately(@Nonnull final MessageChannel channel, @Nonnull final Message message,
+                                             @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
+        MessageCoalescer.flush(channel.getIdLong());
+        sendMessageNow(
+                RestScheduler.Lane.INTERACTIVE,
+                channel,
+                message,
+                onSuccess,
+                onFail
+        );
+    }
+
+    public static void sendMessageSeparately(@Nonnull final MessageChannel channel, @Nonnull final Message message,
+                                             @Nullable final Consumer<Message> onSuccess) {
+        sendMessageSeparately(
+                channel,
+                message,
+                onSuccess,
+                null
+        );
+    }
+
+    public static void sendMessageSeparately(@Nonnull final MessageChannel channel, @Nonnull final String content,
+                                             @Nullable final Consumer<Message> onSuccess) {
+        sendMessageSeparately(
+                channel,
+                from(content),
+                onSuccess,
+                null
+        );
+    }
+
     // private
     public static void sendPrivateMessage(@Nonnull final User user, @Nonnull final MessageEmbed embed,
                                           @Nullable final Consumer<Message> onSuccess, @Nonnull final Consumer<Throwable> onFail) {
@@ -203,16 +312,39 @@ public class RestActions {
     // handler, so that each time a private message is coded a conscious decision is made how a failure should be handled
     public static void sendPrivateMessage(@Nonnull final User user, @Nonnull final Message message,
                                           @Nullable final Consumer<Message> onSuccess, @Nonnull final Consumer<Throwable> onFail) {
+        final long started = System.nanoTime();
         user.openPrivateChannel().queue(
-                privateChannel -> {
-//                    Metrics.successfulRestActions.labels("openPrivateChannel").inc();
-                    sendMessage(privateChannel, message, onSuccess, onFail);
-
-                },
-                onFail
+                succeeded("openPrivateChannel", started,
+                        privateChannel -> sendMessage(privateChannel, message, onSuccess, onFail)),
+                failed("openPrivateChannel", started, onFail)
         );
     }
 
+    // ********************************************************************************
+    //                      Composing rest actions into pipelines
+    // ********************************************************************************
+
+    public static final long STAGE_TIMEOUT_SECONDS = 30;
+
+    //queues the rest action and returns a stage of its result, for flows that consist of several rest actions depending
+    // on each other, instead of blocking a thread on each of them with complete(). the stage fails with a TimeoutException
+    // if discord doesn't answer in time
+    @Nonnull
+    public static <T> CompletableFuture<T> toStage(@Nonnull final RestAction<T> action) {
+        final CompletableFuture<T> stage = new CompletableFuture<>();
+        action.queue(stage::complete, stage::completeExceptionally);
+        return stage.orTimeout(STAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    //same as above, and records the outcome and latency of the rest action under the provided name
+    @Nonnull
+    public static <T> CompletableFuture<T> toStage(@Nonnull final String restAction, @Nonnull final RestAction<T> action) {
+        final long started = System.nanoTime();
+        final CompletableFuture<T> stage = new CompletableFuture<>();
+        action.queue(succeeded(restAction, started, stage::complete), failed(restAction, started, stage::completeExceptionally));
+        return stage.orTimeout(STAGE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
     // ********************************************************************************
     //                            Message editing methods
     // ********************************************************************************
@@ -306,10 +438,11 @@ public class RestActions {
 
     public static void sendTyping(@Nonnull final MessageChannel channel) {
         try {
+            final long started = System.nanoTime();
             channel.sendTyping().queue(
-//                    __ -> Metrics.successfulRestActions.labels("sendTyping").inc(),
-                    null,
-                    getJdaRestActionFailureHandler("Could not send typing event in channel " + channel.getId())
+                    succeeded("sendTyping", started, null),
+                    failed("sendTyping", started,
+                            getJdaRestActionFailureHandler("Could not send typing event in channel " + channel.getId()))
             );
         } catch (final InsufficientPermissionException e) {
             handleInsufficientPermissionsException(channel, e);
@@ -320,11 +453,12 @@ public class RestActions {
     public static void deleteMessages(@Nonnull final TextChannel channel, @Nonnull final Collection<Message> messages) {
         if (!messages.isEmpty()) {
             try {
+                final long started = System.nanoTime();
                 channel.deleteMessages(messages).queue(
-//                        __ -> Metrics.successfulRestActions.labels("bulkDeleteMessages").inc(),
-                        null,
-                        getJdaRestActionFailureHandler(String.format("Could not bulk delete %s messages in channel %s",
-                                messages.size(), channel.getId()))
+                        succeeded("bulkDeleteMessages", started, null),
+                        failed("bulkDeleteMessages", started,
+                                getJdaRestActionFailureHandler(String.format("Could not bulk delete %s messages in channel %s",
+                                        messages.size(), channel.getId())))
                 );
             } catch (final InsufficientPermissionException e) {
                 handleInsufficientPermissionsException(channel, e);
@@ -334,12 +468,11 @@ public class RestActions {
 
     public static void deleteMessageById(@Nonnull final MessageChannel channel, final long messageId) {
         try {
+            final long started = System.nanoTime();
             channel.getMessageById(messageId).queue(
-                    message -> {
-//                        Metrics.successfulRestActions.labels("getMessageById").inc();
-                        deleteMessage(message);
-                    },
-                    NOOP_THROWABLE_HANDLER //prevent logging an error if that message could not be found in the first place
+                    succeeded("getMessageById", started, RestActions::deleteMessage),
+                    //prevent logging an error if that message could not be found in the first place
+                    failed("getMessageById", started, NOOP_THROWABLE_HANDLER)
             );
         } catch (final InsufficientPermissionException e) {
             handleInsufficientPermissionsException(channel, e);
@@ -350,12 +483,13 @@ public class RestActions {
     // e.g. dont pass messages in here that were created with a MessageBuilder in our code
     public static void deleteMessage(@Nonnull final Message message) {
         try {
+            final long started = System.nanoTime();
             message.delete().queue(
-//                    __ -> Metrics.successfulRestActions.labels("deleteMessage").inc(),
-                    null,
-                    getJdaRestActionFailureHandler(String.format("Could not delete message %s in channel %s with content\n%s",
-                            message.getId(), message.getChannel().getId(), message.getContentRaw()),
-                            ErrorResponse.UNKNOWN_MESSAGE) //user deleted their message, dun care
+                    succeeded("deleteMessage", started, null),
+                    failed("deleteMessage", started,
+                            getJdaRestActionFailureHandler(String.format("Could not delete message %s in channel %s with content\n%s",
+                                    message.getId(), message.getChannel().getId(), message.getContentRaw()),
+                                    ErrorResponse.UNKNOWN_MESSAGE)) //user deleted their message, dun care
             );
         } catch (final InsufficientPermissionException e) {
             handleInsufficientPermissionsException(message.getChannel(), e);
@@ -372,28 +506,43 @@ public class RestActions {
     // ********************************************************************************
 
     //class internal message sending method
-    private static void sendMessage0(@Nonnull final MessageChannel channel, @Nonnull final Message message,
+    private static void sendMessage0(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                                     @Nonnull final Message message,
                                      @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
-        final Consumer<Message> successWrapper = m -> {
-//            Metrics.successfulRestActions.labels("sendMessage").inc();
-            if (onSuccess != null) {
-                onSuccess.accept(m);
-            }
-        };
-        final Consumer<Throwable> failureWrapper = t -> {
-            if (onFail != null) {
-                onFail.accept(t);
-            } else {
-                final String info = String.format("Could not sent message\n%s\nwith %s embeds to channel %s in guild %s",
-                        message.getContentRaw(), message.getEmbeds().size(), channel.getId(),
-                        (channel instanceof TextChannel) ? ((TextChannel) channel).getGuild().getIdLong() : "private");
-                getJdaRestActionFailureHandler(info).accept(t);
-            }
-        };
+        if (MessageCoalescer.offer(lane, channel, message, onSuccess, onFail)) {
+            return;
+        }
+        sendMessageNow(lane, channel, message, onSuccess, onFail);
+    }
+
+    //sends the message without giving the MessageCoalescer a chance to merge it
+    static void sendMessageNow(@Nonnull final RestScheduler.Lane lane, @Nonnull final MessageChannel channel,
+                               @Nonnull final Message message,
+                               @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
+        restScheduler.submit(lane, channel.getIdLong(), done -> queueMessage(channel, message, onSuccess, onFail, done));
+    }
+
+    //class internal method that hands the message to JDA, and tells the RestScheduler once JDA is done with it
+    private static void queueMessage(@Nonnull final MessageChannel channel, @Nonnull final Message message,
+                                     @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail,
+                                     @Nonnull final Runnable done) {
+        final long started = System.nanoTime();
+        final Consumer<Message> successWrapper = succeeded("sendMessage", started, onSuccess);
+        final Consumer<Throwable> failureWrapper = failed("sendMessage", started, wrapOnFail(channel, message, onFail));
 
         try {
-            channel.sendMessage(message).queue(successWrapper, failureWrapper);
+            channel.sendMessage(message).queue(
+                    m -> {
+                        done.run();
+                        successWrapper.accept(m);
+                    },
+                    t -> {
+                        done.run();
+                        failureWrapper.accept(t);
+                    }
+            );
         } catch (final InsufficientPermissionException e) {
+            done.run();
             if (onFail != null) {
                 onFail.accept(e);
             }
@@ -407,16 +556,28 @@ public class RestActions {
         }
     }
 
+    //falls back to logging the failure when no failure handler was provided
+    @Nonnull
+    static Consumer<Throwable> wrapOnFail(@Nonnull final MessageChannel channel, @Nonnull final Message message,
+                                          @Nullable final Consumer<Throwable> onFail) {
+        return t -> {
+            if (onFail != null) {
+                onFail.accept(t);
+            } else {
+                final String info = String.format("Could not sent message\n%s\nwith %s embeds to channel %s in guild %s",
+                        message.getContentRaw(), message.getEmbeds().size(), channel.getId(),
+                        (channel instanceof TextChannel) ? ((TextChannel) channel).getGuild().getIdLong() : "private");
+                getJdaRestActionFailureHandler(info).accept(t);
+            }
+        };
+    }
+
     //class internal editing method
     private static void editMessage0(@Nonnull final MessageChannel channel, final long oldMessageId, @Nonnull final Message newMessage,
                                      @Nullable final Consumer<Message> onSuccess, @Nullable final Consumer<Throwable> onFail) {
-        final Consumer<Message> successWrapper = m -> {
-//            Metrics.successfulRestActions.labels("editMessage").inc();
-            if (onSuccess != null) {
-                onSuccess.accept(m);
-            }
-        };
-        final Consumer<Throwable> failureWrapper = t -> {
+        final long started = System.nanoTime();
+        final Consumer<Message> successWrapper = succeeded("editMessage", started, onSuccess);
+        final Consumer<Throwable> failureWrapper = failed("editMessage", started, t -> {
             if (onFail != null) {
                 onFail.accept(t);
             } else {
@@ -426,7 +587,7 @@ public class RestActions {
                         newMessage.getContentRaw(), newMessage.getEmbeds().size());
                 getJdaRestActionFailureHandler(info).accept(t);
             }
-        };
+        });
 
         try {
             channel.editMessageById(oldMessageId, newMessage).queue(successWrapper, failureWrapper);
@@ -444,6 +605,29 @@ public class RestActions {
         sendMessage(channel, "Please give me the permission to " + " **" + e.getPermission().getName() + "!**");
     }
 
+    //wraps the success handler of a rest action to record its outcome and latency
+    private static <T> Consumer<T> succeeded(final String restAction, final long started, @Nullable final Consumer<T> onSuccess) {
+        return result -> {
+            Metrics.successfulRestActions.labels(restAction).inc();
+            Metrics.restActionLatency.labels(restAction).observe((System.nanoTime() - started) / 1_000_000_000.0);
+            if (onSuccess != null) {
+                onSuccess.accept(result);
+            }
+        };
+    }
+
+    //wraps the failure handler of a rest action to record its outcome and latency
+    private static Consumer<Throwable> failed(final String restAction, final long started, @Nonnull final Consumer<Throwable> onFail) {
+        return t -> {
+            final String errorCode = (t instanceof ErrorResponseException)
+                    ? Integer.toString(((ErrorResponseException) t).getErrorCode())
+                    : t.getClass().getSimpleName();
+            Metrics.failedRestActions.labels(restAction, errorCode).inc();
+            Metrics.restActionLatency.labels(restAction).observe((System.nanoTime() - started) / 1_000_000_000.0);
+            onFail.accept(t);
+        };
+    }
+
     //default vanilla version of the rest action failure handler below
     public static Consumer<Throwable> defaultOnFail() {
         return getJdaRestActionFailureHandler("Exception during generic queue()");
@@ -452,21 +636,37 @@ public class RestActions {
 
     //handles failed JDA rest actions by logging them with an informational string and optionally ignoring some error response codes
     // will print a proper stack trace for exceptions happening in queue(), showing the code leading up to the call of
-    // the queue() that failed
+    // the queue() that failed, if that stack was captured. see below for when it is captured
     public static Consumer<Throwable> getJdaRestActionFailureHandler(final String info, final ErrorResponse... ignored) {
-        final LogTheStackException ex = new LogTheStackException();
+        final LogTheStackException ex = maybeCaptureTheStack();
         return t -> {
-            ex.initCause(t);
             if (t instanceof ErrorResponseException) {
                 final ErrorResponseException e = (ErrorResponseException) t;
-//                Metrics.failedRestActions.labels(Integer.toString(e.getErrorCode())).inc();
                 if (Arrays.asList(ignored).contains(e.getErrorResponse())
                         || e.getErrorCode() == -1 //socket timeout, fuck those
                         ) {
                     return;
                 }
             }
-            log.error("{}\n{}", info, t.getMessage(), ex);
+            captureAllStacksUntil = System.currentTimeMillis() + CAPTURE_ALL_STACKS_MILLIS;
+            if (ex != null) {
+                ex.initCause(t);
+                log.error("{}\n{}", info, t.getMessage(), ex);
+            } else {
+                log.error("{}\n{}\nThe stack leading up to the queue() call was not captured", info, t.getMessage(), t);
+            }
         };
     }
+
+    //a failure handler is created for almost every queued rest action, while failures are rare, so capturing the stack
+    // for each of them costs more than it is worth. it is captured for a sample of them, and for all of them for a while
+    // after a failure has been logged, so that the next failure of the same kind can be traced back
+    @Nullable
+    private static LogTheStackException maybeCaptureTheStack() {
+        if (System.currentTimeMillis() < captureAllStacksUntil
+                || ThreadLocalRandom.current().nextInt(CAPTURE_STACK_SAMPLE_RATE) == 0) {
+            return new LogTheStackException();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import space.npstr.wolfia.metrics.Metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides in which order outgoing messages are handed to JDA, so that the ones a running game depends on don't have to
+ * wait behind log lines and tag list mentions.
+ * <p>
+ * Rate limits are left to JDA. Instead of guessing the budgets, this only limits how many requests are handed to JDA
+ * and not done yet: one per channel, and a fixed amount over all channels, of which a reserve is kept free of
+ * {@link Lane#BACKGROUND} traffic. Messages wait here until they may be handed over, so when a slot frees up the
+ * highest {@link Lane} is picked first. Messages to the same channel still go out in the order they were submitted:
+ * a channel waits in the highest lane of its waiting messages, so a message in a higher lane takes the older messages
+ * to its channel along with it. Only messages go through here, other requests bypass the scheduler.
+ */
+public class RestScheduler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RestScheduler.class);
+
+    public enum Lane {
+        GAME_CRITICAL,  // phase changes and deaths that the game is waiting on
+        INTERACTIVE,    // replies to commands and everything else that someone is looking at
+        BACKGROUND,     // log lines, tag lists and other things that can wait
+    }
+
+    @FunctionalInterface
+    public interface Request {
+        /**
+         * Hand the request to JDA.
+         *
+         * @param done
+         *         to be run once JDA is done with the request, whether it succeeded or not
+         */
+        void queue(@Nonnull Runnable done);
+    }
+
+    private final int maxInFlight;
+    private final int backgroundReserve;
+
+    private final ConcurrentHashMap<Long, Route> routes = new ConcurrentHashMap<>();
+    //routes with a message waiting and none in flight, in the highest lane of their waiting messages
+    private final Map<Lane, Queue<Route>> ready = new EnumMap<>(Lane.class);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    //only one thread hands requests to JDA at a time, others just leave a note that there may be more to do
+    private final AtomicInteger pumpRequests = new AtomicInteger(0);
+
+    /**
+     * @param maxInFlight
+     *         how many requests may be handed to JDA and not be done yet, over all channels
+     * @param backgroundReserve
+     *         how many of those are kept free of background traffic
+     */
+    public RestScheduler(final int maxInFlight, final int backgroundReserve) {
+        if (maxInFlight < 1 || backgroundReserve < 0 || backgroundReserve >= maxInFlight) {
+            throw new IllegalArgumentException("Need at least one slot for background traffic, got " + maxInFlight
+                    + " slots with a reserve of " + backgroundReserve);
+        }
+        this.maxInFlight = maxInFlight;
+        this.backgroundReserve = backgroundReserve;
+        for (final Lane lane : Lane.values()) {
+            this.ready.put(lane, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * @param routeId
+     *         id of the channel that the request is sent to
+     * @param request
+     *         queues the request with JDA
+     */
+    public void submit(@Nonnull final Lane lane, final long routeId, @Nonnull final Request request) {
+        final Task task = new Task(lane, request);
+        Metrics.restLaneDepth.labels(lane.name()).inc();
+        boolean added = false;
+        while (!added) {
+            final Route route = this.routes.computeIfAbsent(routeId, Route::new);
+            synchronized (route) {
+                if (route.retired) {
+                    continue; //went idle in the meantime, the next one is put in its place
+                }
+                route.add(task);
+                if (route.idle || (route.readyLane != null && lane.compareTo(route.readyLane) < 0)) {
+                    makeReady(route);
+                }
+                added = true;
+            }
+        }
+        pump();
+    }
+
+    //called with the lock of the route held. a promoted route may be left behind in a lower lane, it is skipped there
+    private void makeReady(@Nonnull final Route route) {
+        route.idle = false;
+        route.readyLane = route.highestLane();
+        this.ready.get(route.readyLane).add(route);
+    }
+
+    private void pump() {
+        if (this.pumpRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int requests = 1;
+        do {
+            Dispatch dispatch;
+            while (this.inFlight.get() < this.maxInFlight && (dispatch = pollReady()) != null) {
+                this.inFlight.incrementAndGet();
+                dispatch.run();
+            }
+            requests = this.pumpRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    @Nullable
+    private Dispatch pollReady() {
+        for (final Lane lane : Lane.values()) {
+            if (lane == Lane.BACKGROUND && this.inFlight.get() >= this.maxInFlight - this.backgroundReserve) {
+                return null;
+            }
+            final Queue<Route> queue = this.ready.get(lane);
+            Route route;
+            while ((route = queue.poll()) != null) {
+                synchronized (route) {
+                    if (route.readyLane != lane) {
+                        continue; //promoted to a higher lane, or already dispatched from there
+                    }
+                    route.readyLane = null;
+                    return new Dispatch(route, route.poll());
+                }
+            }
+        }
+        return null;
+    }
+
+    //the request of the route is done, let the next one of the route wait for a slot
+    private void finish(@Nonnull final Route route) {
+        synchronized (route) {
+            if (route.isEmpty()) {
+                route.idle = true;
+                route.retired = true;
+                this.routes.remove(route.id, route);
+            } else {
+                makeReady(route);
+            }
+        }
+        this.inFlight.decrementAndGet();
+        pump();
+    }
+
+    private class Dispatch implements Runnable {
+        private final Route route;
+        private final Task task;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        private Dispatch(final Route route, final Task task) {
+            this.route = route;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            final String lane = this.task.lane.name();
+            Metrics.restLaneDepth.labels(lane).dec();
+            Metrics.restLaneWait.labels(lane).observe((System.currentTimeMillis() - this.task.submittedAt) / 1000.0);
+            try {
+                this.task.request.queue(this::done);
+            } catch (final Exception e) {
+                log.error("Exception when dispatching a rest request for route {}", this.route.id, e);
+                done();
+            }
+        }
+
+        private void done() {
+            if (this.done.compareAndSet(false, true)) {
+                finish(this.route);
+            }
+        }
+    }
+
+    //the messages waiting for a channel, guarded by its own lock
+    private static class Route {
+        private final long id;
+        private final ArrayDeque<Task> waiting = new ArrayDeque<>();
+        private final int[] waitingPerLane = new int[Lane.values().length];
+        //neither waiting in a lane nor in flight
+        private boolean idle = true;
+        //removed from the routes, tasks have to go to a new one
+        private boolean retired = false;
+        //the lane the route waits in for a slot, null while not waiting
+        @Nullable
+        private Lane readyLane;
+
+        private Route(final long id) {
+            this.id = id;
+        }
+
+        private void add(@Nonnull final Task task) {
+            this.waiting.addLast(task);
+            this.waitingPerLane[task.lane.ordinal()]++;
+        }
+
+        @Nonnull
+        private Task poll() {
+            final Task task = this.waiting.removeFirst();
+            this.waitingPerLane[task.lane.ordinal()]--;
+            return task;
+        }
+
+        private boolean isEmpty() {
+            return this.waiting.isEmpty();
+        }
+
+        @Nonnull
+        private Lane highestLane() {
+            for (final Lane lane : Lane.values()) {
+                if (this.waitingPerLane[lane.ordinal()] > 0) {
+                    return lane;
+                }
+            }
+            throw new IllegalStateException("Route " + this.id + " has nothing waiting");
+        }
+    }
+
+    private static class Task {
+        private final Lane lane;
+        private final Request request;
+        private final long submittedAt = System.currentTimeMillis();
+
+        private Task(final Lane lane, final Request request) {
+            this.lane = lane;
+            this.request = request;
+        }
+    }
+}
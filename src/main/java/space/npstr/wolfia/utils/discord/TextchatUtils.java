@@ -35,7 +35,10 @@ import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Created by napster on 21.05.17.
@@ -96,6 +99,28 @@ public class TextchatUtils {
         return "";
     }
 
+    //non-blocking variant of getOrCreateInviteLinkForChannel(), completes with an empty string if no invite could be had
+    public static CompletionStage<String> getOrCreateInviteLinkForChannelAsync(final TextChannel channel) {
+        CompletableFuture<String> created;
+        try {
+            created = RestActions.toStage(channel.createInvite()).thenApply(Invite::getURL);
+        } catch (final PermissionException e) {
+            created = CompletableFuture.failedFuture(e);
+        }
+        return created.handle((url, t) -> t == null ? CompletableFuture.completedFuture(url) : getExistingInviteLink(channel))
+                .thenCompose(Function.identity());
+    }
+
+    private static CompletionStage<String> getExistingInviteLink(final TextChannel channel) {
+        try {
+            return RestActions.toStage(channel.getInvites())
+                    .thenApply(invites -> invites.isEmpty() ? "" : invites.get(0).getURL())
+                    .exceptionally(t -> "");
+        } catch (final PermissionException e) {
+            return CompletableFuture.completedFuture("");
+        }
+    }
+
     //a more aggressive variant of getOrCreateInviteLinkForChannel() which will try to create an invite anywhere into
     // a guild
     public static String getOrCreateInviteLinkForGuild(@Nonnull final Guild guild, @Nullable final TextChannel preferred,
@@ -156,6 +181,64 @@ public class TextchatUtils {
         return costs[b.length()];
     }
 
+    //two rows of the levenshtein matrix per thread, grown as needed
+    private static final ThreadLocal<int[][]> threadLocalLevenshteinRows = ThreadLocal.withInitial(() -> new int[2][32]);
+
+    /**
+     * Case sensitive, lower case both strings beforehand for a case insensitive comparison.
+     * Same as {@link TextchatUtils#levenshteinDist(String, String)}, but gives up as soon as the distance is known to
+     * be larger than maxDistance. Only the diagonal band of the matrix that can stay within maxDistance is computed, and
+     * the rows of the matrix are reused between calls.
+     * <p>
+     * expected complexity: O(min(a, b) * maxDistance)  (a and b = lengths of a and b)
+     *
+     * @return the distance, or maxDistance + 1 if it is larger than maxDistance
+     */
+    public static int levenshteinDist(@Nonnull final String a, @Nonnull final String b, final int maxDistance) {
+        final int over = maxDistance + 1;
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return over;
+        }
+        if (a.isEmpty() || b.isEmpty()) {
+            return Math.max(a.length(), b.length());
+        }
+
+        int[][] rows = threadLocalLevenshteinRows.get();
+        if (rows[0].length < b.length() + 1) {
+            rows = new int[][]{new int[b.length() + 1], new int[b.length() + 1]};
+            threadLocalLevenshteinRows.set(rows);
+        }
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = Math.min(j, over);
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            //cells outside of the band are further than maxDistance away from the diagonal
+            final int from = Math.max(1, i - maxDistance);
+            final int to = Math.min(b.length(), i + maxDistance);
+            current[from - 1] = from == 1 ? Math.min(i, over) : over;
+            int rowMin = current[from - 1];
+            final char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                final int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                final int cell = Math.min(over, Math.min(substitution, 1 + Math.min(previous[j], current[j - 1])));
+                current[j] = cell;
+                rowMin = Math.min(rowMin, cell);
+            }
+            if (to < b.length()) {
+                current[to + 1] = over;
+            }
+            if (rowMin > maxDistance) {
+                return over; //the distance never goes down again in later rows
+            }
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
     /**
      * Runs the levenshtein distance algorithm over the provided strings
      *
@@ -21,8 +21,15 @@ import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.TextChannel;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.Wolfia;
+import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.db.ClusterLease;
 import space.npstr.wolfia.utils.discord.RestActions;
+import space.npstr.wolfia.utils.discord.RestScheduler;
 
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -35,6 +42,9 @@ import java.util.function.Consumer;
  * Logs some bot-wide events into a discord channel of our choice
  * Avoid spamming the events as this gets ratelimited easily (5/5s)
  * Singleton pattern cause I only need one of them, there is not technical reason for it though.
+ * <p>
+ * In a cluster, the log channel is on the shards of only one of the nodes. All nodes put their messages into an outbox
+ * table, and the node that can see the log channel and holds the logger lease posts them.
  */
 public class DiscordLogger {
 
@@ -43,6 +53,15 @@ public class DiscordLogger {
     private static final ScheduledExecutorService x = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "discord-logger-executor"));
     private static DiscordLogger discordLogger;
 
+    private static final String OUTBOX_INSERT = "INSERT INTO public.discord_log_outbox (message) VALUES (:message)";
+    //no more than the ratelimit of the log channel allows us to post per drain
+    private static final String OUTBOX_POLL = "DELETE FROM public.discord_log_outbox WHERE id IN "
+            + "(SELECT id FROM public.discord_log_outbox ORDER BY id LIMIT 5 FOR UPDATE SKIP LOCKED) RETURNING id, message";
+    private static final long OUTBOX_DRAIN_MILLIS = 5000;
+
+    @Nullable
+    private ClusterLease lease;
+
     //singleton approach
     public synchronized static DiscordLogger getLogger() {
         if (discordLogger == null) {
@@ -59,10 +78,15 @@ public class DiscordLogger {
             } catch (final InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            final ClusterLease lease = discordLogger.lease;
+            if (lease != null) {
+                lease.release();
+            }
         }
     }
 
     private DiscordLogger() {
+        x.scheduleAtFixedRate(this::drainOutbox, OUTBOX_DRAIN_MILLIS, OUTBOX_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     private void sendMessage(final String message) {
@@ -71,6 +95,11 @@ public class DiscordLogger {
                 Thread.sleep(1000);
             }
 
+            if (Wolfia.isClustered()) {
+                putIntoOutbox(message);
+                return;
+            }
+
             TextChannel channel = Wolfia.getTextChannelById(Launcher.getBotContext().getWolfiaConfig().getLogChannelId());
             while (channel == null) {
                 Thread.sleep(1000);
@@ -82,13 +111,76 @@ public class DiscordLogger {
                 log.error("Exception when sending discord logger message", t);
                 log(message);//readd it to the queue
             };
-            RestActions.sendMessage(channel, message, onSuccess, onFail);
+            RestActions.sendMessage(RestScheduler.Lane.BACKGROUND, channel, message, onSuccess, onFail);
 
         } catch (final InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private void putIntoOutbox(final String message) {
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery(OUTBOX_INSERT).setParameter("message", message).executeUpdate();
+            em.getTransaction().commit();
+        } catch (final Exception e) {
+            log.error("Exception when putting discord logger message into the outbox, retrying in a moment", e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            x.schedule(() -> sendMessage(message), OUTBOX_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+        } finally {
+            em.close();
+        }
+    }
+
+    //only ever called from the logger executor
+    private void drainOutbox() {
+        if (!Wolfia.isStarted() || !Wolfia.isClustered()) {
+            return;
+        }
+        final WolfiaConfig wolfiaConfig = Launcher.getBotContext().getWolfiaConfig();
+        final TextChannel channel = Wolfia.getTextChannelById(wolfiaConfig.getLogChannelId());
+        if (channel == null) {
+            return; //on the shards of another node
+        }
+        if (this.lease == null) {
+            this.lease = new ClusterLease("discord-logger", wolfiaConfig.getNodeName(), OUTBOX_DRAIN_MILLIS * 6);
+        }
+        if (!this.lease.tryAcquire()) {
+            return;
+        }
+
+        final List<Object[]> rows;
+        final EntityManager em = Launcher.getBotContext().getDatabase().getConnection().getEntityManager();
+        try {
+            em.getTransaction().begin();
+            //noinspection unchecked
+            rows = em.createNativeQuery(OUTBOX_POLL).getResultList();
+            em.getTransaction().commit();
+        } catch (final Exception e) {
+            log.error("Exception when polling the discord logger outbox", e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return;
+        } finally {
+            em.close();
+        }
+
+        rows.sort(Comparator.comparingLong(row -> ((Number) row[0]).longValue()));
+        for (final Object[] row : rows) {
+            final String message = (String) row[1];
+            RestActions.sendMessage(RestScheduler.Lane.BACKGROUND, channel, message,
+                    ignored -> log.info(message),
+                    t -> {
+                        log.error("Exception when sending discord logger message", t);
+                        log(message);//readd it to the outbox
+                    });
+        }
+    }
+
     public Future log(final String message) {
         return x.schedule(() -> sendMessage(message), 0, TimeUnit.NANOSECONDS);
     }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailboxesTest {
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        this.workers.shutdownNow();
+    }
+
+    @Test
+    void tasksOfOneKeyRunInOrderAndNeverAtOnce() throws InterruptedException {
+        final Mailboxes mailboxes = new Mailboxes(this.workers, Integer.MAX_VALUE);
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        final int tasks = 1000;
+        final CountDownLatch done = new CountDownLatch(tasks);
+
+        for (int i = 0; i < tasks; i++) {
+            final int number = i;
+            assertTrue(mailboxes.submit(1, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                executed.add(number);
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < tasks; i++) {
+            assertEquals(i, (int) executed.get(i));
+        }
+    }
+
+    @Test
+    void differentKeysRunInParallel() throws InterruptedException {
+        final Mailboxes mailboxes = new Mailboxes(this.workers, 10);
+        final CountDownLatch bothRunning = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        for (long key = 1; key <= 2; key++) {
+            mailboxes.submit(key, () -> {
+                bothRunning.countDown();
+                awaitQuietly(release);
+            });
+        }
+
+        //would time out if the second key had to wait for the first one
+        assertTrue(bothRunning.await(10, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void fullMailboxRejectsTasks() throws InterruptedException {
+        final Mailboxes mailboxes = new Mailboxes(this.workers, 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+
+        assertTrue(mailboxes.submit(1, () -> {
+            awaitQuietly(release);
+            done.countDown();
+        }));
+        assertTrue(mailboxes.submit(1, done::countDown));
+        assertFalse(mailboxes.submit(1, done::countDown));
+        assertTrue(mailboxes.submit(2, () -> {}));
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void drainedMailboxesAreRemoved() throws InterruptedException {
+        final Mailboxes mailboxes = new Mailboxes(this.workers, 10);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        mailboxes.submit(1, () -> {
+            throw new IllegalStateException("a failing task must not break the mailbox");
+        });
+        mailboxes.submit(1, done::countDown);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (mailboxes.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, mailboxes.size());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.game.definitions.Phase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PhaseStateTest {
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        this.workers.shutdownNow();
+    }
+
+    @Test
+    void phaseEndsOnlyOnce() {
+        final PhaseState state = new PhaseState(Phase.DAY, 1, false);
+
+        assertTrue(state.end(Phase.DAY, 1));
+        assertFalse(state.end(Phase.DAY, 1));
+        assertTrue(state.hasEnded());
+        assertFalse(state.isOngoing(Phase.DAY));
+    }
+
+    @Test
+    void onlyTheCurrentPhaseCanBeEnded() {
+        final PhaseState state = new PhaseState(Phase.DAY, 2, false);
+
+        assertFalse(state.end(Phase.NIGHT, 2));
+        assertFalse(state.end(Phase.DAY, 1));
+        assertTrue(state.isOngoing(Phase.DAY));
+    }
+
+    @Test
+    void nextPhaseStartsOnlyAfterTheCurrentOneEnded() {
+        final PhaseState state = new PhaseState(Phase.DAY, 1, false);
+
+        assertFalse(state.start(Phase.NIGHT, 1));
+        assertTrue(state.end(Phase.DAY, 1));
+        assertTrue(state.start(Phase.NIGHT, 1));
+        assertFalse(state.start(Phase.DAY, 2));
+
+        assertTrue(state.isOngoing(Phase.NIGHT));
+        assertEquals(Phase.NIGHT, state.getPhase());
+        assertEquals(1, state.getCycle());
+    }
+
+    @Test
+    void resetOverwritesEverything() {
+        final PhaseState state = new PhaseState(Phase.DAY, 0, true);
+        state.reset(Phase.NIGHT, Integer.MAX_VALUE, false);
+
+        assertEquals(Phase.NIGHT, state.getPhase());
+        assertEquals(Integer.MAX_VALUE, state.getCycle());
+        assertFalse(state.hasEnded());
+    }
+
+    @Test
+    void exactlyOneOfConcurrentEndsWins() throws Exception {
+        for (int cycle = 1; cycle <= 200; cycle++) {
+            final PhaseState state = new PhaseState(Phase.DAY, cycle, false);
+            final CountDownLatch go = new CountDownLatch(1);
+            final List<Future<Boolean>> ends = new ArrayList<>();
+            final int day = cycle;
+            for (int i = 0; i < 8; i++) {
+                ends.add(this.workers.submit(() -> {
+                    go.await();
+                    return state.end(Phase.DAY, day);
+                }));
+            }
+            go.countDown();
+
+            int winners = 0;
+            for (final Future<Boolean> end : ends) {
+                if (end.get(5, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+            assertEquals(1, winners, "day " + cycle);
+        }
+    }
+}
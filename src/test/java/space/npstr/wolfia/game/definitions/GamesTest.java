@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.definitions;
+
+import net.dv8tion.jda.core.EmbedBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.commands.CommandContext;
+import space.npstr.wolfia.db.entities.stats.ActionStats;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.GameInfo;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GamesTest {
+
+    private static final long GUILD_ID = 1;
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(2);
+    private final Game first = new IndexedGame(10);
+    private final Game second = new IndexedGame(11);
+
+    @AfterEach
+    void tearDown() {
+        this.workers.shutdownNow();
+        Games.remove(this.first);
+        Games.remove(this.second);
+    }
+
+    @Test
+    void gameIsIndexedByItsGuild() {
+        Games.set(this.first);
+        assertTrue(Games.getByGuild(GUILD_ID).contains(this.first));
+
+        Games.remove(this.first);
+        assertFalse(Games.getByGuild(GUILD_ID).contains(this.first));
+    }
+
+    @Test
+    void removingTheLastGameOfAGuildDoesNotLoseAGameSetAtTheSameTime() throws Exception {
+        final int rounds = 100_000;
+        //keeps emptying the index of the guild
+        final Future<?> churn = this.workers.submit(() -> {
+            for (int i = 0; i < rounds; i++) {
+                Games.set(this.first);
+                Games.remove(this.first);
+            }
+        });
+        //nobody else removes this game, so it has to be indexed right after being set
+        final Future<Boolean> alwaysIndexed = this.workers.submit(() -> {
+            for (int i = 0; i < rounds; i++) {
+                Games.set(this.second);
+                if (!Games.getByGuild(GUILD_ID).contains(this.second)) {
+                    return false;
+                }
+                Games.remove(this.second);
+            }
+            return true;
+        });
+
+        churn.get(30, TimeUnit.SECONDS);
+        assertTrue(alwaysIndexed.get(30, TimeUnit.SECONDS));
+    }
+
+    private static class IndexedGame extends Game {
+
+        IndexedGame(final long channelId) {
+            this.channelId = channelId;
+            this.guildId = GUILD_ID;
+        }
+
+        @Override
+        protected ActionStats simpleAction(final long actor, final Actions action, final long target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setDayLength(final long dayLength, final TimeUnit timeUnit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public EmbedBuilder getStatus() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletionStage<Void> start(final long channelId, final GameInfo.GameMode mode, final Set<Long> innedPlayers) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        protected boolean handleCommand(@Nonnull final CommandContext context) {
+            return false;
+        }
+    }
+}
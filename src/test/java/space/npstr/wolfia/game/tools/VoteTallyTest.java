@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VoteTallyTest {
+
+    private final VoteTally<String, String> tally = new VoteTally<>();
+
+    @Test
+    void revoteMovesTheVote() {
+        assertNull(this.tally.vote("alice", "bob"));
+        assertEquals("bob", this.tally.vote("alice", "carol"));
+
+        assertEquals(0, this.tally.getVotesFor("bob"));
+        assertEquals(1, this.tally.getVotesFor("carol"));
+        assertEquals(1, this.tally.getVoteCount());
+        assertEquals(1, this.tally.getMostVotes());
+    }
+
+    @Test
+    void mostVotesGoesDownWithUnvotes() {
+        this.tally.vote("alice", "bob");
+        this.tally.vote("carol", "bob");
+        this.tally.vote("dave", "erin");
+        assertEquals(2, this.tally.getMostVotes());
+
+        assertEquals("bob", this.tally.unvote("carol"));
+        assertEquals(1, this.tally.getMostVotes());
+        assertNull(this.tally.unvote("carol"));
+
+        this.tally.clear();
+        assertEquals(0, this.tally.getMostVotes());
+        assertEquals(0, this.tally.getVoteCount());
+    }
+
+    @Test
+    void votersAreKeptInTheOrderTheyVoted() {
+        this.tally.vote("alice", "bob");
+        this.tally.vote("carol", "bob");
+        this.tally.vote("dave", "bob");
+        this.tally.vote("alice", "bob"); //revoting the same candidate moves to the end
+
+        assertEquals(List.of("carol", "dave", "alice"), this.tally.getVotersFor("bob"));
+        assertEquals(List.of("carol", "dave", "alice"), List.copyOf(this.tally.snapshot().getVotes().keySet()));
+    }
+
+    @Test
+    void mostVotedKeepsTheOrderOfTheCandidates() {
+        this.tally.vote("alice", "erin");
+        this.tally.vote("carol", "bob");
+        assertEquals(List.of("bob", "erin"), this.tally.getMostVoted(List.of("bob", "dave", "erin")));
+
+        this.tally.vote("dave", "erin");
+        assertEquals(List.of("erin"), this.tally.getMostVoted(List.of("bob", "dave", "erin")));
+    }
+
+    @Test
+    void noVotesMakeEveryoneMostVoted() {
+        assertEquals(List.of("bob", "carol"), this.tally.getMostVoted(List.of("bob", "carol")));
+    }
+
+    @Test
+    void snapshotIsSharedUntilTheVotesChange() {
+        this.tally.vote("alice", "bob");
+        final VoteTally.Snapshot<String, String> first = this.tally.snapshot();
+        assertSame(first, this.tally.snapshot());
+
+        this.tally.vote("carol", "bob");
+        final VoteTally.Snapshot<String, String> second = this.tally.snapshot();
+        assertNotSame(first, second);
+        assertEquals(1, first.getVotersFor("bob").size());
+        assertEquals(2, second.getVotersFor("bob").size());
+        assertEquals(first.version + 1, second.version);
+    }
+
+    @Test
+    void mostVotesMatchesACountOfAllVotes() {
+        final Random random = new Random(42);
+        final Map<Integer, Integer> votes = new HashMap<>();
+        final VoteTally<Integer, Integer> numbers = new VoteTally<>();
+        for (int i = 0; i < 10_000; i++) {
+            final int voter = random.nextInt(30);
+            if (random.nextInt(4) == 0) {
+                numbers.unvote(voter);
+                votes.remove(voter);
+            } else {
+                //few candidates, so that some of them pile up more votes than the initial size of the histogram
+                final int candidate = random.nextInt(3);
+                numbers.vote(voter, candidate);
+                votes.put(voter, candidate);
+            }
+
+            final Map<Integer, Integer> counts = new HashMap<>();
+            votes.values().forEach(candidate -> counts.merge(candidate, 1, Integer::sum));
+            final int expected = counts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+            assertEquals(expected, numbers.getMostVotes(), "after " + (i + 1) + " changes");
+        }
+    }
+}
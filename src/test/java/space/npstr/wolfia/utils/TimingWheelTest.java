@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final TimingWheel wheel = new TimingWheel("test", TICK_MILLIS, this.executor);
+
+    @AfterEach
+    void tearDown() {
+        this.wheel.shutdown();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void firesNotBeforeItsDelay() throws InterruptedException {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final long scheduledAt = System.nanoTime();
+        final long[] firedAt = {0};
+
+        this.wheel.schedule(() -> {
+            firedAt[0] = System.nanoTime();
+            fired.countDown();
+        }, 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        final long waitedMillis = TimeUnit.NANOSECONDS.toMillis(firedAt[0] - scheduledAt);
+        assertTrue(waitedMillis >= 200 - TICK_MILLIS, "fired after " + waitedMillis + "ms");
+    }
+
+    @Test
+    void firesTimersBeyondTheFirstLevel() throws InterruptedException {
+        //64 slots of 10ms cover 640ms on the finest level, so this one has to cascade down
+        final CountDownLatch fired = new CountDownLatch(1);
+        this.wheel.schedule(fired::countDown, 1000, TimeUnit.MILLISECONDS);
+
+        assertFalse(fired.await(800, TimeUnit.MILLISECONDS));
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledTimerDoesNotFire() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger(0);
+        final TimingWheel.Timeout timeout = this.wheel.schedule(runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        Thread.sleep(300);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void cancelledGroupDropsPendingAndLaterTimers() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger(0);
+        final TimingWheel.TimerGroup group = this.wheel.newGroup();
+        group.schedule(runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        group.scheduleAtFixedRate(runs::incrementAndGet, 100, 50, TimeUnit.MILLISECONDS);
+
+        group.cancelAll();
+        final TimingWheel.Timeout late = group.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(late.isCancelled());
+        Thread.sleep(300);
+        assertEquals(0, runs.get());
+        assertEquals(0, group.size());
+    }
+
+    @Test
+    void cancelledGroupWaitsForItsRunningTask() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TimingWheel.TimerGroup group = this.wheel.newGroup();
+        group.schedule(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        group.cancelAll();
+        assertFalse(group.awaitRunning(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(group.awaitRunning(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowFixedRateTaskDoesNotOverlapItself() throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        final AtomicInteger runs = new AtomicInteger(0);
+
+        final TimingWheel.Timeout timeout = this.wheel.scheduleAtFixedRate(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            runs.incrementAndGet();
+            sleepQuietly(200);
+            running.decrementAndGet();
+        }, 0, 20, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(1000);
+        timeout.cancel();
+
+        assertEquals(1, maxRunning.get());
+        //runs start every 200ms or so, not every 20ms
+        assertTrue(runs.get() >= 3 && runs.get() <= 6, runs.get() + " runs");
+    }
+
+    @Test
+    void blockedTaskDoesNotDelayOtherTimers() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch fired = new CountDownLatch(1);
+
+        for (int i = 0; i < 32; i++) {
+            this.wheel.schedule(() -> awaitQuietly(release), 10, TimeUnit.MILLISECONDS);
+        }
+        this.wheel.schedule(fired::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    private static void sleepQuietly(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
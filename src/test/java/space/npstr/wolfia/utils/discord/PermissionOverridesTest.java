@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PermissionOverridesTest {
+
+    //raw permission bits, which ones doesn't matter here
+    private static final long READ = 1;
+    private static final long WRITE = 1 << 1;
+    private static final long REACT = 1 << 2;
+
+    @Test
+    void changesForAHolderAreMerged() {
+        final PermissionOverrides.Change change = new PermissionOverrides.Change();
+        change.grant(READ);
+        change.deny(WRITE);
+        change.grant(REACT);
+
+        assertEquals(READ | REACT, change.applyToAllowed(0));
+        assertEquals(WRITE, change.applyToDenied(0));
+    }
+
+    @Test
+    void latestCallForAPermissionWins() {
+        final PermissionOverrides.Change change = new PermissionOverrides.Change();
+        change.grant(READ | WRITE);
+        change.deny(WRITE);
+        change.clear(READ);
+
+        assertEquals(0, change.applyToAllowed(READ));
+        assertEquals(WRITE, change.applyToDenied(0));
+    }
+
+    @Test
+    void untouchedPermissionsOfTheOverrideAreKept() {
+        final PermissionOverrides.Change change = new PermissionOverrides.Change();
+        change.deny(WRITE);
+
+        //write moves from allowed to denied, read and react stay where they are
+        assertEquals(READ, change.applyToAllowed(READ | WRITE));
+        assertEquals(WRITE | REACT, change.applyToDenied(REACT));
+    }
+
+    @Test
+    void overrideThatAlreadyLooksLikeTheResultIsLeftAlone() {
+        final PermissionOverrides.Change change = new PermissionOverrides.Change();
+        change.grant(READ);
+        change.deny(WRITE);
+        change.clear(REACT);
+
+        //same allowed and denied afterwards, so no request is sent for it
+        assertEquals(READ, change.applyToAllowed(READ));
+        assertEquals(WRITE, change.applyToDenied(WRITE));
+    }
+
+    @Test
+    void clearingEverythingEmptiesTheOverride() {
+        final PermissionOverrides.Change change = new PermissionOverrides.Change();
+        change.clear(READ | WRITE | REACT);
+
+        //an override with nothing allowed or denied is deleted
+        assertEquals(0, change.applyToAllowed(READ | REACT));
+        assertEquals(0, change.applyToDenied(WRITE));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RestSchedulerTest {
+
+    //requests that are handed to JDA in the order they were dispatched, and done whenever the test says so
+    private final List<String> dispatched = new ArrayList<>();
+    private final Map<String, Runnable> inFlight = new HashMap<>();
+
+    private RestScheduler.Request request(final String name) {
+        return done -> {
+            this.dispatched.add(name);
+            this.inFlight.put(name, done);
+        };
+    }
+
+    private void done(final String name) {
+        this.inFlight.remove(name).run();
+    }
+
+    @Test
+    void higherLanesGetFreedSlotsFirst() {
+        final RestScheduler scheduler = new RestScheduler(2, 1);
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, request("first"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 2, request("second"));
+        scheduler.submit(RestScheduler.Lane.BACKGROUND, 3, request("background"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 4, request("interactive"));
+        scheduler.submit(RestScheduler.Lane.GAME_CRITICAL, 5, request("critical"));
+        assertEquals(List.of("first", "second"), this.dispatched);
+
+        done("first");
+        assertEquals(List.of("first", "second", "critical"), this.dispatched);
+        done("second");
+        assertEquals(List.of("first", "second", "critical", "interactive"), this.dispatched);
+        //one slot is reserved, so background waits until everything else is done
+        done("critical");
+        assertEquals(List.of("first", "second", "critical", "interactive"), this.dispatched);
+        done("interactive");
+        assertEquals(List.of("first", "second", "critical", "interactive", "background"), this.dispatched);
+    }
+
+    @Test
+    void oneRequestPerRouteInSubmissionOrder() {
+        final RestScheduler scheduler = new RestScheduler(10, 0);
+        scheduler.submit(RestScheduler.Lane.BACKGROUND, 1, request("a"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, request("b"));
+        scheduler.submit(RestScheduler.Lane.GAME_CRITICAL, 1, request("c"));
+        assertEquals(List.of("a"), this.dispatched);
+
+        done("a");
+        assertEquals(List.of("a", "b"), this.dispatched);
+        done("b");
+        assertEquals(List.of("a", "b", "c"), this.dispatched);
+    }
+
+    @Test
+    void higherLaneTakesOlderMessagesToItsRouteAlong() {
+        final RestScheduler scheduler = new RestScheduler(2, 0);
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, request("first"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 2, request("second"));
+        scheduler.submit(RestScheduler.Lane.BACKGROUND, 3, request("tag list"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 4, request("reply"));
+        scheduler.submit(RestScheduler.Lane.GAME_CRITICAL, 3, request("day end"));
+
+        done("first");
+        assertEquals(List.of("first", "second", "tag list"), this.dispatched);
+        done("tag list");
+        assertEquals(List.of("first", "second", "tag list", "day end"), this.dispatched);
+        done("day end");
+        assertEquals(List.of("first", "second", "tag list", "day end", "reply"), this.dispatched);
+    }
+
+    @Test
+    void requestThatThrowsDoesNotBlockItsRoute() {
+        final RestScheduler scheduler = new RestScheduler(1, 0);
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, done -> {
+            throw new IllegalStateException("boom");
+        });
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, request("next"));
+        assertEquals(List.of("next"), this.dispatched);
+    }
+
+    @Test
+    void doneTwiceFreesOneSlot() {
+        final RestScheduler scheduler = new RestScheduler(1, 0);
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 1, request("a"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 2, request("b"));
+        scheduler.submit(RestScheduler.Lane.INTERACTIVE, 3, request("c"));
+        final Runnable doneA = this.inFlight.get("a");
+        doneA.run();
+        doneA.run();
+        assertEquals(List.of("a", "b"), this.dispatched);
+    }
+
+    @Test
+    void backgroundNeedsASlot() {
+        assertThrows(IllegalArgumentException.class, () -> new RestScheduler(2, 2));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017-2019 Dennis Neufeld
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.utils.discord;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextchatUtilsTest {
+
+    @Test
+    void distanceWithinTheCutoffIsExact() {
+        assertEquals(0, TextchatUtils.levenshteinDist("napster", "napster", 2));
+        assertEquals(1, TextchatUtils.levenshteinDist("napster", "napstr", 2));
+        assertEquals(2, TextchatUtils.levenshteinDist("napster", "nupstar", 2));
+        assertEquals(3, TextchatUtils.levenshteinDist("", "abc", 3));
+    }
+
+    @Test
+    void distanceBeyondTheCutoffIsOneMoreThanTheCutoff() {
+        assertEquals(3, TextchatUtils.levenshteinDist("napster", "wolfia", 2));
+        assertEquals(3, TextchatUtils.levenshteinDist("ab", "abcdefgh", 2));
+        assertEquals(1, TextchatUtils.levenshteinDist("a", "b", 0));
+    }
+
+    @Test
+    void cutoffAgreesWithTheFullDistance() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            //a small alphabet, so that the strings have a lot in common
+            final String a = randomString(random, random.nextInt(12));
+            final String b = randomString(random, random.nextInt(40)); //longer than the initial rows of the matrix
+            final int maxDistance = random.nextInt(5);
+
+            final int expected = Math.min(TextchatUtils.levenshteinDist(a, b), maxDistance + 1);
+            assertEquals(expected, TextchatUtils.levenshteinDist(a, b, maxDistance),
+                    a + " / " + b + " with a cutoff of " + maxDistance);
+        }
+    }
+
+    private static String randomString(final Random random, final int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(3)));
+        }
+        return sb.toString();
+    }
+}